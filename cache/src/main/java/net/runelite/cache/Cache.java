@@ -47,6 +47,7 @@ public class Cache
 
 		options.addOption("u", "unpack", false, "unpack cache");
 		options.addOption("p", "pack", false, "pack cache");
+		options.addOption(null, "compact", false, "compact cache, removing unused sectors");
 
 		options.addOption(null, "items", true, "directory to dump items to");
 		options.addOption(null, "npcs", true, "directory to dump npcs to");
@@ -92,6 +93,24 @@ public class Cache
 			System.out.println(" done!");
 			return;
 		}
+		else if (cmd.hasOption("compact"))
+		{
+			if (cache == null)
+			{
+				System.err.println("Cache base must be specified to compact");
+				System.exit(-1);
+			}
+
+			System.out.print("Compacting cache " + cache + "...");
+
+			try (DiskStorage storage = new DiskStorage(new File(cache)))
+			{
+				storage.compact();
+			}
+
+			System.out.println(" done!");
+			return;
+		}
 		else if (cmd.hasOption("u"))
 		{
 			if (cache == null || tree == null)
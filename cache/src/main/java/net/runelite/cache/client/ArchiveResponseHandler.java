@@ -30,17 +30,17 @@ import net.runelite.cache.protocol.packets.ArchiveResponsePacket;
 
 public class ArchiveResponseHandler extends SimpleChannelInboundHandler<ArchiveResponsePacket>
 {
-	private final CacheClient client;
+	private final CacheConnection connection;
 
-	public ArchiveResponseHandler(CacheClient client)
+	public ArchiveResponseHandler(CacheConnection connection)
 	{
-		this.client = client;
+		this.connection = connection;
 	}
 
 	@Override
 	protected void channelRead0(ChannelHandlerContext ctx, ArchiveResponsePacket archiveResponse) throws Exception
 	{
-		client.onFileFinish(archiveResponse.getIndex(),
+		connection.onFileFinish(archiveResponse.getIndex(),
 			archiveResponse.getArchive(),
 			archiveResponse.getData());
 	}
@@ -25,24 +25,21 @@
 package net.runelite.cache.client;
 
 import com.google.common.base.Stopwatch;
-import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
-import io.netty.channel.Channel;
-import io.netty.channel.ChannelFuture;
-import io.netty.channel.ChannelInitializer;
-import io.netty.channel.ChannelOption;
-import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import java.io.IOException;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.FSFile;
 import net.runelite.cache.fs.Index;
@@ -50,18 +47,19 @@ import net.runelite.cache.fs.Store;
 import net.runelite.cache.index.ArchiveData;
 import net.runelite.cache.index.FileData;
 import net.runelite.cache.index.IndexData;
-import net.runelite.cache.protocol.decoders.HandshakeResponseDecoder;
-import net.runelite.cache.protocol.encoders.ArchiveRequestEncoder;
-import net.runelite.cache.protocol.encoders.EncryptionEncoder;
-import net.runelite.cache.protocol.encoders.HandshakeEncoder;
-import net.runelite.cache.protocol.packets.ArchiveRequestPacket;
-import net.runelite.cache.protocol.packets.HandshakePacket;
 import net.runelite.cache.protocol.packets.HandshakeResponseType;
-import net.runelite.cache.protocol.packets.HandshakeType;
 import net.runelite.cache.util.Crc32;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Downloads a cache from a cache server. Requests are queued, and sent
+ * over one or more connections as the request window of each connection
+ * allows. Requests lost to a closed connection are retried on the
+ * remaining connections. All connections share a single event loop, so
+ * downloads complete, and the {@link DownloadWatcher} is called, on one
+ * thread.
+ */
 public class CacheClient implements AutoCloseable
 {
 	private static final Logger logger = LoggerFactory.getLogger(CacheClient.class);
@@ -69,20 +67,25 @@ public class CacheClient implements AutoCloseable
 	private static final String HOST = "oldschool1.runescape.com";
 	private static final int PORT = 43594;
 
-	private static final int MAX_REQUESTS = 19; // too many and the server closes the conncetion
+	private static final int DEFAULT_MAX_REQUESTS = 19; // too many and the server closes the conncetion
+	private static final int MAX_ATTEMPTS = 3;
 
 	private final Store store; // store cache will be written to
 	private final String host;
 	private final int clientRevision;
 	private DownloadWatcher watcher;
 
-	private ClientState state;
+	private int connectionCount = 1;
+	private volatile int maxRequests = DEFAULT_MAX_REQUESTS;
 
 	private final EventLoopGroup group = new NioEventLoopGroup(1);
-	private Channel channel;
+	private final List<CacheConnection> connections = new ArrayList<>();
 
-	private CompletableFuture<HandshakeResponseType> handshakeFuture;
-	private final Queue<PendingFileRequest> requests = new ArrayDeque<>();
+	// requests which are not yet sent, urgent requests are sent first
+	private final Queue<PendingFileRequest> urgentRequests = new ConcurrentLinkedQueue<>();
+	private final Queue<PendingFileRequest> prefetchRequests = new ConcurrentLinkedQueue<>();
+	// all requests which are not yet complete, by index and archive
+	private final ConcurrentMap<Integer, PendingFileRequest> requests = new ConcurrentHashMap<>();
 
 	public CacheClient(Store store, int clientRevision)
 	{
@@ -104,61 +107,44 @@ public class CacheClient implements AutoCloseable
 
 	public void connect()
 	{
-		Bootstrap b = new Bootstrap();
-		b.group(group)
-			.channel(NioSocketChannel.class)
-			.option(ChannelOption.TCP_NODELAY, true)
-			.handler(new ChannelInitializer<SocketChannel>()
-			{
-				@Override
-				public void initChannel(SocketChannel ch) throws Exception
-				{
-					ChannelPipeline p = ch.pipeline();
-
-					//p.addFirst(new HttpProxyHandler(new InetSocketAddress("runelite.net", 3128)));
-					p.addLast("decoder", new HandshakeResponseDecoder());
-
-					p.addLast(
-						new CacheClientHandler(),
-						new HandshakeResponseHandler(CacheClient.this),
-						new ArchiveResponseHandler(CacheClient.this)
-					);
-
-					p.addLast(
-						new HandshakeEncoder(),
-						new EncryptionEncoder(),
-						new ArchiveRequestEncoder()
-					);
-				}
-			});
-
-		// Start the client.
-		ChannelFuture f = b.connect(host, PORT).syncUninterruptibly();
-		channel = f.channel();
+		for (int i = 0; i < connectionCount; ++i)
+		{
+			CacheConnection connection = new CacheConnection(this);
+			connection.connect(group, host, PORT);
+			connections.add(connection);
+		}
 	}
 
 	public CompletableFuture<HandshakeResponseType> handshake()
 	{
-		HandshakePacket handshakePacket = new HandshakePacket();
-		handshakePacket.setType(HandshakeType.ON_DEMAND);
-		handshakePacket.setRevision(getClientRevision());
-
-		state = ClientState.HANDSHAKING;
-
-		assert handshakeFuture == null;
-		handshakeFuture = new CompletableFuture<>();
-
-		channel.writeAndFlush(handshakePacket);
-
-		logger.info("Sent handshake with revision {}", handshakePacket.getRevision());
+		List<CompletableFuture<HandshakeResponseType>> handshakes = new ArrayList<>();
+		for (CacheConnection connection : connections)
+		{
+			handshakes.add(connection.handshake(clientRevision));
+		}
 
-		return handshakeFuture;
+		// the first non-ok response, or ok if every connection succeeded
+		return CompletableFuture.allOf(handshakes.toArray(new CompletableFuture[0]))
+			.thenApply(v ->
+			{
+				for (CompletableFuture<HandshakeResponseType> handshake : handshakes)
+				{
+					if (handshake.join() != HandshakeResponseType.RESPONSE_OK)
+					{
+						return handshake.join();
+					}
+				}
+				return HandshakeResponseType.RESPONSE_OK;
+			});
 	}
 
 	@Override
 	public void close()
 	{
-		channel.close().syncUninterruptibly();
+		for (CacheConnection connection : connections)
+		{
+			connection.close();
+		}
 		group.shutdownGracefully();
 	}
 
@@ -167,19 +153,69 @@ public class CacheClient implements AutoCloseable
 		return clientRevision;
 	}
 
+	/**
+	 * Get the state of the client. The client is connected if any of its
+	 * connections are.
+	 *
+	 * @return
+	 */
 	public ClientState getState()
 	{
+		ClientState state = null;
+		for (CacheConnection connection : connections)
+		{
+			ClientState s = connection.getState();
+			if (s == ClientState.CONNECTED)
+			{
+				return s;
+			}
+			if (state == null || s == ClientState.HANDSHAKING)
+			{
+				state = s;
+			}
+		}
 		return state;
 	}
 
-	void setState(ClientState state)
+	public int getConnectionCount()
 	{
-		this.state = state;
+		return connectionCount;
 	}
 
-	CompletableFuture<HandshakeResponseType> getHandshakeFuture()
+	/**
+	 * Set the number of connections to download with. This must be set
+	 * before connecting.
+	 *
+	 * @param connectionCount
+	 */
+	public void setConnectionCount(int connectionCount)
 	{
-		return handshakeFuture;
+		if (connectionCount < 1)
+		{
+			throw new IllegalArgumentException("connection count must be positive");
+		}
+
+		this.connectionCount = connectionCount;
+	}
+
+	public int getMaxRequests()
+	{
+		return maxRequests;
+	}
+
+	/**
+	 * Set the maximum number of requests in flight on each connection
+	 *
+	 * @param maxRequests
+	 */
+	public void setMaxRequests(int maxRequests)
+	{
+		if (maxRequests < 1)
+		{
+			throw new IllegalArgumentException("max requests must be positive");
+		}
+
+		this.maxRequests = maxRequests;
 	}
 
 	public List<IndexInfo> requestIndexes() throws IOException
@@ -203,11 +239,24 @@ public class CacheClient implements AutoCloseable
 		return indexInfo;
 	}
 
-	public void download() throws IOException
+	/**
+	 * Download the archives which differ from those in the store, by crc,
+	 * revision or name, and remove the archives which are no longer in
+	 * the remote indexes. The downloaded archives can be written with
+	 * {@link Store#save(java.util.Collection)} to update the store in place.
+	 *
+	 * @return the archives which were downloaded
+	 * @throws IOException if an archive could not be downloaded intact. The
+	 * archives in the store have been updated to the new crcs by then, so
+	 * the store must not be saved.
+	 */
+	public List<Archive> download() throws IOException
 	{
 		Stopwatch stopwatch = Stopwatch.createStarted();
 
 		List<IndexInfo> indexes = requestIndexes();
+		List<CompletableFuture<Archive>> downloads = new ArrayList<>();
+
 		for (IndexInfo indexInfo : indexes)
 		{
 			int i = indexInfo.getId();
@@ -268,6 +317,21 @@ public class CacheClient implements AutoCloseable
 
 			logger.info("Index {} has {} archives", i, indexData.getArchives().length);
 
+			Set<Integer> archiveIds = new HashSet<>();
+			for (ArchiveData ad : indexData.getArchives())
+			{
+				archiveIds.add(ad.getId());
+			}
+
+			for (Archive archive : new ArrayList<>(index.getArchives()))
+			{
+				if (!archiveIds.contains(archive.getArchiveId()))
+				{
+					logger.info("Archive {} in index {} was removed", archive.getArchiveId(), index.getId());
+					index.removeArchive(archive);
+				}
+			}
+
 			for (ArchiveData ad : indexData.getArchives())
 			{
 				Archive existing = index.getArchive(ad.getId());
@@ -319,135 +383,169 @@ public class CacheClient implements AutoCloseable
 					archive.addFile(file);
 				}
 
-				CompletableFuture<FileResult> future = requestFile(index.getId(), ad.getId(), false);
-				future.handle((fr, ex) ->
-				{
-					byte[] data = fr.getCompressedData();
-
-					Crc32 crc32 = new Crc32();
-					crc32.update(data, 0, data.length);
-					int hash = crc32.getHash();
-
-					if (hash != archive.getCrc())
-					{
-						logger.warn("crc mismatch on downloaded archive {}/{}: {} != {}",
-							archive.getIndex().getId(), archive.getArchiveId(),
-							hash, archive.getCrc());
-					}
-
-					archive.setData(data);
-
-					if (watcher != null)
-					{
-						watcher.downloadComplete(archive);
-					}
-					return null;
-				});
+				downloads.add(download(archive, 1));
 			}
 		}
 
-		// flush any pending requests
-		channel.flush();
-
-		while (!requests.isEmpty())
+		// wait for pending requests
+		List<Archive> downloaded = new ArrayList<>();
+		for (CompletableFuture<Archive> download : downloads)
 		{
-			// wait for pending requests
-			synchronized (this)
+			try
 			{
-				try
-				{
-					wait();
-				}
-				catch (InterruptedException ex)
+				downloaded.add(download.join());
+			}
+			catch (CompletionException ex)
+			{
+				Throwable cause = ex.getCause();
+				if (cause instanceof IOException)
 				{
-					logger.warn(null, ex);
+					throw (IOException) cause;
 				}
+				throw new IOException("unable to download archive", cause);
 			}
 		}
 
 		stopwatch.stop();
-		logger.info("Download completed in {}", stopwatch);
+		logger.info("Download of {} archives completed in {}", downloaded.size(), stopwatch);
+
+		return downloaded;
 	}
 
-	private synchronized CompletableFuture<FileResult> requestFile(int index, int fileId, boolean flush)
+	private CompletableFuture<Archive> download(Archive archive, int attempt)
 	{
-		if (state != ClientState.CONNECTED)
-		{
-			throw new IllegalStateException("Can't request files until connected!");
-		}
+		int indexId = archive.getIndex().getId();
 
-		if (!flush)
-		{
-			while (requests.size() >= MAX_REQUESTS)
+		return requestFile(indexId, archive.getArchiveId(), false)
+			.thenCompose(fr ->
 			{
-				channel.flush();
+				byte[] data = fr.getCompressedData();
+
+				Crc32 crc32 = new Crc32();
+				crc32.update(data, 0, data.length);
+				int hash = crc32.getHash();
 
-				try
+				if (hash != archive.getCrc())
 				{
-					wait();
+					logger.warn("crc mismatch on downloaded archive {}/{}: {} != {}",
+						indexId, archive.getArchiveId(),
+						hash, archive.getCrc());
+
+					if (attempt < MAX_ATTEMPTS)
+					{
+						return download(archive, attempt + 1);
+					}
+
+					// give up, the store must not be saved with the new crc for this archive
+					CompletableFuture<Archive> failed = new CompletableFuture<>();
+					failed.completeExceptionally(new IOException("crc mismatch on downloaded archive "
+						+ indexId + "/" + archive.getArchiveId()));
+					return failed;
 				}
-				catch (InterruptedException ex)
+
+				archive.setData(data);
+
+				if (watcher != null)
 				{
-					logger.warn("interrupted while waiting for requests", ex);
+					watcher.downloadComplete(archive);
 				}
-			}
-		}
+				return CompletableFuture.completedFuture(archive);
+			});
+	}
 
-		ArchiveRequestPacket archiveRequest = new ArchiveRequestPacket();
-		archiveRequest.setPriority(false);
-		archiveRequest.setIndex(index);
-		archiveRequest.setArchive(fileId);
+	private CompletableFuture<FileResult> requestFile(int index, int fileId, boolean urgent)
+	{
+		if (getState() != ClientState.CONNECTED)
+		{
+			throw new IllegalStateException("Can't request files until connected!");
+		}
 
-		CompletableFuture<FileResult> future = new CompletableFuture<>();
-		PendingFileRequest pf = new PendingFileRequest(index,
-			fileId, future);
+		PendingFileRequest pr = new PendingFileRequest(index, fileId, urgent, new CompletableFuture<>());
 
-		logger.trace("Sending request for {}/{}", index, fileId);
+		PendingFileRequest existing = requests.putIfAbsent(pr.getKey(), pr);
+		if (existing != null)
+		{
+			// the server only answers once for each index and archive
+			return existing.getFuture();
+		}
 
-		requests.add(pf);
+		enqueue(pr);
+		return pr.getFuture();
+	}
 
-		if (!flush)
+	private void enqueue(PendingFileRequest pr)
+	{
+		if (pr.isUrgent())
 		{
-			channel.write(archiveRequest);
+			urgentRequests.add(pr);
 		}
 		else
 		{
-			channel.writeAndFlush(archiveRequest);
+			prefetchRequests.add(pr);
 		}
 
-		return future;
-	}
+		if (getState() != ClientState.CONNECTED)
+		{
+			failQueued();
+			return;
+		}
 
-	private PendingFileRequest findRequest(int index, int file)
-	{
-		for (PendingFileRequest pr : requests)
+		for (CacheConnection connection : connections)
 		{
-			if (pr.getIndex() == index && pr.getArchive() == file)
-			{
-				return pr;
-			}
+			connection.dispatch();
 		}
-		return null;
 	}
 
-	protected synchronized void onFileFinish(int index, int file, byte[] compressedData)
+	/**
+	 * Take the next request to send
+	 *
+	 * @return the request, or null if there are none queued
+	 */
+	PendingFileRequest nextRequest()
 	{
-		PendingFileRequest pr = findRequest(index, file);
+		PendingFileRequest pr = urgentRequests.poll();
+		return pr != null ? pr : prefetchRequests.poll();
+	}
+
+	void complete(PendingFileRequest pr, FileResult result)
+	{
+		// remove before completing, so callbacks may request the file again
+		requests.remove(pr.getKey(), pr);
+		pr.getFuture().complete(result);
+	}
 
-		if (pr == null)
+	void retry(PendingFileRequest pr)
+	{
+		if (pr.incrementAttempts() >= MAX_ATTEMPTS)
 		{
-			logger.warn("File download {}/{} with no pending request", index, file);
+			fail(pr, new IOException("request for " + pr.getIndex() + "/" + pr.getArchive() + " failed after " + pr.getAttempts() + " attempts"));
 			return;
 		}
 
-		requests.remove(pr);
-
-		notify();
+		logger.debug("Retrying request for {}/{}", pr.getIndex(), pr.getArchive());
+		enqueue(pr);
+	}
 
-		FileResult result = new FileResult(index, file, compressedData);
+	void onConnectionClosed(CacheConnection connection)
+	{
+		if (getState() != ClientState.CONNECTED)
+		{
+			failQueued();
+		}
+	}
 
-		logger.debug("File download finished for index {} file {}, length {}", index, file, compressedData.length);
+	private void failQueued()
+	{
+		PendingFileRequest pr;
+		while ((pr = nextRequest()) != null)
+		{
+			fail(pr, new IOException("no connections to " + host));
+		}
+	}
 
-		pr.getFuture().complete(result);
+	private void fail(PendingFileRequest pr, Throwable cause)
+	{
+		requests.remove(pr.getKey(), pr);
+		pr.getFuture().completeExceptionally(cause);
 	}
 }
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2016-2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.client;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.runelite.cache.protocol.decoders.HandshakeResponseDecoder;
+import net.runelite.cache.protocol.encoders.ArchiveRequestEncoder;
+import net.runelite.cache.protocol.encoders.EncryptionEncoder;
+import net.runelite.cache.protocol.encoders.HandshakeEncoder;
+import net.runelite.cache.protocol.packets.ArchiveRequestPacket;
+import net.runelite.cache.protocol.packets.HandshakePacket;
+import net.runelite.cache.protocol.packets.HandshakeResponseType;
+import net.runelite.cache.protocol.packets.HandshakeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A single connection to the cache server. Requests are taken from the
+ * client's queue whenever there is room in the request window, and
+ * requests in flight are tracked by index and archive. Everything but
+ * {@link #dispatch()} runs on the connection's event loop.
+ */
+public class CacheConnection
+{
+	private static final Logger logger = LoggerFactory.getLogger(CacheConnection.class);
+
+	private final CacheClient client;
+	private Channel channel;
+	private volatile ClientState state;
+
+	private CompletableFuture<HandshakeResponseType> handshakeFuture;
+
+	// requests which have been sent and not yet answered
+	private final IntObjectMap<PendingFileRequest> requests = new IntObjectHashMap<>();
+	private final AtomicBoolean dispatchScheduled = new AtomicBoolean();
+
+	CacheConnection(CacheClient client)
+	{
+		this.client = client;
+	}
+
+	void connect(EventLoopGroup group, String host, int port)
+	{
+		Bootstrap b = new Bootstrap();
+		b.group(group)
+			.channel(NioSocketChannel.class)
+			.option(ChannelOption.TCP_NODELAY, true)
+			.handler(new ChannelInitializer<SocketChannel>()
+			{
+				@Override
+				public void initChannel(SocketChannel ch) throws Exception
+				{
+					ChannelPipeline p = ch.pipeline();
+
+					//p.addFirst(new HttpProxyHandler(new InetSocketAddress("runelite.net", 3128)));
+					p.addLast("decoder", new HandshakeResponseDecoder());
+
+					p.addLast(
+						new CacheClientHandler(CacheConnection.this),
+						new HandshakeResponseHandler(CacheConnection.this),
+						new ArchiveResponseHandler(CacheConnection.this)
+					);
+
+					p.addLast(
+						new HandshakeEncoder(),
+						new EncryptionEncoder(),
+						new ArchiveRequestEncoder()
+					);
+				}
+			});
+
+		ChannelFuture f = b.connect(host, port).syncUninterruptibly();
+		channel = f.channel();
+	}
+
+	CompletableFuture<HandshakeResponseType> handshake(int revision)
+	{
+		HandshakePacket handshakePacket = new HandshakePacket();
+		handshakePacket.setType(HandshakeType.ON_DEMAND);
+		handshakePacket.setRevision(revision);
+
+		state = ClientState.HANDSHAKING;
+
+		assert handshakeFuture == null;
+		handshakeFuture = new CompletableFuture<>();
+
+		channel.writeAndFlush(handshakePacket);
+
+		logger.info("Sent handshake with revision {}", handshakePacket.getRevision());
+
+		return handshakeFuture;
+	}
+
+	void close()
+	{
+		channel.close().syncUninterruptibly();
+	}
+
+	public ClientState getState()
+	{
+		return state;
+	}
+
+	void setState(ClientState state)
+	{
+		this.state = state;
+	}
+
+	CompletableFuture<HandshakeResponseType> getHandshakeFuture()
+	{
+		return handshakeFuture;
+	}
+
+	/**
+	 * Send queued requests from the client, if there is room in the request
+	 * window. This may be called from any thread.
+	 */
+	void dispatch()
+	{
+		if (state != ClientState.CONNECTED || !dispatchScheduled.compareAndSet(false, true))
+		{
+			return;
+		}
+
+		channel.eventLoop().execute(() ->
+		{
+			dispatchScheduled.set(false);
+			sendRequests();
+		});
+	}
+
+	private void sendRequests()
+	{
+		boolean written = false;
+		PendingFileRequest pr;
+
+		while (state == ClientState.CONNECTED
+			&& requests.size() < client.getMaxRequests()
+			&& (pr = client.nextRequest()) != null)
+		{
+			ArchiveRequestPacket archiveRequest = new ArchiveRequestPacket();
+			archiveRequest.setPriority(pr.isUrgent());
+			archiveRequest.setIndex(pr.getIndex());
+			archiveRequest.setArchive(pr.getArchive());
+
+			logger.trace("Sending request for {}/{}", pr.getIndex(), pr.getArchive());
+
+			requests.put(pr.getKey(), pr);
+			channel.write(archiveRequest);
+			written = true;
+		}
+
+		if (written)
+		{
+			channel.flush();
+		}
+	}
+
+	void onFileFinish(int index, int file, byte[] compressedData)
+	{
+		PendingFileRequest pr = requests.remove(PendingFileRequest.key(index, file));
+
+		if (pr == null)
+		{
+			logger.warn("File download {}/{} with no pending request", index, file);
+			return;
+		}
+
+		logger.debug("File download finished for index {} file {}, length {}", index, file, compressedData.length);
+
+		client.complete(pr, new FileResult(index, file, compressedData));
+
+		// refill the request window
+		sendRequests();
+	}
+
+	void onClose()
+	{
+		state = ClientState.CLOSED;
+
+		if (handshakeFuture != null && !handshakeFuture.isDone())
+		{
+			handshakeFuture.completeExceptionally(new IOException("connection closed during handshake"));
+		}
+
+		// requests in flight on this connection go back to the client's queue
+		List<PendingFileRequest> inFlight = new ArrayList<>(requests.values());
+		requests.clear();
+
+		for (PendingFileRequest pr : inFlight)
+		{
+			client.retry(pr);
+		}
+
+		client.onConnectionClosed(this);
+	}
+}
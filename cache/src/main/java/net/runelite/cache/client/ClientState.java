@@ -27,5 +27,6 @@ package net.runelite.cache.client;
 public enum ClientState
 {
 	HANDSHAKING,
-	CONNECTED
+	CONNECTED,
+	CLOSED
 }
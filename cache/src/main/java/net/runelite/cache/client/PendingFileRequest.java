@@ -30,15 +30,35 @@ public class PendingFileRequest
 {
 	private final int index;
 	private final int archive;
+	private final boolean urgent;
 	private final CompletableFuture<FileResult> future;
+	private int attempts;
 
-	public PendingFileRequest(int index, int archive, CompletableFuture<FileResult> future)
+	public PendingFileRequest(int index, int archive, boolean urgent, CompletableFuture<FileResult> future)
 	{
 		this.index = index;
 		this.archive = archive;
+		this.urgent = urgent;
 		this.future = future;
 	}
 
+	/**
+	 * Key for a request, unique to the index and archive requested
+	 *
+	 * @param index
+	 * @param archive
+	 * @return
+	 */
+	static int key(int index, int archive)
+	{
+		return index << 16 | archive;
+	}
+
+	public int getKey()
+	{
+		return key(index, archive);
+	}
+
 	public int getIndex()
 	{
 		return index;
@@ -49,8 +69,28 @@ public class PendingFileRequest
 		return archive;
 	}
 
+	public boolean isUrgent()
+	{
+		return urgent;
+	}
+
 	public CompletableFuture<FileResult> getFuture()
 	{
 		return future;
 	}
+
+	public int getAttempts()
+	{
+		return attempts;
+	}
+
+	/**
+	 * Record a failed attempt at this request
+	 *
+	 * @return the number of attempts made
+	 */
+	int incrementAttempts()
+	{
+		return ++attempts;
+	}
 }
@@ -27,6 +27,7 @@ package net.runelite.cache.fs;
 import net.runelite.cache.fs.jagex.DataFile;
 import net.runelite.cache.fs.jagex.DataFileReadResult;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
@@ -40,6 +41,9 @@ public class Archive
 	private final Index index; // member of this index
 
 	private byte[] data; // raw data from the datafile, compressed/encrypted
+	private volatile boolean lazy; // contents have not been read from storage yet
+	private long loadedSize; // size of contents read on demand
+	private byte[][] loadedContents; // file contents as read from storage, to tell if they were modified
 
 	private final int archiveId;
 	private int nameHash;
@@ -48,7 +52,7 @@ public class Archive
 	private int revision;
 	private int compression;
 
-	private final ArchiveFiles files = new ArchiveFiles();
+	private volatile ArchiveFiles files = new ArchiveFiles();
 
 	public Archive(Index index, int id)
 	{
@@ -63,7 +67,7 @@ public class Archive
 		hash = 47 * hash + this.archiveId;
 		hash = 47 * hash + this.nameHash;
 		hash = 47 * hash + this.revision;
-		hash = 47 * hash + Objects.hashCode(this.files);
+		hash = 47 * hash + this.crc;
 		return hash;
 	}
 
@@ -91,7 +95,12 @@ public class Archive
 		{
 			return false;
 		}
-		if (!Objects.equals(this.files, other.files))
+		if (this.crc != other.crc)
+		{
+			return false;
+		}
+		// contents which have not been read are covered by the crc
+		if (!this.lazy && !other.lazy && !Objects.equals(this.files, other.files))
 		{
 			return false;
 		}
@@ -105,6 +114,17 @@ public class Archive
 
 	public byte[] getData()
 	{
+		if (lazy && data == null)
+		{
+			try
+			{
+				data = index.getStore().readArchive(this);
+			}
+			catch (IOException ex)
+			{
+				throw new UncheckedIOException(ex);
+			}
+		}
 		return data;
 	}
 
@@ -121,7 +141,122 @@ public class Archive
 
 	public FSFile findFile(int id)
 	{
-		return this.files.findFile(id);
+		return load().findFile(id);
+	}
+
+	public boolean isLazy()
+	{
+		return lazy;
+	}
+
+	/**
+	 * Set whether the contents of this archive are read from storage
+	 * on first access, rather than having been loaded already
+	 *
+	 * @param lazy
+	 */
+	public void setLazy(boolean lazy)
+	{
+		this.lazy = lazy;
+	}
+
+	long getLoadedSize()
+	{
+		return loadedSize;
+	}
+
+	void setLoadedSize(long loadedSize)
+	{
+		this.loadedSize = loadedSize;
+	}
+
+	/**
+	 * Read the contents of the archive from storage if they have not been
+	 * yet, and get its files
+	 */
+	private ArchiveFiles load()
+	{
+		// read the files before the flag, as unload() sets them in the
+		// opposite order
+		ArchiveFiles f = files;
+		if (!lazy)
+		{
+			return f;
+		}
+
+		try
+		{
+			return index.getStore().loadArchive(this);
+		}
+		catch (IOException ex)
+		{
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * Get the files of the archive once its contents have been read by
+	 * the store, which holds its lock for this
+	 */
+	ArchiveFiles loaded()
+	{
+		if (loadedContents == null)
+		{
+			snapshotContents();
+		}
+
+		lazy = false;
+		return files;
+	}
+
+	/**
+	 * Drop the files of an archive loaded on demand, so they are read
+	 * from storage again on next access. Files which were already handed
+	 * out keep their contents, the archive gets new ones without any.
+	 *
+	 * @return false if the files were modified since they were loaded, in
+	 * which case they are kept
+	 */
+	boolean unload()
+	{
+		if (isModified())
+		{
+			return false;
+		}
+
+		ArchiveFiles unloaded = new ArchiveFiles();
+		for (FSFile file : files.getFiles())
+		{
+			FSFile f = new FSFile(file.getFileId());
+			f.setNameHash(file.getNameHash());
+			unloaded.addFile(f);
+		}
+
+		lazy = true;
+		files = unloaded;
+		data = null;
+		loadedSize = 0L;
+		loadedContents = null;
+		return true;
+	}
+
+	private boolean isModified()
+	{
+		List<FSFile> fileList = files.getFiles();
+		if (loadedContents == null || loadedContents.length != fileList.size())
+		{
+			return true;
+		}
+
+		for (int i = 0; i < loadedContents.length; ++i)
+		{
+			if (fileList.get(i).getContents() != loadedContents[i])
+			{
+				return true;
+			}
+		}
+
+		return false;
 	}
 
 	public void decompressAndLoad(int[] keys) throws IOException
@@ -166,6 +301,24 @@ public class Archive
 
 		files.loadContents(decompressedData);
 		this.setData(null); // now that we've loaded it, clean it so it doesn't get written back
+
+		if (keys == null)
+		{
+			snapshotContents();
+		}
+		// else the decrypted contents can't be read from storage again, so
+		// they count as modified and the archive is never unloaded
+		lazy = false;
+	}
+
+	private void snapshotContents()
+	{
+		List<FSFile> fileList = files.getFiles();
+		loadedContents = new byte[fileList.size()][];
+		for (int i = 0; i < loadedContents.length; ++i)
+		{
+			loadedContents[i] = fileList.get(i).getContents();
+		}
 	}
 
 	public byte[] saveContents()
@@ -186,6 +339,7 @@ public class Archive
 	public void setNameHash(int nameHash)
 	{
 		this.nameHash = nameHash;
+		index.invalidateLookup();
 	}
 
 	public byte[] getWhirlpool()
@@ -229,6 +383,15 @@ public class Archive
 	}
 
 	public List<FSFile> getFiles()
+	{
+		return load().getFiles();
+	}
+
+	/**
+	 * Get the files of this archive without reading deferred contents
+	 * from storage
+	 */
+	List<FSFile> listFiles()
 	{
 		return files.getFiles();
 	}
@@ -25,11 +25,11 @@
 package net.runelite.cache.fs;
 
 import com.google.common.base.Preconditions;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import net.runelite.cache.io.InputStream;
 import net.runelite.cache.io.OutputStream;
@@ -41,7 +41,7 @@ public class ArchiveFiles
 	private static final Logger logger = LoggerFactory.getLogger(ArchiveFiles.class);
 
 	private final List<FSFile> files = new ArrayList<>();
-	private final Map<Integer, FSFile> fileMap = new HashMap<>();
+	private final IntObjectMap<FSFile> fileMap = new IntObjectHashMap<>();
 
 	@Override
 	public int hashCode()
@@ -28,8 +28,12 @@ import net.runelite.cache.fs.jagex.DataFile;
 import net.runelite.cache.fs.jagex.CompressionType;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import net.runelite.cache.index.ArchiveData;
@@ -59,6 +63,8 @@ public class Index
 	private int compression; // compression method of this index's data in 255
 
 	private final List<Archive> archives = new ArrayList<>();
+	// null if archives were removed or renamed since the lookups were built
+	private volatile ArchiveLookup lookup = new ArchiveLookup();
 
 	public Index(Store store, int id)
 	{
@@ -103,6 +109,11 @@ public class Index
 		return true;
 	}
 
+	Store getStore()
+	{
+		return store;
+	}
+
 	public XteaKeyManager getXteaManager()
 	{
 		return xteaManager;
@@ -190,39 +201,105 @@ public class Index
 
 	public List<Archive> getArchives()
 	{
-		return archives;
+		return Collections.unmodifiableList(archives);
 	}
 
 	public Archive addArchive(int id)
 	{
 		Archive archive = new Archive(this, id);
 		this.archives.add(archive);
+
+		ArchiveLookup l = lookup;
+		if (l != null)
+		{
+			l.add(archive);
+		}
 		return archive;
 	}
 
-	public Archive getArchive(int id)
+	public void removeArchive(Archive archive)
 	{
-		for (Archive a : archives)
+		assert archives.contains(archive);
+		archives.remove(archive);
+		invalidateLookup();
+	}
+
+	/**
+	 * Sort the archives by id
+	 */
+	public void sortArchives()
+	{
+		archives.sort(Comparator.comparingInt(Archive::getArchiveId));
+		invalidateLookup();
+	}
+
+	/**
+	 * Invalidate the archive lookups, eg. after an archive's name hash has
+	 * changed. They are rebuilt on the next lookup.
+	 */
+	void invalidateLookup()
+	{
+		lookup = null;
+	}
+
+	/**
+	 * Get the archive lookups, rebuilding them if they were invalidated.
+	 * Lookups may run concurrently with each other, but not with changes
+	 * to the archives.
+	 */
+	private ArchiveLookup getLookup()
+	{
+		ArchiveLookup l = lookup;
+		if (l != null)
+		{
+			return l;
+		}
+
+		synchronized (this)
 		{
-			if (a.getArchiveId() == id)
+			l = lookup;
+			if (l == null)
 			{
-				return a;
+				l = new ArchiveLookup();
+				for (Archive archive : archives)
+				{
+					l.add(archive);
+				}
+				// only publish the lookups once they are complete
+				lookup = l;
 			}
+			return l;
 		}
-		return null;
+	}
+
+	public Archive getArchive(int id)
+	{
+		return getLookup().archivesById.get(id);
 	}
 
 	public Archive findArchiveByName(String name)
 	{
 		int hash = Djb2.hash(name);
-		for (Archive a : archives)
+		return getLookup().archivesByName.get(hash);
+	}
+
+	private static class ArchiveLookup
+	{
+		private final IntObjectMap<Archive> archivesById = new IntObjectHashMap<>();
+		private final IntObjectMap<Archive> archivesByName = new IntObjectHashMap<>();
+
+		private void add(Archive archive)
 		{
-			if (a.getNameHash() == hash)
+			// the first archive wins, as with a scan of the archive list
+			if (!archivesById.containsKey(archive.getArchiveId()))
+			{
+				archivesById.put(archive.getArchiveId(), archive);
+			}
+			if (!archivesByName.containsKey(archive.getNameHash()))
 			{
-				return a;
+				archivesByName.put(archive.getNameHash(), archive);
 			}
 		}
-		return null;
 	}
 
 	public void rebuildCrc() throws IOException
@@ -290,11 +367,11 @@ public class Index
 			ad.setWhirlpool(archive.getWhirlpool());
 			ad.setRevision(archive.getRevision());
 
-			FileData[] files = new FileData[archive.getFiles().size()];
+			FileData[] files = new FileData[archive.listFiles().size()];
 			ad.setFiles(files);
 
 			int idx2 = 0;
-			for (FSFile file : archive.getFiles())
+			for (FSFile file : archive.listFiles())
 			{
 				FileData fd = files[idx2++] = new FileData();
 				fd.setId(file.getFileId());
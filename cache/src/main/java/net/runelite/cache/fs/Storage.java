@@ -25,6 +25,7 @@
 package net.runelite.cache.fs;
 
 import java.io.IOException;
+import java.util.Collection;
 
 public interface Storage extends AutoCloseable
 {
@@ -36,4 +37,18 @@ public interface Storage extends AutoCloseable
 	void load(Store store) throws IOException;
 
 	void save(Store store) throws IOException;
+
+	/**
+	 * Save only the given archives, and the indexes which contain them or
+	 * had archives removed. Storages which can't update archives
+	 * individually save the whole store.
+	 *
+	 * @param store
+	 * @param archives archives which have changed since the store was loaded
+	 * @throws IOException
+	 */
+	default void saveArchives(Store store, Collection<Archive> archives) throws IOException
+	{
+		save(store);
+	}
 }
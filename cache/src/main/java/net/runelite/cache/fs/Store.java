@@ -29,7 +29,11 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.fs.jagex.DiskStorage;
@@ -41,12 +45,31 @@ public final class Store implements Closeable
 {
 	private static final Logger logger = LoggerFactory.getLogger(Store.class);
 
+	private static final long DEFAULT_MAX_LOADED_SIZE = 64 * 1024 * 1024;
+
 	private final Storage storage;
 	private final List<Index> indexes = new ArrayList<>();
 
+	private boolean lazy;
+	private long maxLoadedSize = DEFAULT_MAX_LOADED_SIZE;
+	private long loadedSize;
+	// archives loaded on demand, in access order, keyed by index << 32 | archive
+	private final Map<Long, Archive> loadedArchives = new LinkedHashMap<>(16, 0.75f, true);
+
 	public Store(File folder) throws IOException
 	{
-		storage = new DiskStorage(folder);
+		this(folder, false);
+	}
+
+	/**
+	 *
+	 * @param folder cache folder
+	 * @param mapped whether to read the cache files through memory mappings
+	 * @throws IOException
+	 */
+	public Store(File folder, boolean mapped) throws IOException
+	{
+		storage = new DiskStorage(folder, mapped);
 		storage.init(this);
 
 		Index maps = this.findIndex(IndexType.MAPS.getNumber());
@@ -137,11 +160,139 @@ public final class Store implements Closeable
 		storage.load(this);
 	}
 
+	/**
+	 * Read the contents of a lazily loaded archive from storage. Once more
+	 * than the maximum loaded size has been read on demand, the least
+	 * recently used archives which have not been modified are unloaded
+	 * again.
+	 *
+	 * @param archive
+	 * @return the files of the archive
+	 * @throws IOException
+	 */
+	synchronized ArchiveFiles loadArchive(Archive archive) throws IOException
+	{
+		if (!archive.isLazy())
+		{
+			// loaded by another thread while this one was waiting
+			return archive.loaded();
+		}
+
+		Index index = archive.getIndex();
+		long key = (long) index.getId() << 32 | archive.getArchiveId();
+
+		if (archive.getData() == null)
+		{
+			logger.debug("can't read archive {} from index {}", archive.getArchiveId(), index.getId());
+			return archive.loaded();
+		}
+
+		long size;
+		if (index.getXteaManager() != null)
+		{
+			size = archive.getData().length; // can't decrypt this yet
+		}
+		else
+		{
+			archive.decompressAndLoad(null);
+
+			size = 0;
+			for (FSFile file : archive.listFiles())
+			{
+				if (file.getContents() != null)
+				{
+					size += file.getContents().length;
+				}
+			}
+		}
+
+		ArchiveFiles files = archive.loaded();
+
+		loadedArchives.put(key, archive);
+		archive.setLoadedSize(size);
+		loadedSize += size;
+
+		for (Iterator<Archive> it = loadedArchives.values().iterator(); loadedSize > maxLoadedSize && it.hasNext();)
+		{
+			Archive eldest = it.next();
+			if (eldest == archive)
+			{
+				break;
+			}
+
+			long eldestSize = eldest.getLoadedSize();
+			if (eldest.unload())
+			{
+				it.remove();
+				loadedSize -= eldestSize;
+			}
+		}
+
+		return files;
+	}
+
+	/**
+	 * Read the raw data of a lazily loaded archive from storage
+	 */
+	synchronized byte[] readArchive(Archive archive) throws IOException
+	{
+		return ((LazyStorage) storage).loadArchive(archive);
+	}
+
 	public void save() throws IOException
 	{
 		storage.save(this);
 	}
 
+	/**
+	 * Save only the given archives, eg. after an incremental download
+	 *
+	 * @param archives
+	 * @throws IOException
+	 */
+	public void save(Collection<Archive> archives) throws IOException
+	{
+		storage.saveArchives(this, archives);
+	}
+
+	/**
+	 * Get whether {@link #load()} defers reading archives. Storages which
+	 * can't read archives individually always load the store eagerly.
+	 */
+	public boolean isLazy()
+	{
+		return lazy && storage instanceof LazyStorage;
+	}
+
+	/**
+	 * Set whether {@link #load()} reads only the index data, deferring
+	 * reading and decompressing each archive until its files are first
+	 * accessed. Archives loaded this way may be unloaded again to stay
+	 * within the maximum loaded size, unless their files were modified.
+	 *
+	 * @param lazy
+	 */
+	public void setLazy(boolean lazy)
+	{
+		this.lazy = lazy;
+	}
+
+	public long getMaxLoadedSize()
+	{
+		return maxLoadedSize;
+	}
+
+	/**
+	 * Set the maximum number of bytes of archive contents kept in memory
+	 * by a lazy store
+	 *
+	 * @param maxLoadedSize
+	 */
+	public void setMaxLoadedSize(long maxLoadedSize)
+	{
+		this.maxLoadedSize = maxLoadedSize;
+	}
+
 	public List<Index> getIndexes()
 	{
 		return indexes;
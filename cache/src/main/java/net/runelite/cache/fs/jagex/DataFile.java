@@ -30,6 +30,8 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import javax.crypto.BadPaddingException;
@@ -52,23 +54,56 @@ public class DataFile implements Closeable
 	private static final int SECTOR_SIZE = 520;
 
 	private final RandomAccessFile dat;
+	private final boolean mapped;
+
+	private MappedByteBuffer mapping; // read only view of dat, dropped on write
 
 	public DataFile(File file) throws FileNotFoundException
+	{
+		this(file, false);
+	}
+
+	/**
+	 *
+	 * @param file data file
+	 * @param mapped whether to read sectors from a memory mapping of the
+	 * file instead of seeking and reading each sector
+	 * @throws FileNotFoundException
+	 */
+	public DataFile(File file, boolean mapped) throws FileNotFoundException
 	{
 		this.dat = new RandomAccessFile(file, "rw");
+		this.mapped = mapped;
 	}
 
 	@Override
-	public void close() throws IOException
+	public synchronized void close() throws IOException
 	{
+		mapping = null;
 		dat.close();
 	}
 
-	public void clear() throws IOException
+	public synchronized void clear() throws IOException
 	{
+		mapping = null;
 		dat.setLength(0L);
 	}
 
+	private synchronized MappedByteBuffer getMapping() throws IOException
+	{
+		if (mapping == null)
+		{
+			long length = dat.length();
+			if (length > Integer.MAX_VALUE)
+			{
+				return null;
+			}
+
+			mapping = dat.getChannel().map(FileChannel.MapMode.READ_ONLY, 0L, length);
+		}
+		return mapping;
+	}
+
 	/**
 	 *
 	 * @param indexId expected index of archive of contents being read
@@ -78,9 +113,19 @@ public class DataFile implements Closeable
 	 * @return
 	 * @throws IOException
 	 */
-	public byte[] read(int indexId, int archiveId, int sector, int size) throws IOException
+	public synchronized byte[] read(int indexId, int archiveId, int sector, int size) throws IOException
 	{
-		if (sector <= 0L || dat.length() / SECTOR_SIZE < (long) sector)
+		if (mapped)
+		{
+			MappedByteBuffer map = getMapping();
+			if (map != null)
+			{
+				return read(map, indexId, archiveId, sector, size);
+			}
+		}
+
+		long sectors = dat.length() / SECTOR_SIZE;
+		if (sector <= 0L || sectors < (long) sector)
 		{
 			logger.warn("bad read, dat length {}, requested sector {}", dat.length(), sector);
 			return null;
@@ -165,7 +210,7 @@ public class DataFile implements Closeable
 				return null;
 			}
 
-			if (nextSector < 0 || dat.length() / SECTOR_SIZE < (long) nextSector)
+			if (nextSector < 0 || sectors < (long) nextSector)
 			{
 				logger.warn("Invalid next sector");
 				return null;
@@ -181,7 +226,108 @@ public class DataFile implements Closeable
 		return buffer.array();
 	}
 
+	/**
+	 * Walk the sector chain directly out of the file mapping, copying
+	 * each sector's payload into the returned array
+	 */
+	private byte[] read(ByteBuffer map, int indexId, int archiveId, int sector, int size)
+	{
+		int sectors = map.limit() / SECTOR_SIZE;
+		if (sector <= 0 || sectors < sector)
+		{
+			logger.warn("bad read, dat length {}, requested sector {}", map.limit(), sector);
+			return null;
+		}
+
+		ByteBuffer buffer = map.duplicate();
+		byte[] data = new byte[size];
+
+		for (int part = 0, readBytesCount = 0, nextSector;
+			size > readBytesCount;
+			sector = nextSector)
+		{
+			if (sector == 0)
+			{
+				logger.warn("Unexpected end of file");
+				return null;
+			}
+
+			int position = SECTOR_SIZE * sector;
+			int dataBlockSize = size - readBytesCount;
+			int headerSize = archiveId > 0xFFFF ? 10 : 8;
+			if (dataBlockSize > SECTOR_SIZE - headerSize)
+			{
+				dataBlockSize = SECTOR_SIZE - headerSize;
+			}
+
+			if (position + headerSize + dataBlockSize > buffer.limit())
+			{
+				logger.warn("Short read when reading file data for {}/{}", indexId, archiveId);
+				return null;
+			}
+
+			int currentIndex;
+			int currentPart;
+			int currentArchive;
+			if (archiveId > 0xFFFF)
+			{
+				currentArchive = buffer.getInt(position);
+				currentPart = buffer.getShort(position + 4) & 0xFFFF;
+				nextSector = ((buffer.get(position + 6) & 0xFF) << 16)
+					| (buffer.getShort(position + 7) & 0xFFFF);
+				currentIndex = buffer.get(position + 9) & 0xFF;
+			}
+			else
+			{
+				currentArchive = buffer.getShort(position) & 0xFFFF;
+				currentPart = buffer.getShort(position + 2) & 0xFFFF;
+				nextSector = ((buffer.get(position + 4) & 0xFF) << 16)
+					| (buffer.getShort(position + 5) & 0xFFFF);
+				currentIndex = buffer.get(position + 7) & 0xFF;
+			}
+
+			if (archiveId != currentArchive || currentPart != part || indexId != currentIndex)
+			{
+				logger.warn("data mismatch {} != {}, {} != {}, {} != {}",
+					archiveId, currentArchive,
+					part, currentPart,
+					indexId, currentIndex);
+				return null;
+			}
+
+			if (nextSector < 0 || sectors < nextSector)
+			{
+				logger.warn("Invalid next sector");
+				return null;
+			}
+
+			buffer.position(position + headerSize);
+			buffer.get(data, readBytesCount, dataBlockSize);
+			readBytesCount += dataBlockSize;
+
+			++part;
+		}
+
+		return data;
+	}
+
 	public DataFileWriteResult write(int indexId, int archiveId, byte[] compressedData, int revision) throws IOException
+	{
+		DataFileWriteResult res = checksum(compressedData, revision);
+		res.sector = writeSectors(indexId, archiveId, compressedData);
+		return res;
+	}
+
+	/**
+	 * Append data to the end of the data file, without checksumming it
+	 *
+	 * @param indexId
+	 * @param archiveId
+	 * @param compressedData
+	 * @return the sector the data starts at
+	 * @throws IOException
+	 */
+	synchronized int writeSectors(int indexId, int archiveId, byte[] compressedData) throws IOException
 	{
 		int sector;
 		int startSector;
@@ -189,6 +335,8 @@ public class DataFile implements Closeable
 		byte[] writeBuffer = new byte[SECTOR_SIZE];
 		ByteBuffer data = ByteBuffer.wrap(compressedData);
 
+		mapping = null; // file is about to change
+
 		sector = (int) ((dat.length() + (long) (SECTOR_SIZE - 1)) / (long) SECTOR_SIZE);
 		if (sector == 0)
 		{
@@ -198,81 +346,191 @@ public class DataFile implements Closeable
 
 		for (int part = 0; data.hasRemaining(); ++part)
 		{
-			int nextSector = 0;
-			int dataToWrite;
-
+			int nextSector = (int) ((dat.length() + (long) (SECTOR_SIZE - 1)) / (long) SECTOR_SIZE);
 			if (nextSector == 0)
 			{
-				nextSector = (int) ((dat.length() + (long) (SECTOR_SIZE - 1)) / (long) SECTOR_SIZE);
-				if (nextSector == 0)
-				{
-					++nextSector;
-				}
+				++nextSector;
+			}
 
-				if (nextSector == sector)
-				{
-					++nextSector;
-				}
+			if (nextSector == sector)
+			{
+				++nextSector;
 			}
 
-			if (0xFFFF < archiveId)
+			int headerSize = archiveId > 0xFFFF ? 10 : 8;
+			int dataToWrite = data.remaining();
+			if (dataToWrite <= SECTOR_SIZE - headerSize)
 			{
-				if (data.remaining() <= 510)
-				{
-					nextSector = 0;
-				}
+				nextSector = 0;
+			}
+			else
+			{
+				dataToWrite = SECTOR_SIZE - headerSize;
+			}
 
-				writeBuffer[0] = (byte) (archiveId >> 24);
-				writeBuffer[1] = (byte) (archiveId >> 16);
-				writeBuffer[2] = (byte) (archiveId >> 8);
-				writeBuffer[3] = (byte) archiveId;
-				writeBuffer[4] = (byte) (part >> 8);
-				writeBuffer[5] = (byte) part;
-				writeBuffer[6] = (byte) (nextSector >> 16);
-				writeBuffer[7] = (byte) (nextSector >> 8);
-				writeBuffer[8] = (byte) nextSector;
-				writeBuffer[9] = (byte) indexId;
-				dat.seek(SECTOR_SIZE * sector);
-				dat.write(writeBuffer, 0, 10);
-
-				dataToWrite = data.remaining();
-				if (dataToWrite > 510)
-				{
-					dataToWrite = 510;
-				}
+			writeHeader(writeBuffer, indexId, archiveId, part, nextSector);
+			data.get(writeBuffer, headerSize, dataToWrite);
+
+			dat.seek((long) SECTOR_SIZE * sector);
+			dat.write(writeBuffer, 0, headerSize + dataToWrite);
+			sector = nextSector;
+		}
+
+		return startSector;
+	}
+
+	/**
+	 * Write data over the sector chain of the data it replaces, if the
+	 * chain is long enough to hold it. Sectors which already hold the
+	 * same bytes are not written.
+	 *
+	 * @param indexId
+	 * @param archiveId
+	 * @param compressedData
+	 * @param sector first sector of the existing chain
+	 * @param length length of the data in the existing chain
+	 * @return the sector the data starts at, or -1 if the data does not
+	 * fit in the existing chain, which may then be partially overwritten
+	 * @throws IOException
+	 */
+	synchronized int overwriteSectors(int indexId, int archiveId, byte[] compressedData, int sector, int length) throws IOException
+	{
+		int headerSize = archiveId > 0xFFFF ? 10 : 8;
+		int blockSize = SECTOR_SIZE - headerSize;
+
+		if ((compressedData.length + blockSize - 1) / blockSize > (length + blockSize - 1) / blockSize)
+		{
+			return -1;
+		}
+
+		byte[] readBuffer = new byte[SECTOR_SIZE];
+		byte[] writeBuffer = new byte[SECTOR_SIZE];
+		long sectors = dat.length() / SECTOR_SIZE;
+		int startSector = sector;
+
+		for (int part = 0, written = 0; written < compressedData.length; ++part)
+		{
+			if (sector <= 0 || sectors < (long) sector)
+			{
+				return -1;
+			}
+
+			dat.seek((long) SECTOR_SIZE * sector);
+			int read = dat.read(readBuffer, 0, SECTOR_SIZE);
+			if (read < headerSize)
+			{
+				return -1;
+			}
+
+			int currentArchive;
+			int currentPart;
+			int oldNextSector;
+			int currentIndex;
+			if (archiveId > 0xFFFF)
+			{
+				currentArchive = ((readBuffer[0] & 0xFF) << 24)
+					| ((readBuffer[1] & 0xFF) << 16)
+					| ((readBuffer[2] & 0xFF) << 8)
+					| (readBuffer[3] & 0xFF);
+				currentPart = ((readBuffer[4] & 0xFF) << 8) | (readBuffer[5] & 0xFF);
+				oldNextSector = ((readBuffer[6] & 0xFF) << 16)
+					| ((readBuffer[7] & 0xFF) << 8)
+					| (readBuffer[8] & 0xFF);
+				currentIndex = readBuffer[9] & 0xFF;
 			}
 			else
 			{
-				if (data.remaining() <= 512)
-				{
-					nextSector = 0;
-				}
+				currentArchive = ((readBuffer[0] & 0xFF) << 8) | (readBuffer[1] & 0xFF);
+				currentPart = ((readBuffer[2] & 0xFF) << 8) | (readBuffer[3] & 0xFF);
+				oldNextSector = ((readBuffer[4] & 0xFF) << 16)
+					| ((readBuffer[5] & 0xFF) << 8)
+					| (readBuffer[6] & 0xFF);
+				currentIndex = readBuffer[7] & 0xFF;
+			}
 
-				writeBuffer[0] = (byte) (archiveId >> 8);
-				writeBuffer[1] = (byte) archiveId;
-				writeBuffer[2] = (byte) (part >> 8);
-				writeBuffer[3] = (byte) part;
-				writeBuffer[4] = (byte) (nextSector >> 16);
-				writeBuffer[5] = (byte) (nextSector >> 8);
-				writeBuffer[6] = (byte) nextSector;
-				writeBuffer[7] = (byte) indexId;
-				dat.seek(SECTOR_SIZE * sector);
-				dat.write(writeBuffer, 0, 8);
-
-				dataToWrite = data.remaining();
-				if (dataToWrite > 512)
-				{
-					dataToWrite = 512;
-				}
+			if (archiveId != currentArchive || currentPart != part || indexId != currentIndex)
+			{
+				logger.debug("sector {} is not part {} of {}/{}, can't overwrite", sector, part, indexId, archiveId);
+				return -1;
 			}
 
-			data.get(writeBuffer, 0, dataToWrite);
-			dat.write(writeBuffer, 0, dataToWrite);
-			sector = nextSector;
+			int dataToWrite = Math.min(compressedData.length - written, blockSize);
+			int nextSector = written + dataToWrite < compressedData.length ? oldNextSector : 0;
+			if (nextSector == 0 && written + dataToWrite < compressedData.length)
+			{
+				return -1;
+			}
+
+			writeHeader(writeBuffer, indexId, archiveId, part, nextSector);
+			System.arraycopy(compressedData, written, writeBuffer, headerSize, dataToWrite);
+
+			int size = headerSize + dataToWrite;
+			if (read < size || !equals(readBuffer, writeBuffer, size))
+			{
+				mapping = null; // file is about to change
+
+				dat.seek((long) SECTOR_SIZE * sector);
+				dat.write(writeBuffer, 0, size);
+			}
+
+			written += dataToWrite;
+			sector = oldNextSector;
 		}
 
+		return startSector;
+	}
+
+	private static void writeHeader(byte[] buffer, int indexId, int archiveId, int part, int nextSector)
+	{
+		if (archiveId > 0xFFFF)
+		{
+			buffer[0] = (byte) (archiveId >> 24);
+			buffer[1] = (byte) (archiveId >> 16);
+			buffer[2] = (byte) (archiveId >> 8);
+			buffer[3] = (byte) archiveId;
+			buffer[4] = (byte) (part >> 8);
+			buffer[5] = (byte) part;
+			buffer[6] = (byte) (nextSector >> 16);
+			buffer[7] = (byte) (nextSector >> 8);
+			buffer[8] = (byte) nextSector;
+			buffer[9] = (byte) indexId;
+		}
+		else
+		{
+			buffer[0] = (byte) (archiveId >> 8);
+			buffer[1] = (byte) archiveId;
+			buffer[2] = (byte) (part >> 8);
+			buffer[3] = (byte) part;
+			buffer[4] = (byte) (nextSector >> 16);
+			buffer[5] = (byte) (nextSector >> 8);
+			buffer[6] = (byte) nextSector;
+			buffer[7] = (byte) indexId;
+		}
+	}
+
+	private static boolean equals(byte[] a, byte[] b, int length)
+	{
+		for (int i = 0; i < length; ++i)
+		{
+			if (a[i] != b[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Compute the crc and whirlpool of compressed data to be written
+	 *
+	 * @param compressedData
+	 * @param revision revision of the data, or -1 if it has no revision
+	 * appended
+	 * @return
+	 */
+	public static DataFileWriteResult checksum(byte[] compressedData, int revision)
+	{
 		DataFileWriteResult res = new DataFileWriteResult();
-		res.sector = startSector;
 		res.compressedLength = compressedData.length;
 
 		int length = revision != -1 ? compressedData.length - 2 : compressedData.length;
@@ -321,40 +579,36 @@ public class DataFile implements Closeable
 				break;
 			}
 			case CompressionType.BZ2:
+			case CompressionType.GZ:
 			{
-				byte[] encryptedData = new byte[compressedLength + 4];
-				stream.readBytes(encryptedData);
-
-				crc32.update(encryptedData, 0, encryptedData.length);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
-
-				if (stream.remaining() >= 2)
+				int length = compressedLength + 4; // decompressed length + compressed data
+				if (stream.remaining() < length)
 				{
-					revision = stream.readUnsignedShort();
-					assert revision != -1;
+					throw new RuntimeException("Invalid data");
 				}
 
-				stream = new InputStream(decryptedData);
-
-				int decompressedLength = stream.readInt();
-				data = BZip2.decompress(stream.getRemaining(), compressedLength);
+				crc32.update(b, 5, length);
 
-				if (data == null)
+				// without keys the data can be decompressed in place
+				byte[] decryptedData = b;
+				int offset = 5;
+				if (keys != null)
 				{
-					return null;
-				}
+					byte[] encryptedData = new byte[length];
+					stream.readBytes(encryptedData);
 
-				assert data.length == decompressedLength;
+					decryptedData = decrypt(encryptedData, length, keys);
+					offset = 0;
 
-				break;
-			}
-			case CompressionType.GZ:
-			{
-				byte[] encryptedData = new byte[compressedLength + 4];
-				stream.readBytes(encryptedData);
-
-				crc32.update(encryptedData, 0, encryptedData.length);
-				byte[] decryptedData = decrypt(encryptedData, encryptedData.length, keys);
+					if (decryptedData == null)
+					{
+						return null;
+					}
+				}
+				else
+				{
+					stream.setOffset(5 + length);
+				}
 
 				if (stream.remaining() >= 2)
 				{
@@ -362,18 +616,19 @@ public class DataFile implements Closeable
 					assert revision != -1;
 				}
 
-				stream = new InputStream(decryptedData);
-
-				int decompressedLength = stream.readInt();
-				data = GZip.decompress(stream.getRemaining(), compressedLength);
-
-				if (data == null)
+				int decompressedLength = ((decryptedData[offset] & 0xFF) << 24)
+					| ((decryptedData[offset + 1] & 0xFF) << 16)
+					| ((decryptedData[offset + 2] & 0xFF) << 8)
+					| (decryptedData[offset + 3] & 0xFF);
+				if (decompressedLength < 0)
 				{
-					return null;
+					// most likely decrypted with the wrong keys
+					throw new IOException("Invalid decompressed length " + decompressedLength);
 				}
 
-				assert data.length == decompressedLength;
-
+				data = compression == CompressionType.BZ2
+					? BZip2.decompress(decryptedData, offset + 4, compressedLength, decompressedLength)
+					: GZip.decompress(decryptedData, offset + 4, compressedLength, decompressedLength);
 				break;
 			}
 			default:
@@ -27,12 +27,23 @@ package net.runelite.cache.fs.jagex;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.FSFile;
 import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Storage;
+import net.runelite.cache.fs.LazyStorage;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.index.ArchiveData;
 import net.runelite.cache.index.FileData;
@@ -40,25 +51,67 @@ import net.runelite.cache.index.IndexData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class DiskStorage implements Storage
+public class DiskStorage implements LazyStorage
 {
 	private static final Logger logger = LoggerFactory.getLogger(DiskStorage.class);
 
+	private static final String MAIN_FILE_CACHE = "main_file_cache.";
 	private static final String MAIN_FILE_CACHE_DAT = "main_file_cache.dat2";
 	private static final String MAIN_FILE_CACHE_IDX = "main_file_cache.idx";
+	// suffix of the files written by compact, and the marker it creates once they are complete
+	private static final String COMPACTED_SUFFIX = ".tmp";
+	private static final String COMPACT_MARKER = "main_file_cache.compact";
 
 	private final File folder;
+	private final boolean mapped;
 
-	private final DataFile data;
-	private final IndexFile index255;
+	private DataFile data;
+	private IndexFile index255;
 	private final List<IndexFile> indexFiles = new ArrayList<>();
 
+	private boolean inPlace;
+
 	public DiskStorage(File folder) throws IOException
+	{
+		this(folder, false);
+	}
+
+	/**
+	 *
+	 * @param folder cache folder
+	 * @param mapped whether to read the data and index files through
+	 * memory mappings
+	 * @throws IOException
+	 */
+	public DiskStorage(File folder, boolean mapped) throws IOException
 	{
 		this.folder = folder;
+		this.mapped = mapped;
+
+		recoverCompaction(folder);
+
+		this.data = new DataFile(new File(folder, MAIN_FILE_CACHE_DAT), mapped);
+		this.index255 = new IndexFile(255, new File(folder, MAIN_FILE_CACHE_IDX + "255"), mapped);
+	}
+
+	public boolean isInPlace()
+	{
+		return inPlace;
+	}
 
-		this.data = new DataFile(new File(folder, MAIN_FILE_CACHE_DAT));
-		this.index255 = new IndexFile(255, new File(folder, MAIN_FILE_CACHE_IDX + "255"));
+	/**
+	 * Set whether saves overwrite archives in place. When set, the data
+	 * file is not truncated on save, archives are written over their
+	 * existing sectors when they fit and appended when they don't, and
+	 * sectors which are unchanged are not written at all. Sectors which
+	 * are no longer used are left in the data file until it is compacted.
+	 *
+	 * @param inPlace
+	 * @see #compact()
+	 */
+	public void setInPlace(boolean inPlace)
+	{
+		this.inPlace = inPlace;
 	}
 
 	@Override
@@ -94,7 +147,7 @@ public class DiskStorage implements Storage
 			}
 		}
 
-		IndexFile indexFile = new IndexFile(i, new File(folder, MAIN_FILE_CACHE_IDX + i));
+		IndexFile indexFile = new IndexFile(i, new File(folder, MAIN_FILE_CACHE_IDX + i), mapped);
 		indexFiles.add(indexFile);
 		return indexFile;
 	}
@@ -102,13 +155,21 @@ public class DiskStorage implements Storage
 	@Override
 	public void load(Store store) throws IOException
 	{
+		// archives are read sequentially here and decompressed in parallel as they are read
+		List<Future<?>> loads = new ArrayList<>();
+
 		for (Index index : store.getIndexes())
 		{
-			loadIndex(index);
+			loadIndex(store, index, loads);
+		}
+
+		for (Future<?> load : loads)
+		{
+			await(load);
 		}
 	}
 
-	private void loadIndex(Index index) throws IOException
+	private void loadIndex(Store store, Index index, List<Future<?>> loads) throws IOException
 	{
 		logger.trace("Loading index {}", index.getId());
 
@@ -148,13 +209,50 @@ public class DiskStorage implements Storage
 		index.setCompression(res.compression);
 		assert res.revision == -1;
 
+		if (store.isLazy())
+		{
+			// archives are read and decompressed on first access
+			IndexFile indexFile = getIndex(index.getId());
+			for (Archive archive : new ArrayList<>(index.getArchives()))
+			{
+				if (indexFile.read(archive.getArchiveId()) == null)
+				{
+					logger.debug("can't read archive {} from index {}", archive.getArchiveId(), index.getId());
+					index.removeArchive(archive);
+					continue;
+				}
+
+				archive.setLazy(true);
+			}
+			return;
+		}
+
 		for (Archive archive : new ArrayList<>(index.getArchives()))
 		{
-			loadArchive(archive);
+			byte[] archiveData = loadArchive(archive);
+			if (archiveData == null)
+			{
+				index.removeArchive(archive); // is this correct?
+				continue;
+			}
+
+			archive.setData(archiveData);
+
+			if (index.getXteaManager() != null)
+			{
+				continue; // can't decrypt this yet
+			}
+
+			loads.add(ForkJoinPool.commonPool().submit(() ->
+			{
+				archive.decompressAndLoad(null);
+				return null;
+			}));
 		}
 	}
 
-	private void loadArchive(Archive archive) throws IOException
+	@Override
+	public byte[] loadArchive(Archive archive) throws IOException
 	{
 		Index index = archive.getIndex();
 		IndexFile indexFile = getIndex(index.getId());
@@ -165,8 +263,7 @@ public class DiskStorage implements Storage
 		if (entry == null)
 		{
 			logger.debug("can't read archive " + archive.getArchiveId() + " from index " + index.getId());
-			index.getArchives().remove(archive); // is this correct?
-			return;
+			return null;
 		}
 
 		assert entry.getId() == archive.getArchiveId();
@@ -174,27 +271,34 @@ public class DiskStorage implements Storage
 		logger.trace("Loading archive {} for index {} from sector {} length {}",
 			archive.getArchiveId(), index.getId(), entry.getSector(), entry.getLength());
 
-		byte[] archiveData = data.read(index.getId(), entry.getId(), entry.getSector(), entry.getLength());
-		archive.setData(archiveData);
-
-		if (index.getXteaManager() != null)
-		{
-			return; // can't decrypt this yet
-		}
-
-		archive.decompressAndLoad(null);
+		return data.read(index.getId(), entry.getId(), entry.getSector(), entry.getLength());
 	}
 
 	@Override
 	public void save(Store store) throws IOException
 	{
-		logger.debug("Clearing data and indexes in preparation for store save");
+		if (!inPlace)
+		{
+			// archives which were never loaded must be read before the data file is cleared
+			for (Index index : store.getIndexes())
+			{
+				for (Archive archive : new ArrayList<>(index.getArchives()))
+				{
+					if (archive.isLazy() && archive.getData() == null)
+					{
+						index.removeArchive(archive);
+					}
+				}
+			}
 
-		data.clear();
+			logger.debug("Clearing data and indexes in preparation for store save");
 
-		for (IndexFile indexFile : indexFiles)
-		{
-			indexFile.clear();
+			data.clear();
+
+			for (IndexFile indexFile : indexFiles)
+			{
+				indexFile.clear();
+			}
 		}
 
 		logger.debug("Saving store");
@@ -202,22 +306,103 @@ public class DiskStorage implements Storage
 		for (Index i : store.getIndexes())
 		{
 			saveIndex(i);
+
+			if (inPlace)
+			{
+				removeDeletedArchives(i);
+			}
+		}
+	}
+
+	/**
+	 * Clear the index entries of archives which are no longer in the index
+	 *
+	 * @return whether any were cleared
+	 */
+	private boolean removeDeletedArchives(Index index) throws IOException
+	{
+		boolean removed = false;
+		IndexFile indexFile = getIndex(index.getId());
+		for (int id = 0; id < indexFile.getIndexCount(); ++id)
+		{
+			if (index.getArchive(id) == null && indexFile.read(id) != null)
+			{
+				logger.trace("Removing archive {} from index {}", id, index.getId());
+				indexFile.write(new IndexEntry(indexFile, id, 0, 0));
+				removed = true;
+			}
 		}
+		return removed;
 	}
 
 	private void saveIndex(Index index) throws IOException
 	{
-		// This updates archive CRCs for writeIndexData
+		// archives are compressed and checksummed in parallel, and then written in order
+		List<Future<CompressedArchive>> archives = new ArrayList<>();
 		for (Archive archive : index.getArchives())
 		{
-			saveArchive(archive);
+			if (inPlace && archive.isLazy())
+			{
+				// never loaded, so it is unchanged on disk
+				continue;
+			}
+
+			archives.add(ForkJoinPool.commonPool().submit(() -> compressArchive(archive)));
+		}
+
+		// This updates archive CRCs for writeIndexData
+		for (Future<CompressedArchive> archive : archives)
+		{
+			saveArchive(await(archive));
+		}
+
+		saveIndexData(index);
+	}
+
+	@Override
+	public void saveArchives(Store store, Collection<Archive> archives) throws IOException
+	{
+		// The archives are appended to the data file and their index entries
+		// rewritten to point at the new data, leaving everything else in place.
+		// The sectors holding the old data are no longer referenced.
+		Map<Integer, Index> indexes = new TreeMap<>();
+		List<Future<CompressedArchive>> compressed = new ArrayList<>();
+		for (Archive archive : archives)
+		{
+			indexes.put(archive.getIndex().getId(), archive.getIndex());
+			compressed.add(ForkJoinPool.commonPool().submit(() -> compressArchive(archive)));
+		}
+
+		for (Future<CompressedArchive> archive : compressed)
+		{
+			saveArchive(await(archive));
 		}
 
+		// indexes which only had archives removed change too
+		for (Index index : store.getIndexes())
+		{
+			if (removeDeletedArchives(index))
+			{
+				indexes.put(index.getId(), index);
+			}
+		}
+
+		for (Index index : indexes.values())
+		{
+			saveIndexData(index);
+		}
+
+		logger.debug("Saved {} archives in {} indexes", archives.size(), indexes.size());
+	}
+
+	private void saveIndexData(Index index) throws IOException
+	{
 		IndexData indexData = index.toIndexData();
 		byte[] data = indexData.writeIndexData();
 
 		byte[] compressedData = DataFile.compress(data, index.getCompression(), -1, null); // index data revision is always -1
-		DataFileWriteResult res = this.data.write(index255.getIndexFileId(), index.getId(), compressedData, index.getRevision());
+		DataFileWriteResult res = DataFile.checksum(compressedData, index.getRevision());
+		res.sector = writeSectors(index255, index.getId(), compressedData);
 
 		index255.write(new IndexEntry(index255, index.getId(), res.sector, res.compressedLength));
 
@@ -225,12 +410,8 @@ public class DiskStorage implements Storage
 		index.setWhirlpool(res.whirlpool);
 	}
 
-	private void saveArchive(Archive a) throws IOException
+	private static CompressedArchive compressArchive(Archive a) throws IOException
 	{
-		Index index = a.getIndex();
-		IndexFile indexFile = getIndex(index.getId());
-		assert indexFile.getIndexFileId() == index.getId();
-
 		int rev; // used for determining what part of compressedData to crc
 		byte[] compressedData;
 
@@ -246,7 +427,18 @@ public class DiskStorage implements Storage
 			compressedData = DataFile.compress(fileData, a.getCompression(), a.getRevision(), null);
 		}
 
-		DataFileWriteResult res = data.write(index.getId(), a.getArchiveId(), compressedData, rev);
+		return new CompressedArchive(a, compressedData, DataFile.checksum(compressedData, rev));
+	}
+
+	private void saveArchive(CompressedArchive compressed) throws IOException
+	{
+		Archive a = compressed.archive;
+		Index index = a.getIndex();
+		IndexFile indexFile = getIndex(index.getId());
+		assert indexFile.getIndexFileId() == index.getId();
+
+		DataFileWriteResult res = compressed.result;
+		res.sector = writeSectors(indexFile, a.getArchiveId(), compressed.data);
 		indexFile.write(new IndexEntry(indexFile, a.getArchiveId(), res.sector, res.compressedLength));
 
 		logger.trace("Saved archive {}/{} at sector {}, compressed length {}", index.getId(), a.getArchiveId(), res.sector, res.compressedLength);
@@ -254,4 +446,219 @@ public class DiskStorage implements Storage
 		a.setCrc(res.crc);
 		a.setWhirlpool(res.whirlpool);
 	}
+
+	private int writeSectors(IndexFile indexFile, int archiveId, byte[] compressedData) throws IOException
+	{
+		int indexId = indexFile.getIndexFileId();
+
+		if (inPlace)
+		{
+			IndexEntry entry = indexFile.read(archiveId);
+			if (entry != null)
+			{
+				int sector = data.overwriteSectors(indexId, archiveId, compressedData, entry.getSector(), entry.getLength());
+				if (sector != -1)
+				{
+					return sector;
+				}
+			}
+		}
+
+		return data.writeSectors(indexId, archiveId, compressedData);
+	}
+
+	/**
+	 * Rewrite the data file with only the archives referenced by the index
+	 * files, reclaiming sectors left unused by in place and partial saves.
+	 * Archives are written contiguously in index and archive order. The
+	 * storage must not be used by anything else while this runs.
+	 * <p>
+	 * The new data and index files are written next to the old ones and
+	 * only replace them once all of them are complete. A marker file is
+	 * created before they are moved into place, so a compaction which
+	 * is interrupted is either finished or discarded the next time the
+	 * storage is opened, and the data and index files always match.
+	 *
+	 * @throws IOException
+	 */
+	public void compact() throws IOException
+	{
+		File file = new File(folder, MAIN_FILE_CACHE_DAT);
+		long oldLength = file.length();
+
+		// left by a compaction which failed earlier
+		for (File f : compactedFiles(folder))
+		{
+			Files.delete(f.toPath());
+		}
+
+		List<IndexFile> sources = new ArrayList<>();
+		sources.add(index255);
+		for (int i = 0; i < index255.getIndexCount(); ++i)
+		{
+			sources.add(getIndex(i));
+		}
+
+		List<File> compactedFiles = new ArrayList<>();
+		File compactedFile = compactedFile(file);
+		compactedFiles.add(compactedFile);
+
+		try (DataFile compacted = new DataFile(compactedFile))
+		{
+			for (IndexFile indexFile : sources)
+			{
+				File compactedIndexFile = compactedFile(indexFile.getFile());
+				compactedFiles.add(compactedIndexFile);
+
+				try (IndexFile compactedIndex = new IndexFile(indexFile.getIndexFileId(), compactedIndexFile))
+				{
+					compact(indexFile, compacted, compactedIndex);
+				}
+			}
+		}
+
+		for (File f : compactedFiles)
+		{
+			sync(f);
+		}
+
+		// from here on the compacted files replace the old ones, even if
+		// this is interrupted
+		Files.createFile(new File(folder, COMPACT_MARKER).toPath());
+
+		data.close();
+		index255.close();
+		for (IndexFile indexFile : indexFiles)
+		{
+			indexFile.close();
+		}
+		indexFiles.clear();
+
+		finishCompaction(folder);
+
+		data = new DataFile(file, mapped);
+		index255 = new IndexFile(255, new File(folder, MAIN_FILE_CACHE_IDX + "255"), mapped);
+
+		logger.info("Compacted data file from {} to {} bytes", oldLength, file.length());
+	}
+
+	private void compact(IndexFile indexFile, DataFile to, IndexFile toIndex) throws IOException
+	{
+		int indexId = indexFile.getIndexFileId();
+
+		for (int id = 0; id < indexFile.getIndexCount(); ++id)
+		{
+			IndexEntry entry = indexFile.read(id);
+			if (entry == null)
+			{
+				toIndex.write(new IndexEntry(toIndex, id, 0, 0));
+				continue;
+			}
+
+			byte[] archiveData = data.read(indexId, id, entry.getSector(), entry.getLength());
+			if (archiveData == null)
+			{
+				logger.warn("Unable to read archive {} from index {}, removing it", id, indexId);
+				toIndex.write(new IndexEntry(toIndex, id, 0, 0));
+				continue;
+			}
+
+			int sector = to.writeSectors(indexId, id, archiveData);
+			toIndex.write(new IndexEntry(toIndex, id, sector, archiveData.length));
+		}
+	}
+
+	/**
+	 * Finish or discard a compaction which was interrupted, before the data
+	 * and index files are opened
+	 */
+	private static void recoverCompaction(File folder) throws IOException
+	{
+		if (new File(folder, COMPACT_MARKER).exists())
+		{
+			logger.info("Finishing interrupted compaction of {}", folder);
+			finishCompaction(folder);
+			return;
+		}
+
+		for (File file : compactedFiles(folder))
+		{
+			logger.info("Removing {} left by an interrupted compaction", file);
+			Files.delete(file.toPath());
+		}
+	}
+
+	/**
+	 * Move the compacted files over the old ones, then remove the marker
+	 */
+	private static void finishCompaction(File folder) throws IOException
+	{
+		for (File compacted : compactedFiles(folder))
+		{
+			String name = compacted.getName();
+			File file = new File(folder, name.substring(0, name.length() - COMPACTED_SUFFIX.length()));
+			Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		Files.delete(new File(folder, COMPACT_MARKER).toPath());
+	}
+
+	private static File compactedFile(File file)
+	{
+		return new File(file.getParentFile(), file.getName() + COMPACTED_SUFFIX);
+	}
+
+	private static File[] compactedFiles(File folder)
+	{
+		File[] files = folder.listFiles((dir, name) -> name.startsWith(MAIN_FILE_CACHE) && name.endsWith(COMPACTED_SUFFIX));
+		return files != null ? files : new File[0];
+	}
+
+	private static void sync(File file) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE))
+		{
+			channel.force(true);
+		}
+	}
+
+	private static <T> T await(Future<T> future) throws IOException
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		catch (ExecutionException ex)
+		{
+			Throwable cause = ex.getCause();
+			if (cause instanceof IOException)
+			{
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	private static class CompressedArchive
+	{
+		private final Archive archive;
+		private final byte[] data;
+		private final DataFileWriteResult result;
+
+		CompressedArchive(Archive archive, byte[] data, DataFileWriteResult result)
+		{
+			this.archive = archive;
+			this.data = data;
+			this.result = result;
+		}
+	}
 }
@@ -29,6 +29,8 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Objects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,22 +45,33 @@ public class IndexFile implements Closeable
 	private final File file;
 	private final RandomAccessFile idx;
 	private final byte[] buffer = new byte[INDEX_ENTRY_LEN];
+	private final boolean mapped;
+
+	private MappedByteBuffer mapping; // read only view of idx, dropped on write
 
 	public IndexFile(int indexFileId, File file) throws FileNotFoundException
+	{
+		this(indexFileId, file, false);
+	}
+
+	public IndexFile(int indexFileId, File file, boolean mapped) throws FileNotFoundException
 	{
 		this.indexFileId = indexFileId;
 		this.file = file;
 		this.idx = new RandomAccessFile(file, "rw");
+		this.mapped = mapped;
 	}
 
 	@Override
-	public void close() throws IOException
+	public synchronized void close() throws IOException
 	{
+		mapping = null;
 		idx.close();
 	}
 
-	public void clear() throws IOException
+	public synchronized void clear() throws IOException
 	{
+		mapping = null;
 		idx.setLength(0L);
 	}
 
@@ -89,6 +102,11 @@ public class IndexFile implements Closeable
 		return true;
 	}
 
+	public File getFile()
+	{
+		return file;
+	}
+
 	public int getIndexFileId()
 	{
 		return indexFileId;
@@ -96,6 +114,7 @@ public class IndexFile implements Closeable
 
 	public synchronized void write(IndexEntry entry) throws IOException
 	{
+		mapping = null;
 		idx.seek(entry.getId() * INDEX_ENTRY_LEN);
 
 		buffer[0] = (byte) (entry.getLength() >> 16);
@@ -111,12 +130,30 @@ public class IndexFile implements Closeable
 
 	public synchronized IndexEntry read(int id) throws IOException
 	{
-		idx.seek(id * INDEX_ENTRY_LEN);
-		int i = idx.read(buffer);
-		if (i != INDEX_ENTRY_LEN)
+		MappedByteBuffer map = mapped ? getMapping() : null;
+		if (map != null)
 		{
-			logger.debug("short read for id {} on index {}: {}", id, indexFileId, i);
-			return null;
+			int position = id * INDEX_ENTRY_LEN;
+			if (position + INDEX_ENTRY_LEN > map.limit())
+			{
+				logger.debug("short read for id {} on index {}", id, indexFileId);
+				return null;
+			}
+
+			for (int i = 0; i < INDEX_ENTRY_LEN; ++i)
+			{
+				buffer[i] = map.get(position + i);
+			}
+		}
+		else
+		{
+			idx.seek(id * INDEX_ENTRY_LEN);
+			int i = idx.read(buffer);
+			if (i != INDEX_ENTRY_LEN)
+			{
+				logger.debug("short read for id {} on index {}: {}", id, indexFileId, i);
+				return null;
+			}
 		}
 
 		int length = ((buffer[0] & 0xFF) << 16) | ((buffer[1] & 0xFF) << 8) | (buffer[2] & 0xFF);
@@ -131,6 +168,21 @@ public class IndexFile implements Closeable
 		return new IndexEntry(this, id, sector, length);
 	}
 
+	private MappedByteBuffer getMapping() throws IOException
+	{
+		if (mapping == null)
+		{
+			long length = idx.length();
+			if (length > Integer.MAX_VALUE)
+			{
+				return null;
+			}
+
+			mapping = idx.getChannel().map(FileChannel.MapMode.READ_ONLY, 0L, length);
+		}
+		return mapping;
+	}
+
 	public synchronized int getIndexCount() throws IOException
 	{
 		return (int) (idx.length() / INDEX_ENTRY_LEN);
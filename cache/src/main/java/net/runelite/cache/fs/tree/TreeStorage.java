@@ -111,7 +111,7 @@ public class TreeStorage implements Storage
 		int revision = Integer.parseInt(str);
 		index.setRevision(revision);
 
-		Collections.sort(index.getArchives(), (ar1, ar2) -> Integer.compare(ar1.getArchiveId(), ar2.getArchiveId()));
+		index.sortArchives();
 	}
 
 	public void loadTreeData(Archive archive, File parent, File from) throws IOException
@@ -25,7 +25,6 @@
 package net.runelite.cache.protocol.encoders;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
 import net.runelite.cache.protocol.packets.ArchiveResponsePacket;
@@ -40,35 +39,52 @@ public class ArchiveResponseEncoder extends MessageToByteEncoder<ArchiveResponse
 
 	@Override
 	protected void encode(ChannelHandlerContext ctx, ArchiveResponsePacket archiveResponse, ByteBuf out) throws Exception
+	{
+		int pos = out.readableBytes();
+
+		encode(archiveResponse.getIndex(), archiveResponse.getArchive(), archiveResponse.getData(), out);
+
+		int size = out.readableBytes() - pos;
+		logger.debug("Wrote index {} archive {} (size {}) in {} bytes",
+			archiveResponse.getIndex(), archiveResponse.getArchive(),
+			archiveResponse.getData().length, size);
+	}
+
+	/**
+	 * Get the size of an encoded archive response
+	 *
+	 * @param length length of the compressed data
+	 * @return
+	 */
+	public static int getEncodedSize(int length)
+	{
+		// 3 byte header, and then a 1 byte chunk marker before each
+		// chunk after the first
+		int extra = Math.max(0, length - (CHUNK_SIZE - 3));
+		return 3 + length + (extra + CHUNK_SIZE - 2) / (CHUNK_SIZE - 1);
+	}
+
+	public static void encode(int index, int archive, byte[] data, ByteBuf out)
 	{
 		// archive file header
 		// 1 byte index
 		// 2 byte archive
-		out.writeByte(archiveResponse.getIndex());
-		out.writeShort(archiveResponse.getArchive());
-
-		int pos = out.readableBytes();
+		out.writeByte(index);
+		out.writeShort(archive);
 
 		// next is the compressed data which starts with compression
 		// type and length
-		ByteBuf file = Unpooled.wrappedBuffer(archiveResponse.getData());
 		// - 3 for the header
-		int chunkSize = Math.min(file.readableBytes(), CHUNK_SIZE - 3);
-
-		out.writeBytes(file.readBytes(chunkSize));
+		int chunkSize = Math.min(data.length, CHUNK_SIZE - 3);
+		out.writeBytes(data, 0, chunkSize);
 
-		while (file.isReadable())
+		for (int offset = chunkSize; offset < data.length; offset += chunkSize)
 		{
 			out.writeByte(0xff);
 
-			chunkSize = Math.min(file.readableBytes(), CHUNK_SIZE - 1);
-			out.writeBytes(file.readBytes(chunkSize));
+			chunkSize = Math.min(data.length - offset, CHUNK_SIZE - 1);
+			out.writeBytes(data, offset, chunkSize);
 		}
-
-		int size = out.readableBytes() - pos;
-		logger.debug("Wrote index {} archive {} (size {}) in {} bytes",
-			archiveResponse.getIndex(), archiveResponse.getArchive(),
-			archiveResponse.getData().length, size);
 	}
 
 }
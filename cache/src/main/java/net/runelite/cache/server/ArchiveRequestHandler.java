@@ -24,127 +24,191 @@
  */
 package net.runelite.cache.server;
 
-import com.google.common.primitives.Ints;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import java.io.IOException;
-import java.util.Arrays;
-import net.runelite.cache.fs.Archive;
-import net.runelite.cache.fs.Index;
-import net.runelite.cache.fs.Store;
-import net.runelite.cache.fs.jagex.CompressionType;
-import net.runelite.cache.fs.jagex.DataFile;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import net.runelite.cache.protocol.packets.ArchiveRequestPacket;
-import net.runelite.cache.protocol.packets.ArchiveResponsePacket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Serves archive requests for a single connection. Requests are queued as
+ * they are read and served once the read completes, urgent requests first,
+ * so the responses from one read are written with a single flush. Archives
+ * which are not yet packed are packed on the server executor, so the event
+ * loop is never blocked on compression.
+ */
 public class ArchiveRequestHandler extends SimpleChannelInboundHandler<ArchiveRequestPacket>
 {
 	private static final Logger logger = LoggerFactory.getLogger(ArchiveRequestHandler.class);
 
-	private final Store store;
+	private final ArchiveResponseCache responseCache;
+	private final Executor executor;
+
+	// these are only accessed from the event loop
+	private final Queue<ArchiveRequestPacket> urgent = new ArrayDeque<>();
+	private final Queue<ArchiveRequestPacket> prefetch = new ArrayDeque<>();
+	private boolean flushScheduled;
 
-	public ArchiveRequestHandler(Store store)
+	public ArchiveRequestHandler(ArchiveResponseCache responseCache, Executor executor)
 	{
-		this.store = store;
+		this.responseCache = responseCache;
+		this.executor = executor;
 	}
 
 	@Override
 	protected void channelRead0(ChannelHandlerContext ctx, ArchiveRequestPacket archiveRequest) throws Exception
 	{
-		if (archiveRequest.getIndex() == 255)
+		int index = archiveRequest.getIndex();
+		int archiveId = archiveRequest.getArchive();
+
+		if (index == 255)
 		{
-			handleRequest255(ctx, archiveRequest.getIndex(),
-				archiveRequest.getArchive());
+			logger.info("Client {} requests 255: index {}, archive {}", ctx.channel().remoteAddress(), index, archiveId);
 		}
 		else
 		{
-			handleRequest(ctx, archiveRequest.getIndex(),
-				archiveRequest.getArchive());
+			logger.debug("Client {} requests index {} archive {}", ctx.channel().remoteAddress(), index, archiveId);
 		}
-	}
-
-	private void handleRequest255(ChannelHandlerContext ctx, int index, int archiveId) throws IOException
-	{
-		logger.info("Client {} requests 255: index {}, archive {}", ctx.channel().remoteAddress(), index, archiveId);
 
-		byte[] compressed;
-		if (archiveId == 255)
+		if (archiveRequest.isPriority())
 		{
-			// index 255 data, for each index:
-			// 4 byte crc
-			// 4 byte revision
-			ByteBuf buffer = Unpooled.buffer(store.getIndexes().size() * 8);
-			for (Index i : store.getIndexes())
-			{
-				buffer.writeInt(i.getCrc());
-				buffer.writeInt(i.getRevision());
-			}
-
-			compressed = compress(CompressionType.NONE, Arrays.copyOf(buffer.array(), buffer.readableBytes()));
+			urgent.add(archiveRequest);
 		}
 		else
 		{
-			Index i = store.findIndex(archiveId);
-			assert i != null;
-
-			byte[] indexData = i.toIndexData().writeIndexData();
-
-			compressed = compress(CompressionType.NONE, indexData);
+			prefetch.add(archiveRequest);
 		}
+	}
 
-		ArchiveResponsePacket response = new ArchiveResponsePacket();
-		response.setIndex(index);
-		response.setArchive(archiveId);
-		response.setData(compressed);
-
-		ctx.writeAndFlush(response);
+	@Override
+	public void channelReadComplete(ChannelHandlerContext ctx) throws Exception
+	{
+		serve(ctx);
+		super.channelReadComplete(ctx);
 	}
 
-	private void handleRequest(ChannelHandlerContext ctx, int index, int archiveId) throws IOException
+	@Override
+	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception
 	{
-		logger.info("Client {} requests index {} archive {}", ctx.channel().remoteAddress(), index, archiveId);
+		if (ctx.channel().isWritable())
+		{
+			serve(ctx);
+		}
+		super.channelWritabilityChanged(ctx);
+	}
 
-		Index i = store.findIndex(index);
-		assert i != null;
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception
+	{
+		urgent.clear();
+		prefetch.clear();
+		super.channelInactive(ctx);
+	}
 
-		Archive archive = i.getArchive(archiveId);
-		assert archive != null;
+	private void serve(ChannelHandlerContext ctx)
+	{
+		boolean written = false;
 
-		byte[] packed;
-		if (archive.getData() != null)
+		// stop once the outbound buffer is full, so urgent requests which
+		// arrive later are not stuck behind every queued prefetch
+		ArchiveRequestPacket request;
+		while (ctx.channel().isWritable() && (request = poll()) != null)
 		{
-			packed = archive.getData(); // is compressed, includes length and type
+			int index = request.getIndex();
+			int archiveId = request.getArchive();
 
-			byte compression = packed[0];
-			int compressedSize = Ints.fromBytes(packed[1], packed[2],
-				packed[3], packed[4]);
+			ByteBuf response;
+			try
+			{
+				response = responseCache.getCachedResponse(index, archiveId);
+			}
+			catch (IOException ex)
+			{
+				logger.warn("unable to pack index {} archive {}", index, archiveId, ex);
+				continue;
+			}
 
-			assert packed.length == 1 // compression
-				+ 4 // compressed size
-				+ compressedSize
-				+ (compression != CompressionType.NONE ? 4 : 0)
-				: "maybe revision is at end of data?";
+			if (response == null)
+			{
+				pack(ctx, index, archiveId);
+				continue;
+			}
+
+			// the response is already encoded, so it goes straight to the xor encoder
+			ctx.write(response);
+			written = true;
 		}
-		else
+
+		if (written)
 		{
-			byte[] data = archive.saveContents();
-			packed = compress(archive.getCompression(), data);
+			ctx.flush();
 		}
+	}
 
-		ArchiveResponsePacket response = new ArchiveResponsePacket();
-		response.setIndex(index);
-		response.setArchive(archiveId);
-		response.setData(packed);
+	private ArchiveRequestPacket poll()
+	{
+		ArchiveRequestPacket request = urgent.poll();
+		return request != null ? request : prefetch.poll();
+	}
 
-		ctx.writeAndFlush(response);
+	private void pack(ChannelHandlerContext ctx, int index, int archiveId)
+	{
+		try
+		{
+			executor.execute(() ->
+			{
+				ByteBuf response;
+				try
+				{
+					response = responseCache.getResponse(index, archiveId);
+				}
+				catch (IOException ex)
+				{
+					logger.warn("unable to pack index {} archive {}", index, archiveId, ex);
+					return;
+				}
+
+				if (response == null)
+				{
+					logger.warn("Client {} requested nonexistent index {} archive {}", ctx.channel().remoteAddress(), index, archiveId);
+					return;
+				}
+
+				try
+				{
+					ctx.executor().execute(() -> write(ctx, response));
+				}
+				catch (RejectedExecutionException ex)
+				{
+					response.release();
+				}
+			});
+		}
+		catch (RejectedExecutionException ex)
+		{
+			logger.debug("Server is shutting down, dropping request for index {} archive {}", index, archiveId);
+		}
 	}
 
-	private byte[] compress(int compression, byte[] data) throws IOException
+	private void write(ChannelHandlerContext ctx, ByteBuf response)
 	{
-		return DataFile.compress(data, compression, -1, null);
+		ctx.write(response);
+
+		// responses packed during this turn of the event loop share a flush
+		if (!flushScheduled)
+		{
+			flushScheduled = true;
+			ctx.executor().execute(() ->
+			{
+				flushScheduled = false;
+				ctx.flush();
+			});
+		}
 	}
 }
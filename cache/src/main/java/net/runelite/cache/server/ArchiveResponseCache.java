@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.server;
+
+import com.google.common.primitives.Ints;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.cache.fs.jagex.DataFile;
+import net.runelite.cache.protocol.encoders.ArchiveResponseEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache of encoded archive responses, so archives requested by many
+ * clients are only packed once. Responses are keyed by index and archive,
+ * and are rebuilt when the crc or revision of the archive changes.
+ */
+public class ArchiveResponseCache
+{
+	private static final Logger logger = LoggerFactory.getLogger(ArchiveResponseCache.class);
+
+	private final Store store;
+	private final Map<Long, CachedResponse> responses = new HashMap<>();
+	private boolean closed;
+
+	public ArchiveResponseCache(Store store)
+	{
+		this.store = store;
+	}
+
+	/**
+	 * Get the encoded response for an archive
+	 *
+	 * @param index
+	 * @param archiveId
+	 * @return the response, which the caller must write or release, or
+	 * null if the archive does not exist
+	 * @throws IOException
+	 */
+	public ByteBuf getResponse(int index, int archiveId) throws IOException
+	{
+		return getResponse(index, archiveId, true);
+	}
+
+	/**
+	 * Get the encoded response for an archive, only if it is already
+	 * packed. This never compresses archive data, so it is cheap enough to
+	 * call from an event loop.
+	 *
+	 * @param index
+	 * @param archiveId
+	 * @return the response, which the caller must write or release, or
+	 * null if the archive is not packed or does not exist
+	 * @throws IOException
+	 */
+	public ByteBuf getCachedResponse(int index, int archiveId) throws IOException
+	{
+		return getResponse(index, archiveId, false);
+	}
+
+	private ByteBuf getResponse(int index, int archiveId, boolean pack) throws IOException
+	{
+		if (index == 255)
+		{
+			if (archiveId == 255)
+			{
+				// this is small, and changes with any index
+				return encode(index, archiveId, packIndexes());
+			}
+
+			Index i = store.findIndex(archiveId);
+			if (i == null)
+			{
+				return null;
+			}
+
+			long key = key(index, archiveId);
+			ByteBuf response = lookup(key, i.getCrc(), i.getRevision());
+			if (response == null && pack)
+			{
+				byte[] indexData = i.toIndexData().writeIndexData();
+				response = put(key, i.getCrc(), i.getRevision(), encode(index, archiveId, compress(CompressionType.NONE, indexData)));
+			}
+			return response;
+		}
+
+		Index i = store.findIndex(index);
+		if (i == null)
+		{
+			return null;
+		}
+
+		Archive archive = i.getArchive(archiveId);
+		if (archive == null)
+		{
+			return null;
+		}
+
+		long key = key(index, archiveId);
+		ByteBuf response = lookup(key, archive.getCrc(), archive.getRevision());
+		if (response == null && pack)
+		{
+			response = put(key, archive.getCrc(), archive.getRevision(), encode(index, archiveId, pack(archive)));
+		}
+		return response;
+	}
+
+	/**
+	 * Build the responses for every archive in the store
+	 */
+	public void warm()
+	{
+		logger.debug("Warming archive response cache");
+
+		for (Index index : store.getIndexes())
+		{
+			warm(255, index.getId());
+
+			for (Archive archive : index.getArchives())
+			{
+				if (Thread.currentThread().isInterrupted())
+				{
+					return;
+				}
+
+				warm(index.getId(), archive.getArchiveId());
+			}
+		}
+
+		logger.debug("Warmed archive response cache with {} responses", size());
+	}
+
+	private void warm(int index, int archiveId)
+	{
+		try
+		{
+			ByteBuf response = getResponse(index, archiveId);
+			if (response != null)
+			{
+				response.release();
+			}
+		}
+		catch (IOException ex)
+		{
+			logger.warn("unable to pack index {} archive {}", index, archiveId, ex);
+		}
+	}
+
+	/**
+	 * Drop all cached responses, eg. after the store has been modified
+	 */
+	public synchronized void invalidate()
+	{
+		for (CachedResponse response : responses.values())
+		{
+			response.buffer.release();
+		}
+		responses.clear();
+	}
+
+	/**
+	 * Drop all cached responses and stop caching new ones, so responses
+	 * packed by tasks still running afterwards are released by their
+	 * callers rather than leaked
+	 */
+	public synchronized void close()
+	{
+		closed = true;
+		invalidate();
+	}
+
+	public synchronized int size()
+	{
+		return responses.size();
+	}
+
+	private synchronized ByteBuf lookup(long key, int crc, int revision)
+	{
+		CachedResponse response = responses.get(key);
+		if (response == null || response.crc != crc || response.revision != revision)
+		{
+			return null;
+		}
+
+		return response.buffer.retainedDuplicate();
+	}
+
+	private synchronized ByteBuf put(long key, int crc, int revision, ByteBuf buffer)
+	{
+		if (closed)
+		{
+			// the caller gets the only reference
+			return buffer;
+		}
+
+		CachedResponse old = responses.put(key, new CachedResponse(crc, revision, buffer));
+		if (old != null)
+		{
+			old.buffer.release();
+		}
+
+		return buffer.retainedDuplicate();
+	}
+
+	private byte[] packIndexes() throws IOException
+	{
+		// index 255 data, for each index:
+		// 4 byte crc
+		// 4 byte revision
+		byte[] data = new byte[store.getIndexes().size() * 8];
+		int pos = 0;
+		for (Index i : store.getIndexes())
+		{
+			System.arraycopy(Ints.toByteArray(i.getCrc()), 0, data, pos, 4);
+			System.arraycopy(Ints.toByteArray(i.getRevision()), 0, data, pos + 4, 4);
+			pos += 8;
+		}
+
+		return compress(CompressionType.NONE, data);
+	}
+
+	private byte[] pack(Archive archive) throws IOException
+	{
+		byte[] packed = archive.getData();
+		if (packed != null)
+		{
+			byte compression = packed[0];
+			int compressedSize = Ints.fromBytes(packed[1], packed[2],
+				packed[3], packed[4]);
+
+			assert packed.length == 1 // compression
+				+ 4 // compressed size
+				+ compressedSize
+				+ (compression != CompressionType.NONE ? 4 : 0)
+				: "maybe revision is at end of data?";
+
+			return packed; // is compressed, includes length and type
+		}
+
+		byte[] data = archive.saveContents();
+		return compress(archive.getCompression(), data);
+	}
+
+	private static byte[] compress(int compression, byte[] data) throws IOException
+	{
+		return DataFile.compress(data, compression, -1, null);
+	}
+
+	private static ByteBuf encode(int index, int archiveId, byte[] packed)
+	{
+		ByteBuf buffer = PooledByteBufAllocator.DEFAULT.directBuffer(ArchiveResponseEncoder.getEncodedSize(packed.length));
+		ArchiveResponseEncoder.encode(index, archiveId, packed, buffer);
+		return buffer;
+	}
+
+	private static long key(int index, int archiveId)
+	{
+		return (long) index << 32 | archiveId;
+	}
+
+	private static class CachedResponse
+	{
+		private final int crc;
+		private final int revision;
+		private final ByteBuf buffer;
+
+		CachedResponse(int crc, int revision, ByteBuf buffer)
+		{
+			this.crc = crc;
+			this.revision = revision;
+			this.buffer = buffer;
+		}
+	}
+}
@@ -31,6 +31,9 @@ import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import net.runelite.cache.fs.Store;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,18 +43,23 @@ public class CacheServer implements AutoCloseable
 	private static final Logger logger = LoggerFactory.getLogger(CacheServer.class);
 
 	private static final int PORT = 43594;
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 5L;
 
 	private final EventLoopGroup group = new NioEventLoopGroup(1);
+	// packs archives off of the event loop
+	private final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
 
 	private Channel channel;
 
 	private final Store store;
 	private final int revision;
+	private final ArchiveResponseCache responseCache;
 
 	public CacheServer(Store store, int revision)
 	{
 		this.store = store;
 		this.revision = revision;
+		this.responseCache = new ArchiveResponseCache(store);
 	}
 
 	public void start()
@@ -66,6 +74,9 @@ public class CacheServer implements AutoCloseable
 		channel = f.channel();
 
 		logger.info("Server is now listening on {}", PORT);
+
+		// pack the archives in the background so they are ready before clients ask for them
+		executor.execute(responseCache::warm);
 	}
 
 	public void waitForClose()
@@ -78,6 +89,23 @@ public class CacheServer implements AutoCloseable
 	{
 		channel.close().syncUninterruptibly();
 		group.shutdownGracefully();
+		executor.shutdownNow();
+
+		try
+		{
+			// let archives being packed finish before the responses are released
+			if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+			{
+				logger.warn("Archive packing did not stop within {} seconds", SHUTDOWN_TIMEOUT_SECONDS);
+			}
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+		}
+
+		// responses packed after this are not cached
+		responseCache.close();
 	}
 
 	public int getRevision()
@@ -89,4 +117,14 @@ public class CacheServer implements AutoCloseable
 	{
 		return store;
 	}
+
+	public ArchiveResponseCache getResponseCache()
+	{
+		return responseCache;
+	}
+
+	public ExecutorService getExecutor()
+	{
+		return executor;
+	}
 }
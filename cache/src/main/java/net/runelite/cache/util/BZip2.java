@@ -26,9 +26,11 @@ package net.runelite.cache.util;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.util.Arrays;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
@@ -47,6 +49,8 @@ public class BZip2
 		'1'       // block size
 	};
 
+	private static final int INITIAL_RATIO = 8;
+
 	public static byte[] compress(byte[] bytes) throws IOException
 	{
 		InputStream is = new ByteArrayInputStream(bytes);
@@ -66,21 +70,51 @@ public class BZip2
 		return Arrays.copyOfRange(out, BZIP_HEADER.length, out.length); // remove header..
 	}
 
-	public static byte[] decompress(byte[] bytes, int len) throws IOException
+	/**
+	 * Decompress bzip2 data, which is stored without its header
+	 *
+	 * @param bytes buffer containing the compressed data
+	 * @param offset offset of the compressed data in the buffer
+	 * @param len length of the compressed data
+	 * @param decompressedLength size of the decompressed data
+	 * @return
+	 * @throws IOException if the data is corrupt or does not match its length
+	 */
+	public static byte[] decompress(byte[] bytes, int offset, int len, int decompressedLength) throws IOException
 	{
-		byte[] data = new byte[len + BZIP_HEADER.length];
-
-		// add header
-		System.arraycopy(BZIP_HEADER, 0, data, 0, BZIP_HEADER.length);
-		System.arraycopy(bytes, 0, data, BZIP_HEADER.length, len);
+		// the length comes from the same, possibly wrongly decrypted, data, so
+		// only presize the buffer up to a multiple of the compressed size and
+		// grow it as the data turns out to really be that long
+		byte[] out = new byte[(int) Math.min(decompressedLength, (long) len * INITIAL_RATIO)];
 
-		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		// stream the header in ahead of the data instead of copying the data after it
+		InputStream in = new SequenceInputStream(
+			new ByteArrayInputStream(BZIP_HEADER),
+			new ByteArrayInputStream(bytes, offset, len)
+		);
 
-		try (InputStream is = new BZip2CompressorInputStream(new ByteArrayInputStream(data)))
+		try (InputStream is = new BZip2CompressorInputStream(in))
 		{
-			IOUtils.copy(is, os);
+			for (int read = 0, i; read < decompressedLength; read += i)
+			{
+				if (read == out.length)
+				{
+					out = Arrays.copyOf(out, (int) Math.min(decompressedLength, Math.max(1024L, out.length * 2L)));
+				}
+
+				i = is.read(out, read, out.length - read);
+				if (i == -1)
+				{
+					throw new EOFException("bzip2 data is shorter than " + decompressedLength + " bytes");
+				}
+			}
+
+			if (is.read() != -1)
+			{
+				throw new IOException("bzip2 data is longer than " + decompressedLength + " bytes");
+			}
 		}
 
-		return os.toByteArray();
+		return out;
 	}
 }
@@ -25,14 +25,14 @@
 
 package net.runelite.cache.util;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
-import org.apache.commons.compress.utils.IOUtils;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,28 +40,193 @@ public class GZip
 {
 	private static final Logger logger = LoggerFactory.getLogger(GZip.class);
 
+	private static final int GZIP_MAGIC = 0x8b1f;
+	private static final int GZIP_HEADER_LENGTH = 10;
+	private static final int GZIP_TRAILER_LENGTH = 8;
+
+	// header flags
+	private static final int FHCRC = 2;
+	private static final int FEXTRA = 4;
+	private static final int FNAME = 8;
+	private static final int FCOMMENT = 16;
+
+	private static final byte[] GZIP_HEADER = new byte[]
+	{
+		(byte) GZIP_MAGIC, (byte) (GZIP_MAGIC >> 8),
+		Deflater.DEFLATED,
+		0, // flags
+		0, 0, 0, 0, // modification time
+		0, // extra flags
+		0 // os
+	};
+
+	// inflaters and deflaters are expensive to create, so keep one per thread.
+	// They are not ended explicitly, as a thread's instance is in use for as
+	// long as the thread is; their native memory is freed by their finalizers
+	// once the thread has exited.
+	private static final ThreadLocal<Inflater> inflater = ThreadLocal.withInitial(() -> new Inflater(true));
+	private static final ThreadLocal<Deflater> deflater = ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+
 	public static byte[] compress(byte[] bytes) throws IOException
 	{
-		InputStream is = new ByteArrayInputStream(bytes);
-		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		Deflater def = deflater.get();
+		def.reset();
+		def.setInput(bytes);
+		def.finish();
+
+		ByteArrayOutputStream bout = new ByteArrayOutputStream(bytes.length + GZIP_HEADER_LENGTH + GZIP_TRAILER_LENGTH);
+		bout.write(GZIP_HEADER, 0, GZIP_HEADER.length);
 
-		try (OutputStream os = new GZIPOutputStream(bout))
+		byte[] buffer = new byte[4096];
+		while (!def.finished())
 		{
-			IOUtils.copy(is, os);
+			int i = def.deflate(buffer);
+			bout.write(buffer, 0, i);
 		}
-		
+
+		CRC32 crc32 = new CRC32();
+		crc32.update(bytes, 0, bytes.length);
+
+		writeIntLE(bout, (int) crc32.getValue());
+		writeIntLE(bout, bytes.length);
+
 		return bout.toByteArray();
 	}
 
-	public static byte[] decompress(byte[] bytes, int len) throws IOException
+	/**
+	 * Decompress gzip data
+	 *
+	 * @param bytes buffer containing the compressed data
+	 * @param offset offset of the compressed data in the buffer
+	 * @param len length of the compressed data
+	 * @param decompressedLength size of the decompressed data
+	 * @return
+	 * @throws IOException if the data is corrupt or does not match its
+	 * length and checksum
+	 */
+	public static byte[] decompress(byte[] bytes, int offset, int len, int decompressedLength) throws IOException
 	{
-		ByteArrayOutputStream os = new ByteArrayOutputStream();
-		
-		try (InputStream is = new GZIPInputStream(new ByteArrayInputStream(bytes, 0, len)))
+		if (len < GZIP_HEADER_LENGTH + GZIP_TRAILER_LENGTH)
 		{
-			IOUtils.copy(is, os);
+			throw new EOFException("gzip data is too short");
 		}
 
-		return os.toByteArray();
+		int end = offset + len;
+		int pos = offset;
+
+		int magic = (bytes[pos] & 0xFF) | ((bytes[pos + 1] & 0xFF) << 8);
+		if (magic != GZIP_MAGIC)
+		{
+			throw new ZipException("Not in GZIP format");
+		}
+
+		if (bytes[pos + 2] != Deflater.DEFLATED)
+		{
+			throw new ZipException("Unsupported compression method");
+		}
+
+		int flags = bytes[pos + 3] & 0xFF;
+		pos += GZIP_HEADER_LENGTH;
+
+		if ((flags & FEXTRA) != 0)
+		{
+			pos += 2 + ((bytes[pos] & 0xFF) | ((bytes[pos + 1] & 0xFF) << 8));
+		}
+		if ((flags & FNAME) != 0)
+		{
+			pos = skipString(bytes, pos, end);
+		}
+		if ((flags & FCOMMENT) != 0)
+		{
+			pos = skipString(bytes, pos, end);
+		}
+		if ((flags & FHCRC) != 0)
+		{
+			pos += 2;
+		}
+
+		if (pos > end - GZIP_TRAILER_LENGTH)
+		{
+			throw new EOFException("gzip header is truncated");
+		}
+
+		// check the size in the trailer before trusting the length for the buffer
+		int trailer = end - GZIP_TRAILER_LENGTH;
+		if (readIntLE(bytes, trailer + 4) != decompressedLength)
+		{
+			throw new ZipException("gzip size does not match " + decompressedLength + " bytes");
+		}
+
+		Inflater inf = inflater.get();
+		inf.reset();
+		inf.setInput(bytes, pos, trailer - pos);
+
+		byte[] out = new byte[decompressedLength];
+		try
+		{
+			for (int read = 0, i; read < out.length; read += i)
+			{
+				i = inf.inflate(out, read, out.length - read);
+				if (i == 0 && (inf.finished() || inf.needsInput() || inf.needsDictionary()))
+				{
+					throw new EOFException("gzip data is shorter than " + decompressedLength + " bytes");
+				}
+			}
+
+			if (!inf.finished() && inf.inflate(new byte[1]) != 0)
+			{
+				throw new ZipException("gzip data is longer than " + decompressedLength + " bytes");
+			}
+			if (!inf.finished())
+			{
+				throw new EOFException("gzip data is truncated");
+			}
+			// the deflate stream must end exactly where the trailer begins
+			if (inf.getRemaining() != 0)
+			{
+				throw new ZipException("gzip data has trailing garbage");
+			}
+		}
+		catch (DataFormatException ex)
+		{
+			throw new ZipException(ex.getMessage());
+		}
+
+		CRC32 crc32 = new CRC32();
+		crc32.update(out, 0, out.length);
+		if (readIntLE(bytes, trailer) != (int) crc32.getValue())
+		{
+			throw new ZipException("gzip crc mismatch");
+		}
+
+		return out;
+	}
+
+	private static int readIntLE(byte[] bytes, int pos)
+	{
+		return (bytes[pos] & 0xFF)
+			| ((bytes[pos + 1] & 0xFF) << 8)
+			| ((bytes[pos + 2] & 0xFF) << 16)
+			| ((bytes[pos + 3] & 0xFF) << 24);
+	}
+
+	private static int skipString(byte[] bytes, int pos, int end)
+	{
+		while (pos < end)
+		{
+			if (bytes[pos++] == 0)
+			{
+				break;
+			}
+		}
+		return pos;
+	}
+
+	private static void writeIntLE(ByteArrayOutputStream out, int i)
+	{
+		out.write(i);
+		out.write(i >> 8);
+		out.write(i >> 16);
+		out.write(i >> 24);
 	}
 }
@@ -31,25 +31,28 @@ import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
 public class Whirlpool
 {
-	private static MessageDigest messageDigest;
-
-	static
+	// digests are not thread safe, so keep one per thread
+	private static final ThreadLocal<MessageDigest> messageDigest = ThreadLocal.withInitial(() ->
 	{
-		Security.addProvider(new BouncyCastleProvider());
-
 		try
 		{
-			messageDigest = MessageDigest.getInstance("Whirlpool");
+			return MessageDigest.getInstance("Whirlpool");
 		}
 		catch (NoSuchAlgorithmException ex)
 		{
 			throw new RuntimeException(ex);
 		}
+	});
+
+	static
+	{
+		Security.addProvider(new BouncyCastleProvider());
 	}
 
-	public static synchronized byte[] getHash(byte[] data, int len)
+	public static byte[] getHash(byte[] data, int len)
 	{
-		messageDigest.update(data, 0, len);
-		return messageDigest.digest();
+		MessageDigest digest = messageDigest.get();
+		digest.update(data, 0, len);
+		return digest.digest();
 	}
 }
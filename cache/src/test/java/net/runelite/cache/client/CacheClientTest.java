@@ -25,15 +25,23 @@
 package net.runelite.cache.client;
 
 import java.io.File;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import net.runelite.cache.CacheProperties;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.fs.Index;
 import net.runelite.cache.fs.Store;
 import net.runelite.cache.fs.tree.TreeStorage;
 import net.runelite.cache.protocol.packets.HandshakeResponseType;
+import net.runelite.cache.server.CacheServer;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Ignore;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.impl.SimpleLogger;
@@ -42,6 +50,11 @@ public class CacheClientTest
 {
 	private static final Logger logger = LoggerFactory.getLogger(CacheClientTest.class);
 
+	private static final int REVISION = 154;
+
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
 	@Before
 	public void before()
 	{
@@ -99,4 +112,179 @@ public class CacheClientTest
 			storage.save(store);
 		}
 	}
+
+	@Test
+	public void testMultipleConnections() throws Exception
+	{
+		try (Store store = new Store(folder.newFolder());
+			CacheServer server = new CacheServer(store, REVISION))
+		{
+			Index index = store.addIndex(0);
+			for (int i = 0; i < 100; ++i)
+			{
+				FSFile file = new FSFile(0);
+				file.setContents(("test" + i).getBytes());
+				index.addArchive(i).addFile(file);
+			}
+
+			store.rebuildCrc();
+
+			server.start();
+
+			try (Store store2 = new Store(folder.newFolder());
+				CacheClient client = new CacheClient(store2, "localhost", REVISION))
+			{
+				client.setConnectionCount(4);
+				client.setMaxRequests(5);
+				client.connect();
+
+				Assert.assertEquals(HandshakeResponseType.RESPONSE_OK, client.handshake().get());
+
+				client.download();
+
+				Index index2 = store2.findIndex(0);
+				Assert.assertEquals(100, index2.getArchives().size());
+
+				for (int i = 0; i < 100; ++i)
+				{
+					Archive archive = index2.getArchive(i);
+					archive.decompressAndLoad(null); // cache client doesn't decompress archive
+					Assert.assertArrayEquals(("test" + i).getBytes(), archive.getFiles().get(0).getContents());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testIncrementalDownload() throws Exception
+	{
+		File clientFolder = folder.newFolder();
+
+		try (Store store = new Store(folder.newFolder());
+			CacheServer server = new CacheServer(store, REVISION))
+		{
+			Index index = store.addIndex(0);
+			for (int i = 0; i < 10; ++i)
+			{
+				FSFile file = new FSFile(0);
+				file.setContents(("test" + i).getBytes());
+				index.addArchive(i).addFile(file);
+			}
+
+			store.rebuildCrc();
+
+			server.start();
+
+			try (Store store2 = new Store(clientFolder);
+				CacheClient client = new CacheClient(store2, "localhost", REVISION))
+			{
+				client.connect();
+				client.handshake().get();
+
+				Assert.assertEquals(10, client.download().size());
+
+				store2.save();
+			}
+
+			index.getArchive(3).getFiles().get(0).setContents("changed".getBytes());
+			store.rebuildCrc();
+
+			try (Store store2 = new Store(clientFolder);
+				CacheClient client = new CacheClient(store2, "localhost", REVISION))
+			{
+				store2.load();
+
+				client.connect();
+				client.handshake().get();
+
+				List<Archive> archives = client.download();
+				Assert.assertEquals(1, archives.size());
+				Assert.assertEquals(3, archives.get(0).getArchiveId());
+
+				store2.save(archives);
+			}
+		}
+
+		try (Store store2 = new Store(clientFolder))
+		{
+			store2.load();
+
+			Index index = store2.findIndex(0);
+			Assert.assertEquals(10, index.getArchives().size());
+
+			for (int i = 0; i < 10; ++i)
+			{
+				byte[] expected = (i == 3 ? "changed" : "test" + i).getBytes();
+				Assert.assertArrayEquals(expected, index.getArchive(i).getFiles().get(0).getContents());
+			}
+		}
+	}
+
+	@Test
+	public void testIncrementalDownloadRemovedArchive() throws Exception
+	{
+		File clientFolder = folder.newFolder();
+
+		try (Store store = new Store(folder.newFolder());
+			CacheServer server = new CacheServer(store, REVISION))
+		{
+			Index index = store.addIndex(0);
+			for (int i = 0; i < 10; ++i)
+			{
+				FSFile file = new FSFile(0);
+				file.setContents(("test" + i).getBytes());
+				index.addArchive(i).addFile(file);
+			}
+
+			store.rebuildCrc();
+
+			server.start();
+
+			try (Store store2 = new Store(clientFolder);
+				CacheClient client = new CacheClient(store2, "localhost", REVISION))
+			{
+				client.connect();
+				client.handshake().get();
+
+				Assert.assertEquals(10, client.download().size());
+
+				store2.save();
+			}
+
+			index.removeArchive(index.getArchive(3));
+			store.rebuildCrc();
+
+			try (Store store2 = new Store(clientFolder);
+				CacheClient client = new CacheClient(store2, "localhost", REVISION))
+			{
+				store2.load();
+
+				client.connect();
+				client.handshake().get();
+
+				List<Archive> archives = client.download();
+				Assert.assertTrue(archives.isEmpty());
+				Assert.assertNull(store2.findIndex(0).getArchive(3));
+
+				store2.save(archives);
+			}
+		}
+
+		try (Store store2 = new Store(clientFolder))
+		{
+			store2.load();
+
+			Index index = store2.findIndex(0);
+			Assert.assertEquals(9, index.getArchives().size());
+			Assert.assertNull(index.getArchive(3));
+
+			for (int i = 0; i < 10; ++i)
+			{
+				if (i != 3)
+				{
+					Assert.assertArrayEquals(("test" + i).getBytes(), index.getArchive(i).getFiles().get(0).getContents());
+				}
+			}
+		}
+	}
 }
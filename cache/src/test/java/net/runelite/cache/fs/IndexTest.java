@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import net.runelite.cache.util.Djb2;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IndexTest
+{
+	@Test
+	public void testArchiveLookup()
+	{
+		Index index = new Index(null, 5);
+
+		Archive map = index.addArchive(0);
+		map.setNameHash(Djb2.hash("m50_50"));
+		Archive land = index.addArchive(1);
+		land.setNameHash(Djb2.hash("l50_50"));
+
+		Assert.assertSame(map, index.getArchive(0));
+		Assert.assertSame(land, index.findArchiveByName("l50_50"));
+		Assert.assertNull(index.getArchive(2));
+
+		Archive map2 = index.addArchive(2);
+		map2.setNameHash(Djb2.hash("m50_51"));
+		Assert.assertSame(map2, index.getArchive(2));
+		Assert.assertSame(map2, index.findArchiveByName("m50_51"));
+
+		map.setNameHash(Djb2.hash("m50_52"));
+		Assert.assertNull(index.findArchiveByName("m50_50"));
+		Assert.assertSame(map, index.findArchiveByName("m50_52"));
+
+		index.removeArchive(land);
+		Assert.assertNull(index.getArchive(1));
+		Assert.assertNull(index.findArchiveByName("l50_50"));
+		Assert.assertEquals(2, index.getArchives().size());
+	}
+
+	@Test
+	public void testConcurrentLookup() throws Exception
+	{
+		Index index = new Index(null, 5);
+		for (int i = 0; i < 10000; ++i)
+		{
+			index.addArchive(i).setNameHash(i); // invalidates the lookups
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try
+		{
+			List<Future<Integer>> futures = new ArrayList<>();
+			for (int t = 0; t < 8; ++t)
+			{
+				futures.add(executor.submit(() ->
+				{
+					int missing = 0;
+					for (int i = 0; i < 10000; ++i)
+					{
+						if (index.getArchive(i) == null)
+						{
+							++missing;
+						}
+					}
+					return missing;
+				}));
+			}
+
+			for (Future<Integer> future : futures)
+			{
+				Assert.assertEquals(0, (int) future.get());
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testArchivesUnmodifiable()
+	{
+		Index index = new Index(null, 5);
+		index.getArchives().add(new Archive(index, 0));
+	}
+}
@@ -24,11 +24,16 @@
  */
 package net.runelite.cache.fs;
 
+import com.google.common.io.Files;
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Random;
 import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.jagex.CompressionType;
+import net.runelite.cache.fs.jagex.DataFile;
 import net.runelite.cache.fs.tree.TreeStorage;
+import net.runelite.cache.util.XteaKeyManager;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -166,4 +171,210 @@ public class StoreTest
 			}
 		}
 	}
+
+	@Test
+	public void testLazyLoad() throws IOException
+	{
+		Random random = new Random(44L);
+		File root = folder.newFolder();
+
+		try (Store store = new Store(root))
+		{
+			Index index = store.addIndex(0);
+
+			for (int i = 0; i < 3; ++i)
+			{
+				Archive archive = index.addArchive(i);
+
+				for (int j = 0; j < NUMBER_OF_FILES; ++j)
+				{
+					FSFile file = new FSFile(j);
+					archive.addFile(file);
+					byte[] data = new byte[random.nextInt(1024)];
+					random.nextBytes(data);
+					file.setContents(data);
+				}
+			}
+
+			store.save();
+
+			try (Store store2 = new Store(root))
+			{
+				store2.setLazy(true);
+				store2.setMaxLoadedSize(1024 * 1024);
+				store2.load();
+
+				Index index2 = store2.findIndex(0);
+				Assert.assertEquals(3, index2.getArchives().size());
+
+				Archive archive = index2.getArchive(0);
+				Assert.assertTrue(archive.isLazy());
+				FSFile file = archive.findFile(5);
+				Assert.assertArrayEquals(index.getArchive(0).findFile(5).getContents(), file.getContents());
+				Assert.assertFalse(archive.isLazy());
+
+				// loading the others exceeds the maximum loaded size, so the first is dropped
+				index2.getArchive(1).getFiles();
+				index2.getArchive(2).getFiles();
+				Assert.assertTrue(archive.isLazy());
+
+				// files handed out before keep their contents
+				Assert.assertNotNull(file.getContents());
+				Assert.assertArrayEquals(file.getContents(), archive.findFile(5).getContents());
+
+				// modified archives are never dropped
+				archive.findFile(5).setContents(new byte[0]);
+				index2.getArchive(1).getFiles();
+				index2.getArchive(2).getFiles();
+				Assert.assertTrue(index2.getArchive(1).isLazy());
+				Assert.assertFalse(archive.isLazy());
+				Assert.assertEquals(0, archive.findFile(5).getContents().length);
+
+				archive.findFile(5).setContents(file.getContents());
+				Assert.assertEquals(store, store2);
+			}
+		}
+	}
+
+	@Test
+	public void testLazyLoadDecrypted() throws IOException
+	{
+		Random random = new Random(45L);
+		File root = folder.newFolder();
+		int[] keys = new int[]
+		{
+			1, 2, 3, 4
+		};
+
+		try (Store store = new Store(root))
+		{
+			Index index = store.addIndex(0);
+
+			for (int i = 0; i < 2; ++i)
+			{
+				Archive archive = index.addArchive(i);
+				archive.setCompression(CompressionType.GZ);
+
+				for (int j = 0; j < NUMBER_OF_FILES; ++j)
+				{
+					FSFile file = new FSFile(j);
+					archive.addFile(file);
+					byte[] data = new byte[random.nextInt(1024)];
+					random.nextBytes(data);
+					file.setContents(data);
+				}
+
+				archive.setData(DataFile.compress(archive.saveContents(), archive.getCompression(), -1, keys));
+			}
+
+			store.save();
+
+			try (Store store2 = new Store(root))
+			{
+				store2.setLazy(true);
+				store2.setMaxLoadedSize(1L);
+				store2.findIndex(0).setXteaManager(new XteaKeyManager());
+				store2.load();
+
+				Index index2 = store2.findIndex(0);
+				Archive archive = index2.getArchive(0);
+				archive.getFiles();
+				archive.decompressAndLoad(keys);
+				Assert.assertArrayEquals(index.getArchive(0).findFile(5).getContents(), archive.findFile(5).getContents());
+
+				// the decrypted contents can't be read again, so they are kept
+				index2.getArchive(1).getFiles();
+				Assert.assertFalse(archive.isLazy());
+				Assert.assertArrayEquals(index.getArchive(0).findFile(5).getContents(), archive.findFile(5).getContents());
+			}
+		}
+	}
+
+	@Test
+	public void testResaveIdentical() throws IOException
+	{
+		Random random = new Random(45L);
+		File root = folder.newFolder();
+
+		try (Store store = new Store(root))
+		{
+			for (int i = 0; i < 3; ++i)
+			{
+				Index index = store.addIndex(i);
+
+				for (int j = 0; j < 32; ++j)
+				{
+					Archive archive = index.addArchive(j);
+					archive.setCompression(j % 3);
+
+					for (int k = 0; k < 16; ++k)
+					{
+						FSFile file = new FSFile(k);
+						archive.addFile(file);
+						byte[] data = new byte[random.nextInt(1024)];
+						random.nextBytes(data);
+						file.setContents(data);
+					}
+				}
+			}
+
+			store.save();
+		}
+
+		File dat = new File(root, "main_file_cache.dat2");
+		byte[] saved = Files.toByteArray(dat);
+
+		try (Store store = new Store(root))
+		{
+			store.load();
+			store.save();
+		}
+
+		Assert.assertArrayEquals(saved, Files.toByteArray(dat));
+	}
+
+	@Test
+	public void testSaveArchives() throws IOException
+	{
+		File root = folder.newFolder();
+
+		try (Store store = new Store(root))
+		{
+			Index index = store.addIndex(0);
+			for (int i = 0; i < 3; ++i)
+			{
+				FSFile file = new FSFile(0);
+				file.setContents(("test" + i).getBytes());
+				index.addArchive(i).addFile(file);
+			}
+
+			store.save();
+		}
+
+		File dat = new File(root, "main_file_cache.dat2");
+		long length = dat.length();
+
+		try (Store store = new Store(root))
+		{
+			store.load();
+
+			Archive archive = store.findIndex(0).getArchive(1);
+			archive.getFiles().get(0).setContents("changed".getBytes());
+
+			store.save(Collections.singletonList(archive));
+		}
+
+		// only the archive and index data are appended
+		Assert.assertEquals(length + 2 * 520, dat.length());
+
+		try (Store store = new Store(root))
+		{
+			store.load();
+
+			Index index = store.findIndex(0);
+			Assert.assertArrayEquals("test0".getBytes(), index.getArchive(0).getFiles().get(0).getContents());
+			Assert.assertArrayEquals("changed".getBytes(), index.getArchive(1).getFiles().get(0).getContents());
+			Assert.assertArrayEquals("test2".getBytes(), index.getArchive(2).getFiles().get(0).getContents());
+		}
+	}
 }
@@ -153,4 +153,33 @@ public class DataFileTest
 		Assert.assertEquals(res.crc, res2.crc);
 		Assert.assertEquals(42, res2.revision);
 	}
+
+	@Test
+	public void testMapped() throws IOException
+	{
+		byte[] b = new byte[4096];
+		for (int i = 0; i < b.length; ++i)
+		{
+			b[i] = (byte) i;
+		}
+
+		File file = folder.newFile();
+		DataFile df = new DataFile(file, true);
+
+		byte[] compressedData = DataFile.compress(b, CompressionType.NONE, 42, null);
+		DataFileWriteResult res = df.write(42, 3, compressedData, 42);
+		DataFileWriteResult res2 = df.write(42, 0x1FFFF, compressedData, 42);
+
+		byte[] data = df.read(42, 3, res.sector, res.compressedLength);
+		Assert.assertArrayEquals(compressedData, data);
+
+		data = df.read(42, 0x1FFFF, res2.sector, res2.compressedLength);
+		Assert.assertArrayEquals(compressedData, data);
+
+		DataFileReadResult res3 = DataFile.decompress(data, null);
+		Assert.assertArrayEquals(b, res3.data);
+		Assert.assertEquals(res2.crc, res3.crc);
+
+		Assert.assertNull(df.read(41, 3, res.sector, res.compressedLength));
+	}
 }
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2016-2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.fs.jagex;
+
+import com.google.common.io.Files;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DiskStorageTest
+{
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
+	@Test
+	public void testInPlaceSave() throws IOException
+	{
+		Random random = new Random(42L);
+		File root = folder.newFolder();
+		File dat = new File(root, "main_file_cache.dat2");
+
+		try (Store store = new Store(root))
+		{
+			Index index = store.addIndex(0);
+			for (int i = 0; i < 3; ++i)
+			{
+				addFile(index.addArchive(i), random, 4096);
+			}
+
+			store.save();
+		}
+
+		byte[] saved = Files.toByteArray(dat);
+
+		DiskStorage storage = new DiskStorage(root);
+		storage.setInPlace(true);
+
+		try (Store store = new Store(storage))
+		{
+			store.load();
+
+			// nothing has changed, so nothing is written
+			store.save();
+			Assert.assertArrayEquals(saved, Files.toByteArray(dat));
+
+			// a smaller archive is written over the old one
+			Index index = store.findIndex(0);
+			index.getArchive(1).getFiles().get(0).setContents(new byte[] { 1, 2, 3 });
+			store.save();
+			Assert.assertEquals(saved.length, dat.length());
+
+			// a larger one is appended
+			index.getArchive(2).getFiles().get(0).setContents(new byte[8192]);
+			index.removeArchive(index.getArchive(0));
+			store.save();
+			Assert.assertTrue(dat.length() > saved.length);
+		}
+
+		try (Store store = new Store(root))
+		{
+			store.load();
+
+			Index index = store.findIndex(0);
+			Assert.assertNull(index.getArchive(0));
+			Assert.assertArrayEquals(new byte[] { 1, 2, 3 }, index.getArchive(1).getFiles().get(0).getContents());
+			Assert.assertArrayEquals(new byte[8192], index.getArchive(2).getFiles().get(0).getContents());
+		}
+	}
+
+	@Test
+	public void testCompact() throws IOException
+	{
+		Random random = new Random(43L);
+		File root = folder.newFolder();
+		File dat = new File(root, "main_file_cache.dat2");
+
+		try (Store store = new Store(root))
+		{
+			for (int i = 0; i < 2; ++i)
+			{
+				Index index = store.addIndex(i);
+				for (int j = 0; j < 8; ++j)
+				{
+					addFile(index.addArchive(j), random, 2048);
+				}
+			}
+
+			store.save();
+		}
+
+		Store expected;
+		try (Store store = new Store(root))
+		{
+			store.load();
+
+			// appending leaves the old sectors of these archives unused
+			Index index = store.findIndex(1);
+			addFile(index.getArchive(3), random, 2048);
+			addFile(index.getArchive(5), random, 2048);
+			store.save(index.getArchives());
+
+			expected = store;
+		}
+
+		long length = dat.length();
+
+		try (DiskStorage storage = new DiskStorage(root))
+		{
+			storage.compact();
+		}
+
+		Assert.assertTrue(dat.length() < length);
+
+		try (Store store = new Store(root))
+		{
+			store.load();
+			Assert.assertEquals(expected, store);
+		}
+	}
+
+	@Test
+	public void testInterruptedCompact() throws IOException
+	{
+		Random random = new Random(44L);
+		File root = folder.newFolder();
+
+		Store expected;
+		try (Store store = new Store(root))
+		{
+			Index index = store.addIndex(0);
+			for (int i = 0; i < 4; ++i)
+			{
+				addFile(index.addArchive(i), random, 2048);
+			}
+
+			store.save();
+			expected = store;
+		}
+
+		// compacted files which were not all written are discarded
+		File dat = new File(root, "main_file_cache.dat2");
+		File datTmp = new File(root, "main_file_cache.dat2.tmp");
+		Files.write(new byte[1234], datTmp);
+
+		try (Store store = new Store(root))
+		{
+			store.load();
+			Assert.assertEquals(expected, store);
+		}
+
+		Assert.assertFalse(datTmp.exists());
+
+		// once the marker exists the compacted files replace the old ones
+		for (String name : new String[] { "main_file_cache.dat2", "main_file_cache.idx0", "main_file_cache.idx255" })
+		{
+			Files.copy(new File(root, name), new File(root, name + ".tmp"));
+		}
+		Files.write(new byte[0], dat);
+		Files.touch(new File(root, "main_file_cache.compact"));
+
+		try (Store store = new Store(root))
+		{
+			store.load();
+			Assert.assertEquals(expected, store);
+		}
+
+		Assert.assertFalse(datTmp.exists());
+		Assert.assertFalse(new File(root, "main_file_cache.compact").exists());
+	}
+
+	private static void addFile(Archive archive, Random random, int size)
+	{
+		byte[] data = new byte[size];
+		random.nextBytes(data);
+
+		FSFile file = new FSFile(archive.getFiles().size());
+		file.setContents(data);
+		archive.addFile(file);
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.server;
+
+import io.netty.buffer.ByteBuf;
+import java.util.ArrayList;
+import java.util.List;
+import net.runelite.cache.StoreLocation;
+import net.runelite.cache.fs.Archive;
+import net.runelite.cache.fs.FSFile;
+import net.runelite.cache.fs.Index;
+import net.runelite.cache.fs.Store;
+import net.runelite.cache.fs.jagex.DataFile;
+import net.runelite.cache.protocol.decoders.ArchiveResponseDecoder;
+import net.runelite.cache.protocol.packets.ArchiveResponsePacket;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ArchiveResponseCacheTest
+{
+	@Rule
+	public TemporaryFolder folder = StoreLocation.getTemporaryFolder();
+
+	@Test
+	public void testGetResponse() throws Exception
+	{
+		try (Store store = new Store(folder.newFolder()))
+		{
+			Index index = store.addIndex(0);
+			Archive archive = index.addArchive(0);
+			FSFile file = new FSFile(0);
+			file.setContents("test".getBytes());
+			archive.addFile(file);
+			store.rebuildCrc();
+
+			ArchiveResponseCache cache = new ArchiveResponseCache(store);
+			cache.warm();
+			Assert.assertEquals(2, cache.size());
+
+			ArchiveResponsePacket response = decode(cache.getResponse(0, 0));
+			Assert.assertEquals(0, response.getIndex());
+			Assert.assertEquals(0, response.getArchive());
+			Assert.assertArrayEquals("test".getBytes(), DataFile.decompress(response.getData(), null).data);
+
+			// a changed archive is repacked
+			file.setContents("test2".getBytes());
+			store.rebuildCrc();
+
+			response = decode(cache.getResponse(0, 0));
+			Assert.assertArrayEquals("test2".getBytes(), DataFile.decompress(response.getData(), null).data);
+
+			Assert.assertNull(cache.getResponse(0, 1));
+
+			cache.invalidate();
+			Assert.assertEquals(0, cache.size());
+		}
+	}
+
+	@Test
+	public void testGetCachedResponse() throws Exception
+	{
+		try (Store store = new Store(folder.newFolder()))
+		{
+			Index index = store.addIndex(0);
+			Archive archive = index.addArchive(0);
+			FSFile file = new FSFile(0);
+			file.setContents("test".getBytes());
+			archive.addFile(file);
+			store.rebuildCrc();
+
+			ArchiveResponseCache cache = new ArchiveResponseCache(store);
+
+			// nothing is packed yet
+			Assert.assertNull(cache.getCachedResponse(0, 0));
+			Assert.assertEquals(0, cache.size());
+
+			cache.getResponse(0, 0).release();
+
+			ArchiveResponsePacket response = decode(cache.getCachedResponse(0, 0));
+			Assert.assertArrayEquals("test".getBytes(), DataFile.decompress(response.getData(), null).data);
+
+			// the index list is always built
+			response = decode(cache.getCachedResponse(255, 255));
+			Assert.assertEquals(255, response.getArchive());
+
+			cache.invalidate();
+		}
+	}
+
+	@Test
+	public void testClose() throws Exception
+	{
+		try (Store store = new Store(folder.newFolder()))
+		{
+			Index index = store.addIndex(0);
+			Archive archive = index.addArchive(0);
+			FSFile file = new FSFile(0);
+			file.setContents("test".getBytes());
+			archive.addFile(file);
+			store.rebuildCrc();
+
+			ArchiveResponseCache cache = new ArchiveResponseCache(store);
+			cache.getResponse(0, 0).release();
+			Assert.assertEquals(1, cache.size());
+
+			cache.close();
+			Assert.assertEquals(0, cache.size());
+
+			// responses packed after closing belong only to the caller
+			ByteBuf response = cache.getResponse(0, 0);
+			Assert.assertEquals(0, cache.size());
+			Assert.assertEquals(1, response.refCnt());
+			Assert.assertTrue(response.release());
+		}
+	}
+
+	private static ArchiveResponsePacket decode(ByteBuf buffer) throws Exception
+	{
+		try
+		{
+			List<Object> out = new ArrayList<>();
+			new ArchiveResponseDecoder().decode(null, buffer, out);
+			Assert.assertEquals(1, out.size());
+			return (ArchiveResponsePacket) out.get(0);
+		}
+		finally
+		{
+			buffer.release();
+		}
+	}
+}
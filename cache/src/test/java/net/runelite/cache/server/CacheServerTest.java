@@ -24,8 +24,11 @@
  */
 package net.runelite.cache.server;
 
+import com.google.common.base.Stopwatch;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
 import net.runelite.cache.StoreLocation;
 import net.runelite.cache.client.CacheClient;
 import net.runelite.cache.fs.Archive;
@@ -37,9 +40,13 @@ import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class CacheServerTest
 {
+	private static final Logger logger = LoggerFactory.getLogger(CacheServerTest.class);
+
 	private static final String HOST = "localhost";
 	private static final int REVISION = 154;
 
@@ -96,6 +103,53 @@ public class CacheServerTest
 		}
 	}
 
+	@Test
+	@Ignore
+	public void benchmarkDownload() throws Exception
+	{
+		final int indexes = 4, archives = 2500, fileSize = 4096;
+
+		try (Store store = new Store(folder.newFolder());
+			CacheServer server = new CacheServer(store, REVISION))
+		{
+			Random random = new Random(42L);
+			for (int i = 0; i < indexes; ++i)
+			{
+				Index index = store.addIndex(i);
+				for (int j = 0; j < archives; ++j)
+				{
+					byte[] contents = new byte[fileSize];
+					random.nextBytes(contents);
+
+					FSFile file = new FSFile(0);
+					file.setContents(contents);
+					index.addArchive(j).addFile(file);
+				}
+			}
+
+			store.rebuildCrc();
+
+			server.start();
+
+			try (Store store2 = new Store(folder.newFolder());
+				CacheClient client = new CacheClient(store2, HOST, REVISION))
+			{
+				client.connect();
+				client.handshake().get();
+
+				Stopwatch stopwatch = Stopwatch.createStarted();
+				client.download();
+				stopwatch.stop();
+
+				long ms = Math.max(1, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+				logger.info("Downloaded {} archives in {}ms ({} archives/s, {} KiB/s)",
+					indexes * archives, ms,
+					indexes * archives * 1000L / ms,
+					(long) indexes * archives * fileSize * 1000L / ms / 1024);
+			}
+		}
+	}
+
 	private void addInitialFilesToStore(Store store) throws FileNotFoundException
 	{
 		Index index = store.addIndex(0);
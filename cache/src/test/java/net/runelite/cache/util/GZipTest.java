@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.util;
+
+import java.io.IOException;
+import java.util.zip.ZipException;
+import static org.junit.Assert.assertArrayEquals;
+import org.junit.Test;
+
+public class GZipTest
+{
+	private static final byte[] DATA = "testtesttesttesttest".getBytes();
+
+	@Test
+	public void testRoundTrip() throws IOException
+	{
+		byte[] compressed = GZip.compress(DATA);
+		assertArrayEquals(DATA, GZip.decompress(compressed, 0, compressed.length, DATA.length));
+	}
+
+	@Test(expected = ZipException.class)
+	public void testWrongLength() throws IOException
+	{
+		byte[] compressed = GZip.compress(DATA);
+		GZip.decompress(compressed, 0, compressed.length, Integer.MAX_VALUE);
+	}
+
+	@Test(expected = ZipException.class)
+	public void testBadCrc() throws IOException
+	{
+		byte[] compressed = GZip.compress(DATA);
+		compressed[compressed.length - 8] ^= 1;
+		GZip.decompress(compressed, 0, compressed.length, DATA.length);
+	}
+
+	@Test(expected = ZipException.class)
+	public void testTrailingData() throws IOException
+	{
+		byte[] compressed = GZip.compress(DATA);
+		byte[] padded = new byte[compressed.length + 1];
+		System.arraycopy(compressed, 0, padded, 0, compressed.length - 8);
+		System.arraycopy(compressed, compressed.length - 8, padded, compressed.length - 7, 8);
+		GZip.decompress(padded, 0, padded.length, DATA.length);
+	}
+}
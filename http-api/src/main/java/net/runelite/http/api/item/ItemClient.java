@@ -28,6 +28,7 @@ import com.google.gson.JsonParseException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.Arrays;
 import net.runelite.http.api.RuneliteAPI;
 import okhttp3.HttpUrl;
 import okhttp3.Request;
@@ -73,6 +74,52 @@ public class ItemClient
 		}
 	}
 
+	/**
+	 * Look up the prices of several items at once. Items without a
+	 * recent price are not included in the result.
+	 *
+	 * @param itemIds
+	 * @return
+	 * @throws IOException
+	 */
+	public ItemPrice[] lookupItemPrices(int[] itemIds) throws IOException
+	{
+		HttpUrl.Builder urlBuilder = RuneliteAPI.getApiBase().newBuilder()
+			.addPathSegment("item")
+			.addPathSegment("price");
+
+		for (int itemId : itemIds)
+		{
+			urlBuilder.addQueryParameter("id", "" + itemId);
+		}
+
+		HttpUrl url = urlBuilder.build();
+
+		logger.debug("Built URI: {}", url);
+
+		Request request = new Request.Builder()
+			.url(url)
+			.build();
+
+		Response response = RuneliteAPI.CLIENT.newCall(request).execute();
+
+		if (!response.isSuccessful())
+		{
+			logger.debug("Error looking up items {}: {}", Arrays.toString(itemIds), response.message());
+			return null;
+		}
+
+		try (ResponseBody body = response.body())
+		{
+			InputStream in = body.byteStream();
+			return RuneliteAPI.GSON.fromJson(new InputStreamReader(in), ItemPrice[].class);
+		}
+		catch (JsonParseException ex)
+		{
+			throw new IOException(ex);
+		}
+	}
+
 	public SearchResult search(String itemName) throws IOException
 	{
 		HttpUrl url = RuneliteAPI.getApiBase().newBuilder()
@@ -57,6 +57,18 @@ public class XteaClient
 
 		xteaRequest.addKey(xteaKey);
 
+		return submit(xteaRequest);
+	}
+
+	/**
+	 * Submit the keys of several regions in one request
+	 *
+	 * @param xteaRequest
+	 * @return
+	 * @throws IOException
+	 */
+	public Response submit(XteaRequest xteaRequest) throws IOException
+	{
 		String json = RuneliteAPI.GSON.toJson(xteaRequest);
 
 		HttpUrl url = RuneliteAPI.getApiBase().newBuilder()
@@ -264,6 +264,8 @@ public class AccountService
 				.addParameter("uuid", session.getUuid().toString())
 				.executeUpdate();
 		}
+
+		auth.invalidate(session.getUuid());
 	}
 
 	@RequestMapping("/session-check")
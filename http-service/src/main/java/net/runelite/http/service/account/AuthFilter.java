@@ -24,24 +24,61 @@
  */
 package net.runelite.http.service.account;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import java.io.IOException;
 import net.runelite.http.service.account.beans.SessionEntry;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import net.runelite.http.api.RuneliteAPI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.sql2o.Connection;
+import org.sql2o.Query;
 import org.sql2o.Sql2o;
 
 @Service
 public class AuthFilter
 {
+	private static final Logger logger = LoggerFactory.getLogger(AuthFilter.class);
+
+	// how long a session is trusted without checking the database
+	private static final long SESSION_CACHE_MINUTES = 5L;
+	// how often last used times are written to the database
+	private static final long FLUSH_PERIOD_SECONDS = 5L;
+
 	private final Sql2o sql2o;
+	private final Cache<UUID, SessionEntry> sessionCache = CacheBuilder.newBuilder()
+		.maximumSize(65536L)
+		.expireAfterWrite(SESSION_CACHE_MINUTES, TimeUnit.MINUTES)
+		.build();
+	// sessions which were invalidated, kept for longer than sessions are cached
+	private final Cache<UUID, Boolean> revoked = CacheBuilder.newBuilder()
+		.maximumSize(65536L)
+		.expireAfterWrite(SESSION_CACHE_MINUTES + 1, TimeUnit.MINUTES)
+		.build();
+	// last used times not yet written, by session
+	private final ConcurrentMap<UUID, Instant> lastUsed = new ConcurrentHashMap<>();
+
+	private ScheduledExecutorService executor;
 
 	@Autowired
 	public AuthFilter(@Qualifier("Runelite SQL2O") Sql2o sql2o)
@@ -49,6 +86,25 @@ public class AuthFilter
 		this.sql2o = sql2o;
 	}
 
+	@PostConstruct
+	public void start()
+	{
+		executor = Executors.newSingleThreadScheduledExecutor(r ->
+		{
+			Thread thread = new Thread(r, "Session last used writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(this::flushSafely, FLUSH_PERIOD_SECONDS, FLUSH_PERIOD_SECONDS, TimeUnit.SECONDS);
+	}
+
+	@PreDestroy
+	public void stop()
+	{
+		executor.shutdown();
+		flushSafely();
+	}
+
 	public SessionEntry handle(HttpServletRequest request, HttpServletResponse response) throws IOException
 	{
 		String runeliteAuth = request.getHeader(RuneliteAPI.RUNELITE_AUTH);
@@ -60,29 +116,145 @@ public class AuthFilter
 
 		UUID uuid = UUID.fromString(runeliteAuth);
 
-		try (Connection con = sql2o.open())
+		SessionEntry cached = getSession(uuid);
+		if (cached == null)
 		{
-			SessionEntry sessionEntry = con.createQuery("select user, uuid, created from sessions where uuid = :uuid")
-				.addParameter("uuid", uuid.toString())
-				.executeAndFetchFirst(SessionEntry.class);
+			response.sendError(401, "Access denied");
+			return null;
+		}
+
+		Instant now = Instant.now();
+		lastUsed.put(uuid, now);
 
-			if (sessionEntry == null)
+		// the cached entry is shared between requests
+		SessionEntry sessionEntry = new SessionEntry();
+		sessionEntry.setUser(cached.getUser());
+		sessionEntry.setUuid(cached.getUuid());
+		sessionEntry.setCreated(cached.getCreated());
+		sessionEntry.setLastUsed(now);
+		return sessionEntry;
+	}
+
+	/**
+	 * Get a session from the cache, or the database if it isn't cached
+	 *
+	 * @param uuid
+	 * @return the session, or null if it doesn't exist or was invalidated
+	 */
+	private SessionEntry getSession(UUID uuid)
+	{
+		if (revoked.getIfPresent(uuid) != null)
+		{
+			return null;
+		}
+
+		SessionEntry session;
+		try
+		{
+			session = sessionCache.get(uuid, () ->
+			{
+				try (Connection con = sql2o.open())
+				{
+					SessionEntry entry = con.createQuery("select user, uuid, created from sessions where uuid = :uuid")
+						.addParameter("uuid", uuid.toString())
+						.executeAndFetchFirst(SessionEntry.class);
+					if (entry == null)
+					{
+						throw new SessionNotFoundException();
+					}
+					return entry;
+				}
+			});
+		}
+		catch (ExecutionException | UncheckedExecutionException ex)
+		{
+			Throwable cause = ex.getCause();
+			if (cause instanceof SessionNotFoundException)
 			{
-				response.sendError(401, "Access denied");
 				return null;
 			}
+			if (cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+			throw new RuntimeException(cause);
+		}
 
-			Instant now = Instant.now();
+		// a session invalidated while it was read from the database was
+		// still put into the cache
+		if (revoked.getIfPresent(uuid) != null)
+		{
+			sessionCache.invalidate(uuid);
+			return null;
+		}
+
+		return session;
+	}
+
+	/**
+	 * Forget a session, eg. after it has been deleted
+	 *
+	 * @param uuid
+	 */
+	public void invalidate(UUID uuid)
+	{
+		// mark the session first, so a lookup of it running now can't
+		// leave it cached
+		revoked.put(uuid, Boolean.TRUE);
+		sessionCache.invalidate(uuid);
+		lastUsed.remove(uuid);
+	}
+
+	private void flushSafely()
+	{
+		try
+		{
+			flush();
+		}
+		catch (RuntimeException ex)
+		{
+			logger.warn("unable to update session last used times", ex);
+		}
+	}
 
-			con.createQuery("update sessions set last_used = :last_used where uuid = :uuid")
-				.addParameter("last_used", Timestamp.from(now))
-				.addParameter("uuid", uuid.toString())
-				.executeUpdate();
+	/**
+	 * Write the pending last used times in one batch
+	 */
+	void flush()
+	{
+		if (lastUsed.isEmpty())
+		{
+			return;
+		}
+
+		List<Map.Entry<UUID, Instant>> entries = new ArrayList<>(lastUsed.entrySet());
+
+		try (Connection con = sql2o.beginTransaction())
+		{
+			Query query = con.createQuery("update sessions set last_used = :last_used where uuid = :uuid");
+
+			for (Map.Entry<UUID, Instant> entry : entries)
+			{
+				query
+					.addParameter("last_used", Timestamp.from(entry.getValue()))
+					.addParameter("uuid", entry.getKey().toString())
+					.addToBatch();
+			}
 
-			sessionEntry.setLastUsed(now);
+			query.executeBatch();
+			con.commit();
+		}
 
-			return sessionEntry;
+		// keep times which were updated again while writing
+		for (Map.Entry<UUID, Instant> entry : entries)
+		{
+			lastUsed.remove(entry.getKey(), entry.getValue());
 		}
+
+		logger.debug("Updated last used time of {} sessions", entries.size());
 	}
 
+	private static class SessionNotFoundException extends RuntimeException
+	{
+	}
 }
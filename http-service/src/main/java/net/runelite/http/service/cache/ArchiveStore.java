@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.cache;
+
+import com.google.common.io.BaseEncoding;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Storage for archive data, addressed by the sha256 hash of the data
+ */
+public interface ArchiveStore
+{
+	/**
+	 * Get the data of an archive
+	 *
+	 * @param hash
+	 * @return the data, or null if there is no archive with this hash
+	 * @throws IOException
+	 */
+	byte[] get(byte[] hash) throws IOException;
+
+	/**
+	 * Check whether an archive exists without reading its data
+	 *
+	 * @param hash
+	 * @return
+	 * @throws IOException
+	 */
+	boolean exists(byte[] hash) throws IOException;
+
+	void put(byte[] hash, byte[] data) throws IOException;
+
+	/**
+	 * Write the data of an archive to a channel
+	 *
+	 * @param hash
+	 * @param channel
+	 * @return the number of bytes written, or -1 if there is no archive
+	 * with this hash, in which case nothing is written
+	 * @throws IOException
+	 */
+	default long transferTo(byte[] hash, WritableByteChannel channel) throws IOException
+	{
+		byte[] data = get(hash);
+		if (data == null)
+		{
+			return -1L;
+		}
+
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+		return data.length;
+	}
+
+	/**
+	 * Get the path of an archive within the store, which is the hex
+	 * encoded hash split after the first byte
+	 *
+	 * @param hash
+	 * @return
+	 */
+	static String path(byte[] hash)
+	{
+		String hashStr = BaseEncoding.base16().encode(hash);
+		return new StringBuilder()
+			.append(hashStr.substring(0, 2))
+			.append('/')
+			.append(hashStr.substring(2))
+			.toString();
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.cache;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.runelite.cache.client.DownloadWatcher;
+import net.runelite.cache.fs.Archive;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Uploads downloaded archives to the archive store on a fixed number of
+ * threads. Downloads complete on the cache client's event loop, so they
+ * are only queued here and never wait for an upload.
+ */
+public class ArchiveUploader implements DownloadWatcher, AutoCloseable
+{
+	private static final Logger logger = LoggerFactory.getLogger(ArchiveUploader.class);
+
+	private final ArchiveStore archiveStore;
+	private final ExecutorService executor;
+	private final AtomicInteger pending = new AtomicInteger();
+
+	public ArchiveUploader(ArchiveStore archiveStore, int threads)
+	{
+		this.archiveStore = archiveStore;
+		this.executor = Executors.newFixedThreadPool(threads);
+	}
+
+	@Override
+	public void downloadComplete(Archive archive)
+	{
+		pending.incrementAndGet();
+
+		try
+		{
+			executor.execute(() ->
+			{
+				try
+				{
+					new CacheUploader(archiveStore, archive).run();
+				}
+				finally
+				{
+					pending.decrementAndGet();
+				}
+			});
+		}
+		catch (RuntimeException ex)
+		{
+			pending.decrementAndGet();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Wait for all pending uploads to finish
+	 *
+	 * @throws InterruptedException
+	 */
+	public void finish() throws InterruptedException
+	{
+		executor.shutdown();
+		while (!executor.awaitTermination(1, TimeUnit.SECONDS))
+		{
+			logger.debug("Waiting for {} uploads...", pending.get());
+		}
+	}
+
+	/**
+	 * Stop the upload threads, abandoning any uploads which have not
+	 * finished
+	 */
+	@Override
+	public void close()
+	{
+		executor.shutdownNow();
+	}
+}
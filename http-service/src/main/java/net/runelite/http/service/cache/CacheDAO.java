@@ -33,13 +33,15 @@ import net.runelite.http.service.cache.beans.FileEntry;
 import net.runelite.http.service.cache.beans.IndexEntry;
 import org.sql2o.Connection;
 import org.sql2o.Query;
+import org.sql2o.ResultSetIterable;
 
 public class CacheDAO
 {
+	// number of rows inserted per batch
+	private static final int BATCH_SIZE = 1000;
+
 	// cache prepared statements for high volume queries
-	private Query associateArchive;
-	private Query findArchive, insertArchive;
-	private Query associateFile;
+	private Query findArchive;
 	private Query findFilesForArchive;
 
 	public List<CacheEntry> listCaches(Connection con)
@@ -148,6 +150,26 @@ public class CacheDAO
 			.executeAndFetch(FileEntry.class);
 	}
 
+	/**
+	 * Find the files of all archives of an index, ordered by archive.
+	 * The archive id of the returned entries is the id of the archive
+	 * row, not the archive id within the index. Results are streamed
+	 * and must be closed.
+	 *
+	 * @param con
+	 * @param indexEntry
+	 * @return
+	 */
+	public ResultSetIterable<FileEntry> findFilesForIndex(Connection con, IndexEntry indexEntry)
+	{
+		return con.createQuery("select file.id, file.archive as archiveId, file.fileId, file.nameHash from index_archive "
+			+ "join file on file.archive = index_archive.archive "
+			+ "where index_archive.index = :id "
+			+ "order by file.archive, file.id")
+			.addParameter("id", indexEntry.getId())
+			.executeAndFetchLazy(FileEntry.class);
+	}
+
 	public CacheEntry createCache(Connection con, int revision, Instant date)
 	{
 		int cacheId = con.createQuery("insert into cache (revision, date) values (:revision, :date)")
@@ -191,22 +213,8 @@ public class CacheDAO
 			.executeUpdate();
 	}
 
-	public IndexEntry findOrCreateIndex(Connection con, CacheEntry cache, int indexId, int crc, int revision)
+	public IndexEntry createIndex(Connection con, int indexId, int crc, int revision)
 	{
-		IndexEntry entry = con.createQuery("select id, indexId, crc, revision from `index`"
-			+ "where indexId = :indexId "
-			+ "and crc = :crc "
-			+ "and revision = :revision")
-			.addParameter("indexId", indexId)
-			.addParameter("crc", crc)
-			.addParameter("revision", revision)
-			.executeAndFetchFirst(IndexEntry.class);
-
-		if (entry != null)
-		{
-			return entry;
-		}
-
 		int id = con.createQuery("insert into `index` (indexId, crc, revision) values (:indexId, :crc, :revision)")
 			.addParameter("indexId", indexId)
 			.addParameter("crc", crc)
@@ -214,7 +222,7 @@ public class CacheDAO
 			.executeUpdate()
 			.getKey(int.class);
 
-		entry = new IndexEntry();
+		IndexEntry entry = new IndexEntry();
 		entry.setId(id);
 		entry.setIndexId(indexId);
 		entry.setCrc(crc);
@@ -222,16 +230,22 @@ public class CacheDAO
 		return entry;
 	}
 
-	public void associateArchiveToIndex(Connection con, ArchiveEntry archive, IndexEntry index)
+	public void associateArchivesToIndex(Connection con, List<ArchiveEntry> archives, IndexEntry index)
 	{
-		if (associateArchive == null)
+		Query query = con.createQuery("insert into index_archive (`index`, archive) values (:index, :archive)");
+
+		for (int i = 0; i < archives.size(); ++i)
 		{
-			associateArchive = con.createQuery("insert into index_archive (`index`, archive) values (:index, :archive)");
+			query
+				.addParameter("index", index.getId())
+				.addParameter("archive", archives.get(i).getId())
+				.addToBatch();
+
+			if ((i + 1) % BATCH_SIZE == 0 || i + 1 == archives.size())
+			{
+				query.executeBatch();
+			}
 		}
-		associateArchive
-			.addParameter("index", index.getId())
-			.addParameter("archive", archive.getId())
-			.executeUpdate();
 	}
 
 	public ArchiveEntry findArchive(Connection con, IndexEntry index,
@@ -260,44 +274,71 @@ public class CacheDAO
 		return entry;
 	}
 
-	public ArchiveEntry createArchive(Connection con, IndexEntry index,
-		int archiveId, int nameHash, int crc, int revision, byte[] hash)
+	/**
+	 * Insert new archives, setting the id of each entry
+	 *
+	 * @param con
+	 * @param archives
+	 */
+	public void createArchives(Connection con, List<ArchiveEntry> archives)
 	{
-		if (insertArchive == null)
+		Query query = con.createQuery("insert into archive (archiveId, nameHash, crc, revision, hash) values "
+			+ "(:archiveId, :nameHash, :crc, :revision, :hash)", true);
+
+		for (int start = 0; start < archives.size(); start += BATCH_SIZE)
 		{
-			insertArchive = con.createQuery("insert into archive (archiveId, nameHash, crc, revision, hash) values "
-				+ "(:archiveId, :nameHash, :crc, :revision, :hash)");
-		}
+			List<ArchiveEntry> batch = archives.subList(start, Math.min(start + BATCH_SIZE, archives.size()));
 
-		int id = insertArchive
-			.addParameter("archiveId", archiveId)
-			.addParameter("nameHash", nameHash)
-			.addParameter("crc", crc)
-			.addParameter("revision", revision)
-			.addParameter("hash", hash)
-			.executeUpdate()
-			.getKey(int.class);
+			for (ArchiveEntry entry : batch)
+			{
+				query
+					.addParameter("archiveId", entry.getArchiveId())
+					.addParameter("nameHash", entry.getNameHash())
+					.addParameter("crc", entry.getCrc())
+					.addParameter("revision", entry.getRevision())
+					.addParameter("hash", entry.getHash())
+					.addToBatch();
+			}
 
-		ArchiveEntry entry = new ArchiveEntry();
-		entry.setId(id);
-		entry.setArchiveId(archiveId);
-		entry.setNameHash(nameHash);
-		entry.setCrc(crc);
-		entry.setRevision(revision);
-		entry.setHash(hash);
-		return entry;
+			query.executeBatch();
+
+			List<Integer> keys = con.getKeys(Integer.class);
+			if (keys.size() != batch.size())
+			{
+				throw new IllegalStateException("expected " + batch.size() + " keys, got " + keys.size());
+			}
+
+			for (int i = 0; i < batch.size(); ++i)
+			{
+				batch.get(i).setId(keys.get(i));
+			}
+		}
 	}
 
-	public void associateFileToArchive(Connection con, ArchiveEntry archive, int fileId, int nameHash)
+	/**
+	 * Insert files. The archive id of each entry is the id of the
+	 * archive row.
+	 *
+	 * @param con
+	 * @param files
+	 */
+	public void associateFilesToArchives(Connection con, List<FileEntry> files)
 	{
-		if (associateFile == null)
+		Query query = con.createQuery("insert into file (archive, fileId, nameHash) values (:archive, :fileId, :nameHash)");
+
+		for (int i = 0; i < files.size(); ++i)
 		{
-			associateFile = con.createQuery("insert into file (archive, fileId, nameHash) values (:archive, :fileId, :nameHash)");
+			FileEntry file = files.get(i);
+			query
+				.addParameter("archive", file.getArchiveId())
+				.addParameter("fileId", file.getFileId())
+				.addParameter("nameHash", file.getNameHash())
+				.addToBatch();
+
+			if ((i + 1) % BATCH_SIZE == 0 || i + 1 == files.size())
+			{
+				query.executeBatch();
+			}
 		}
-		associateFile
-			.addParameter("archive", archive.getId())
-			.addParameter("fileId", fileId)
-			.addParameter("nameHash", nameHash)
-			.executeUpdate();
 	}
 }
@@ -24,23 +24,19 @@
  */
 package net.runelite.http.service.cache;
 
-import com.google.common.io.BaseEncoding;
-import com.google.common.io.ByteStreams;
+import com.google.common.cache.CacheStats;
 import io.minio.MinioClient;
-import io.minio.errors.ErrorResponseException;
-import io.minio.errors.InsufficientDataException;
-import io.minio.errors.InternalException;
-import io.minio.errors.InvalidArgumentException;
-import io.minio.errors.InvalidBucketNameException;
 import io.minio.errors.InvalidEndpointException;
 import io.minio.errors.InvalidPortException;
-import io.minio.errors.NoResponseException;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.nio.channels.Channels;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
+import javax.servlet.http.HttpServletResponse;
 import net.runelite.cache.ConfigType;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.definitions.ItemDefinition;
@@ -67,12 +63,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.sql2o.Connection;
 import org.sql2o.Sql2o;
-import org.xmlpull.v1.XmlPullParserException;
 
 @RestController
 @RequestMapping("/cache")
@@ -80,29 +76,62 @@ public class CacheService
 {
 	private static final Logger logger = LoggerFactory.getLogger(CacheService.class);
 
+	// how often to check for a new cache, besides being told by the updater
+	private static final long MOST_RECENT_CACHE_REFRESH = 60_000L;
+
 	@Autowired
 	@Qualifier("Runelite Cache SQL2O")
 	private Sql2o sql2o;
 
-	@Value("${minio.bucket}")
-	private String minioBucket;
-	
-	private final MinioClient minioClient;
+	private final ArchiveStore archiveStore;
+	private final CachingArchiveStore archiveCache;
+
+	private final DefinitionCache definitionCache = new DefinitionCache();
+	private volatile MostRecentCache mostRecent;
 
+	/**
+	 * Archives are stored in Minio, or in a local directory if
+	 * cache.store.path is set. The most recently read archives are kept
+	 * in memory, up to cache.store.memory bytes.
+	 */
 	@Autowired
 	public CacheService(
-		@Value("${minio.endpoint}") String minioEndpoint,
-		@Value("${minio.accesskey}") String accessKey,
-		@Value("${minio.secretkey}") String secretKey
+		@Value("${minio.endpoint:}") String minioEndpoint,
+		@Value("${minio.accesskey:}") String accessKey,
+		@Value("${minio.secretkey:}") String secretKey,
+		@Value("${minio.bucket:}") String minioBucket,
+		@Value("${cache.store.path:}") String storePath,
+		@Value("${cache.store.memory:67108864}") long storeMemory
 	) throws InvalidEndpointException, InvalidPortException
 	{
-		this.minioClient = new MinioClient(minioEndpoint, accessKey, secretKey);
+		ArchiveStore store;
+		if (!storePath.isEmpty())
+		{
+			logger.info("Using local archive store {}", storePath);
+			store = new LocalArchiveStore(new File(storePath));
+		}
+		else
+		{
+			MinioClient minioClient = new MinioClient(minioEndpoint, accessKey, secretKey);
+			store = new MinioArchiveStore(minioClient, minioBucket);
+		}
+
+		if (storeMemory > 0L)
+		{
+			archiveCache = new CachingArchiveStore(store, storeMemory);
+			archiveStore = archiveCache;
+		}
+		else
+		{
+			archiveCache = null;
+			archiveStore = store;
+		}
 	}
 
 	@Bean
-	public MinioClient minioClient()
+	public ArchiveStore archiveStore()
 	{
-		return minioClient;
+		return archiveStore;
 	}
 
 	/**
@@ -112,20 +141,11 @@ public class CacheService
 	 */
 	public byte[] getArchive(ArchiveEntry archiveEntry)
 	{
-		String hashStr = BaseEncoding.base16().encode(archiveEntry.getHash());
-		String path = new StringBuilder()
-			.append(hashStr.substring(0, 2))
-			.append('/')
-			.append(hashStr.substring(2))
-			.toString();
-
-		try (InputStream in = minioClient.getObject(minioBucket, path))
+		try
 		{
-			return ByteStreams.toByteArray(in);
+			return archiveStore.get(archiveEntry.getHash());
 		}
-		catch (InvalidBucketNameException | NoSuchAlgorithmException | InsufficientDataException
-			| IOException | InvalidKeyException | NoResponseException | XmlPullParserException
-			| ErrorResponseException | InternalException | InvalidArgumentException ex)
+		catch (IOException ex)
 		{
 			logger.warn(null, ex);
 			return null;
@@ -263,11 +283,12 @@ public class CacheService
 	}
 
 	@RequestMapping("{cacheId}/{indexId}/{archiveId}/data")
-	public byte[] getArchiveData(
+	public void getArchiveData(
+		HttpServletResponse response,
 		@PathVariable int cacheId,
 		@PathVariable int indexId,
 		@PathVariable int archiveId
-	)
+	) throws IOException
 	{
 		ArchiveEntry archiveEntry;
 		try (Connection con = sql2o.open())
@@ -286,41 +307,23 @@ public class CacheService
 			}
 
 			archiveEntry = cacheDao.findArchiveForIndex(con, indexEntry, archiveId);
-		}
-
-		return getArchive(archiveEntry);
-	}
-
-	@RequestMapping("item/{itemId}")
-	public ItemDefinition getItem(@PathVariable int itemId) throws IOException
-	{
-		ArchiveEntry archiveEntry;
-		try (Connection con = sql2o.open())
-		{
-			CacheDAO cacheDao = new CacheDAO();
-
-			CacheEntry cache = cacheDao.findMostRecent(con);
-			archiveEntry = cacheDao.findArchiveById(con, cache, IndexType.CONFIGS, ConfigType.ITEM.getId());
 			if (archiveEntry == null)
 			{
 				throw new NotFoundException();
 			}
 		}
 
-		ArchiveFiles archiveFiles = getArchiveFiles(IndexType.CONFIGS, ConfigType.ITEM, archiveEntry);
-		if (archiveFiles == null)
-		{
-			throw new NotFoundException();
-		}
-
-		FSFile file = archiveFiles.findFile(itemId);
-		if (file == null)
+		response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+		if (archiveStore.transferTo(archiveEntry.getHash(), Channels.newChannel(response.getOutputStream())) == -1L)
 		{
 			throw new NotFoundException();
 		}
+	}
 
-		ItemDefinition itemdef = new ItemLoader().load(itemId, file.getContents());
-		return itemdef;
+	@RequestMapping("item/{itemId}")
+	public ItemDefinition getItem(@PathVariable int itemId) throws IOException
+	{
+		return getDefinition(ConfigType.ITEM, itemId, new ItemLoader()::load);
 	}
 
 	@RequestMapping("object/{objectId}")
@@ -328,66 +331,125 @@ public class CacheService
 		@PathVariable int objectId
 	) throws IOException
 	{
-		ArchiveEntry archiveEntry;
-		try (Connection con = sql2o.open())
+		return getDefinition(ConfigType.OBJECT, objectId, new ObjectLoader()::load);
+	}
+
+	@RequestMapping("npc/{npcId}")
+	public NpcDefinition getNpc(
+		@PathVariable int npcId
+	) throws IOException
+	{
+		return getDefinition(ConfigType.NPC, npcId, new NpcLoader()::load);
+	}
+
+	@RequestMapping("admin/stats")
+	public Map<String, Long> getDefinitionCacheStats()
+	{
+		CacheStats stats = definitionCache.getArchiveStats();
+
+		Map<String, Long> result = new LinkedHashMap<>();
+		result.put("archives", definitionCache.size());
+		result.put("archiveHits", stats.hitCount());
+		result.put("archiveMisses", stats.missCount());
+		result.put("archiveEvictions", stats.evictionCount());
+		result.put("definitionHits", definitionCache.getDefinitionHits());
+		result.put("definitionMisses", definitionCache.getDefinitionMisses());
+
+		if (archiveCache != null)
 		{
-			CacheDAO cacheDao = new CacheDAO();
+			CacheStats archiveStats = archiveCache.getStats();
+			result.put("storeArchives", archiveCache.size());
+			result.put("storeHits", archiveStats.hitCount());
+			result.put("storeMisses", archiveStats.missCount());
+			result.put("storeEvictions", archiveStats.evictionCount());
+		}
+		return result;
+	}
 
-			CacheEntry cache = cacheDao.findMostRecent(con);
-			archiveEntry = cacheDao.findArchiveById(con, cache, IndexType.CONFIGS, ConfigType.OBJECT.getId());
-			if (archiveEntry == null)
+	private <T> T getDefinition(ConfigType type, int id, BiFunction<Integer, byte[], T> loader) throws IOException
+	{
+		CacheEntry cache = findMostRecent();
+
+		T definition = definitionCache.getDefinition(cache.getId(), type, id, () ->
+		{
+			ArchiveEntry archiveEntry;
+			try (Connection con = sql2o.open())
 			{
-				throw new NotFoundException();
+				CacheDAO cacheDao = new CacheDAO();
+				archiveEntry = cacheDao.findArchiveById(con, cache, IndexType.CONFIGS, type.getId());
 			}
-		}
 
-		ArchiveFiles archiveFiles = getArchiveFiles(IndexType.CONFIGS, ConfigType.OBJECT, archiveEntry);
-		if (archiveFiles == null)
-		{
-			throw new NotFoundException();
-		}
+			return archiveEntry != null
+				? getArchiveFiles(IndexType.CONFIGS, type, archiveEntry)
+				: null;
+		}, loader);
 
-		FSFile file = archiveFiles.findFile(objectId);
-		if (file == null)
+		if (definition == null)
 		{
 			throw new NotFoundException();
 		}
 
-		ObjectDefinition objectdef = new ObjectLoader().load(objectId, file.getContents());
-		return objectdef;
+		return definition;
 	}
 
-	@RequestMapping("npc/{npcId}")
-	public NpcDefinition getNpc(
-		@PathVariable int npcId
-	) throws IOException
+	/**
+	 * Get the most recent cache. It is looked up again once it has been
+	 * cached for a while, or when the cache updater replaces it.
+	 *
+	 * @return
+	 */
+	public CacheEntry findMostRecent()
 	{
-		ArchiveEntry archiveEntry;
+		MostRecentCache recent = mostRecent;
+		if (recent != null && System.currentTimeMillis() - recent.time < MOST_RECENT_CACHE_REFRESH)
+		{
+			return recent.cache;
+		}
+
+		CacheEntry cache;
 		try (Connection con = sql2o.open())
 		{
 			CacheDAO cacheDao = new CacheDAO();
-
-			CacheEntry cache = cacheDao.findMostRecent(con);
-			archiveEntry = cacheDao.findArchiveById(con, cache, IndexType.CONFIGS, ConfigType.NPC.getId());
-			if (archiveEntry == null)
-			{
-				throw new NotFoundException();
-			}
+			cache = cacheDao.findMostRecent(con);
 		}
 
-		ArchiveFiles archiveFiles = getArchiveFiles(IndexType.CONFIGS, ConfigType.NPC, archiveEntry);
-		if (archiveFiles == null)
+		if (cache == null)
 		{
 			throw new NotFoundException();
 		}
 
-		FSFile file = archiveFiles.findFile(npcId);
-		if (file == null)
+		setMostRecent(cache);
+		return cache;
+	}
+
+	/**
+	 * Set the most recent cache, which definitions are served from.
+	 * Definitions of other caches are dropped. Requests already using the
+	 * previous cache finish with it.
+	 *
+	 * @param cache
+	 */
+	public void setMostRecent(CacheEntry cache)
+	{
+		MostRecentCache previous = mostRecent;
+		mostRecent = new MostRecentCache(cache, System.currentTimeMillis());
+
+		if (previous == null || previous.cache.getId() != cache.getId())
 		{
-			throw new NotFoundException();
+			logger.debug("Most recent cache is now {}", cache.getId());
+			definitionCache.retainCache(cache.getId());
 		}
+	}
+
+	private static class MostRecentCache
+	{
+		private final CacheEntry cache;
+		private final long time;
 
-		NpcDefinition npcdef = new NpcLoader().load(npcId, file.getContents());
-		return npcdef;
+		MostRecentCache(CacheEntry cache, long time)
+		{
+			this.cache = cache;
+			this.time = time;
+		}
 	}
 }
@@ -26,7 +26,11 @@ package net.runelite.http.service.cache;
 
 import com.google.common.hash.Hashing;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import net.runelite.cache.fs.Archive;
 import net.runelite.cache.fs.FSFile;
 import net.runelite.cache.fs.Index;
@@ -36,13 +40,20 @@ import net.runelite.http.service.cache.beans.ArchiveEntry;
 import net.runelite.http.service.cache.beans.CacheEntry;
 import net.runelite.http.service.cache.beans.FileEntry;
 import net.runelite.http.service.cache.beans.IndexEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sql2o.Connection;
+import org.sql2o.ResultSetIterable;
 
 public class CacheStorage implements Storage
 {
+	private static final Logger logger = LoggerFactory.getLogger(CacheStorage.class);
+
 	private CacheEntry cacheEntry;
 	private final CacheDAO cacheDao;
 	private final Connection con;
+	// archives read by load, by index id and archive id
+	private final Map<Integer, Map<Integer, ArchiveEntry>> loadedArchives = new HashMap<>();
 
 	public CacheStorage(CacheEntry cacheEntry, CacheDAO cacheDao, Connection con)
 	{
@@ -71,6 +82,13 @@ public class CacheStorage implements Storage
 	{
 	}
 
+	/**
+	 * Load the indexes, archives and files of the cache. Archives and
+	 * files are each read with a single query per index.
+	 *
+	 * @param store
+	 * @throws IOException
+	 */
 	@Override
 	public void load(Store store) throws IOException
 	{
@@ -81,17 +99,30 @@ public class CacheStorage implements Storage
 			index.setCrc(indexEntry.getCrc());
 			index.setRevision(indexEntry.getRevision());
 
-			List<ArchiveEntry> archives = cacheDao.findArchivesForIndex(con, indexEntry);
-			for (ArchiveEntry archiveEntry : archives)
+			List<ArchiveEntry> archiveEntries = cacheDao.findArchivesForIndex(con, indexEntry);
+			Map<Integer, Archive> archives = new HashMap<>(archiveEntries.size());
+			Map<Integer, ArchiveEntry> loaded = new HashMap<>(archiveEntries.size());
+
+			for (ArchiveEntry archiveEntry : archiveEntries)
 			{
 				Archive archive = index.addArchive(archiveEntry.getArchiveId());
 				archive.setNameHash(archiveEntry.getNameHash());
 				archive.setCrc(archiveEntry.getCrc());
 				archive.setRevision(archiveEntry.getRevision());
 
-				List<FileEntry> files = cacheDao.findFilesForArchive(con, archiveEntry);
+				archives.put(archiveEntry.getId(), archive);
+				loaded.put(archiveEntry.getArchiveId(), archiveEntry);
+			}
+
+			loadedArchives.put(indexEntry.getIndexId(), loaded);
+
+			try (ResultSetIterable<FileEntry> files = cacheDao.findFilesForIndex(con, indexEntry))
+			{
 				for (FileEntry fileEntry : files)
 				{
+					Archive archive = archives.get(fileEntry.getArchiveId());
+					assert archive != null;
+
 					FSFile file = new FSFile(fileEntry.getFileId());
 					file.setNameHash(fileEntry.getNameHash());
 					archive.addFile(file);
@@ -100,32 +131,86 @@ public class CacheStorage implements Storage
 		}
 	}
 
+	/**
+	 * Save the store to the cache. Indexes which are unchanged are
+	 * associated as they are. For changed indexes, archives which are
+	 * unchanged since they were loaded are reused without a lookup, and
+	 * new archives and their files are inserted in batches.
+	 *
+	 * @param store
+	 * @throws IOException
+	 */
 	@Override
 	public void save(Store store) throws IOException
 	{
 		for (Index index : store.getIndexes())
 		{
-			IndexEntry entry = cacheDao.findOrCreateIndex(con, cacheEntry, index.getId(), index.getCrc(), index.getRevision());
+			IndexEntry entry = cacheDao.findIndex(con, index.getId(), index.getCrc(), index.getRevision());
+			if (entry != null)
+			{
+				// the index data covers the crc and revision of every
+				// archive, so its archives are already stored
+				cacheDao.associateIndexToCache(con, cacheEntry, entry);
+				continue;
+			}
+
+			entry = cacheDao.createIndex(con, index.getId(), index.getCrc(), index.getRevision());
 			// this assumes nothing is associated to the cache yet
 			cacheDao.associateIndexToCache(con, cacheEntry, entry);
 
+			Map<Integer, ArchiveEntry> loaded = loadedArchives.getOrDefault(index.getId(), Collections.emptyMap());
+			List<ArchiveEntry> archiveEntries = new ArrayList<>(index.getArchives().size());
+			List<ArchiveEntry> newEntries = new ArrayList<>();
+			List<Archive> newArchives = new ArrayList<>();
+
 			for (Archive archive : index.getArchives())
 			{
-				ArchiveEntry archiveEntry = cacheDao.findArchive(con, entry, archive.getArchiveId(),
-					archive.getNameHash(), archive.getCrc(), archive.getRevision());
+				ArchiveEntry archiveEntry = loaded.get(archive.getArchiveId());
+				if (archiveEntry == null
+					|| archiveEntry.getNameHash() != archive.getNameHash()
+					|| archiveEntry.getCrc() != archive.getCrc()
+					|| archiveEntry.getRevision() != archive.getRevision())
+				{
+					archiveEntry = cacheDao.findArchive(con, entry, archive.getArchiveId(),
+						archive.getNameHash(), archive.getCrc(), archive.getRevision());
+				}
+
 				if (archiveEntry == null)
 				{
-					byte[] hash = Hashing.sha256().hashBytes(archive.getData()).asBytes();
-					archiveEntry = cacheDao.createArchive(con, entry, archive.getArchiveId(),
-						archive.getNameHash(), archive.getCrc(), archive.getRevision(), hash);
-
-					for (FSFile file : archive.getFiles())
-					{
-						cacheDao.associateFileToArchive(con, archiveEntry, file.getFileId(), file.getNameHash());
-					}
+					archiveEntry = new ArchiveEntry();
+					archiveEntry.setArchiveId(archive.getArchiveId());
+					archiveEntry.setNameHash(archive.getNameHash());
+					archiveEntry.setCrc(archive.getCrc());
+					archiveEntry.setRevision(archive.getRevision());
+					archiveEntry.setHash(Hashing.sha256().hashBytes(archive.getData()).asBytes());
+
+					newEntries.add(archiveEntry);
+					newArchives.add(archive);
+				}
+
+				archiveEntries.add(archiveEntry);
+			}
+
+			cacheDao.createArchives(con, newEntries);
+
+			List<FileEntry> files = new ArrayList<>();
+			for (int i = 0; i < newArchives.size(); ++i)
+			{
+				ArchiveEntry archiveEntry = newEntries.get(i);
+				for (FSFile file : newArchives.get(i).getFiles())
+				{
+					FileEntry fileEntry = new FileEntry();
+					fileEntry.setArchiveId(archiveEntry.getId());
+					fileEntry.setFileId(file.getFileId());
+					fileEntry.setNameHash(file.getNameHash());
+					files.add(fileEntry);
 				}
-				cacheDao.associateArchiveToIndex(con, archiveEntry, entry);
 			}
+
+			cacheDao.associateFilesToArchives(con, files);
+			cacheDao.associateArchivesToIndex(con, archiveEntries, entry);
+
+			logger.debug("Saved index {} with {} new archives", index.getId(), newEntries.size());
 		}
 	}
 
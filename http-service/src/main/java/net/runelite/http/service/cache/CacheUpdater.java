@@ -24,15 +24,9 @@
  */
 package net.runelite.http.service.cache;
 
-import io.minio.MinioClient;
-import io.minio.errors.InvalidEndpointException;
-import io.minio.errors.InvalidPortException;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 import net.runelite.cache.client.CacheClient;
 import net.runelite.cache.client.IndexInfo;
 import net.runelite.cache.fs.Archive;
@@ -45,7 +39,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.sql2o.Connection;
@@ -57,24 +50,26 @@ public class CacheUpdater
 {
 	private static final Logger logger = LoggerFactory.getLogger(CacheUpdater.class);
 
+	private static final int UPLOAD_THREADS = 8;
+
 	private final Sql2o sql2o;
-	private final MinioClient minioClient;
-	
-	@Value("${minio.bucket}")
-	private String minioBucket;
+	private final ArchiveStore archiveStore;
+	private final CacheService cacheService;
 
 	@Autowired
 	public CacheUpdater(
 		@Qualifier("Runelite Cache SQL2O") Sql2o sql2o,
-		MinioClient minioClient
+		ArchiveStore archiveStore,
+		CacheService cacheService
 	)
 	{
 		this.sql2o = sql2o;
-		this.minioClient = minioClient;
+		this.archiveStore = archiveStore;
+		this.cacheService = cacheService;
 	}
 
 	@RequestMapping("/update")
-	public void check() throws IOException, InvalidEndpointException, InvalidPortException, InterruptedException
+	public void check() throws IOException, InterruptedException
 	{
 		int rsVersion = RuneliteAPI.getRsVersion();
 
@@ -93,44 +88,45 @@ public class CacheUpdater
 			Store store = new Store(storage);
 			store.load();
 
-			ExecutorService executor = Executors.newSingleThreadExecutor();
+			// the upload threads are stopped however the update ends
+			try (ArchiveUploader uploader = new ArchiveUploader(archiveStore, UPLOAD_THREADS))
+			{
+				CacheClient client = new CacheClient(store, rsVersion, uploader);
 
-			CacheClient client = new CacheClient(store, rsVersion,
-				(Archive archive) -> executor.submit(new CacheUploader(minioClient, minioBucket, archive)));
+				client.connect();
+				HandshakeResponseType result = client.handshake().join();
 
-			client.connect();
-			HandshakeResponseType result = client.handshake().join();
+				if (result != HandshakeResponseType.RESPONSE_OK)
+				{
+					throw new OutOfDateException();
+				}
 
-			if (result != HandshakeResponseType.RESPONSE_OK)
-			{
-				throw new OutOfDateException();
-			}
+				List<IndexInfo> indexes = client.requestIndexes();
+				List<IndexEntry> entries = cacheDao.findIndexesForCache(con, cache);
 
-			List<IndexInfo> indexes = client.requestIndexes();
-			List<IndexEntry> entries = cacheDao.findIndexesForCache(con, cache);
+				if (!checkOutOfDate(indexes, entries))
+				{
+					return;
+				}
 
-			if (!checkOutOfDate(indexes, entries))
-			{
-				return;
-			}
+				List<Archive> archives = client.download();
+				logger.info("Downloaded {} changed archives", archives.size());
 
-			client.download();
+				CacheEntry newCache = created ? cache : cacheDao.createCache(con, rsVersion, Instant.now());
 
-			CacheEntry newCache = created ? cache : cacheDao.createCache(con, rsVersion, Instant.now());
+				storage.setCacheEntry(newCache);
+				store.save();
 
-			storage.setCacheEntry(newCache);
-			store.save();
+				// ensure objects are added to the store before they become
+				// visible in the database
+				uploader.finish();
 
-			// ensure objects are added to the store before they become
-			// visible in the database
-			executor.shutdown();
-			while (!executor.awaitTermination(1, TimeUnit.SECONDS))
-			{
-				logger.debug("Waiting for termination of executor...");
-			}
+				// commit database
+				con.commit();
 
-			// commit database
-			con.commit();
+				// serve definitions from the new cache
+				cacheService.setMostRecent(newCache);
+			}
 		}
 	}
 
@@ -25,36 +25,21 @@
 package net.runelite.http.service.cache;
 
 import com.google.common.hash.Hashing;
-import com.google.common.io.BaseEncoding;
-import io.minio.MinioClient;
-import io.minio.errors.ErrorResponseException;
-import io.minio.errors.InsufficientDataException;
-import io.minio.errors.InternalException;
-import io.minio.errors.InvalidArgumentException;
-import io.minio.errors.InvalidBucketNameException;
-import io.minio.errors.NoResponseException;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
 import net.runelite.cache.fs.Archive;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xmlpull.v1.XmlPullParserException;
 
 public class CacheUploader implements Runnable
 {
 	private static final Logger logger = LoggerFactory.getLogger(CacheUploader.class);
 
-	private final MinioClient minioClient;
-	private final String minioBucket;
+	private final ArchiveStore archiveStore;
 	private final Archive archive;
 
-	public CacheUploader(MinioClient minioClient, String minioBucket, Archive archive)
+	public CacheUploader(ArchiveStore archiveStore, Archive archive)
 	{
-		this.minioClient = minioClient;
-		this.minioBucket = minioBucket;
+		this.archiveStore = archiveStore;
 		this.archive = archive;
 	}
 
@@ -63,28 +48,17 @@ public class CacheUploader implements Runnable
 	{
 		byte[] data = archive.getData();
 		byte[] hash = Hashing.sha256().hashBytes(data).asBytes();
-		String hashStr = BaseEncoding.base16().encode(hash);
-
-		String path = new StringBuilder()
-			.append(hashStr.substring(0, 2))
-			.append('/')
-			.append(hashStr.substring(2))
-			.toString();
 
 		try
 		{
-			try (InputStream in = minioClient.getObject(minioBucket, path))
-			{
-				return; // already exists
-			}
-			catch (ErrorResponseException ex)
+			if (archiveStore.exists(hash))
 			{
-				// doesn't exist
+				return;
 			}
 
-			minioClient.putObject(minioBucket, path, new ByteArrayInputStream(data), data.length, "binary/octet-stream");
+			archiveStore.put(hash, data);
 		}
-		catch (ErrorResponseException | InsufficientDataException | InternalException | InvalidArgumentException | InvalidBucketNameException | NoResponseException | IOException | InvalidKeyException | NoSuchAlgorithmException | XmlPullParserException ex)
+		catch (IOException ex)
 		{
 			logger.warn("unable to upload data to store", ex);
 		}
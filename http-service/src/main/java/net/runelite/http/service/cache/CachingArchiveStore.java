@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.io.BaseEncoding;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * In memory tier in front of another archive store. The most recently
+ * read archives are kept up to a maximum number of bytes.
+ */
+public class CachingArchiveStore implements ArchiveStore
+{
+	private final ArchiveStore store;
+	private final Cache<String, byte[]> archives;
+
+	public CachingArchiveStore(ArchiveStore store, long maxSize)
+	{
+		this.store = store;
+		this.archives = CacheBuilder.newBuilder()
+			.maximumWeight(maxSize)
+			.weigher((String hash, byte[] data) -> data.length)
+			.recordStats()
+			.build();
+	}
+
+	@Override
+	public byte[] get(byte[] hash) throws IOException
+	{
+		String key = BaseEncoding.base16().encode(hash);
+
+		byte[] data = archives.getIfPresent(key);
+		if (data != null)
+		{
+			return data;
+		}
+
+		data = store.get(hash);
+		if (data != null)
+		{
+			archives.put(key, data);
+		}
+		return data;
+	}
+
+	/**
+	 * Write an archive from memory if it is cached, otherwise have the
+	 * backing store write it, so it can use a zero copy transfer. Archives
+	 * written by the backing store are not cached, as their data is never
+	 * read into memory here.
+	 */
+	@Override
+	public long transferTo(byte[] hash, WritableByteChannel channel) throws IOException
+	{
+		String key = BaseEncoding.base16().encode(hash);
+
+		byte[] data = archives.getIfPresent(key);
+		if (data == null)
+		{
+			return store.transferTo(hash, channel);
+		}
+
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+		return data.length;
+	}
+
+	@Override
+	public boolean exists(byte[] hash) throws IOException
+	{
+		String key = BaseEncoding.base16().encode(hash);
+		return archives.asMap().containsKey(key) || store.exists(hash);
+	}
+
+	@Override
+	public void put(byte[] hash, byte[] data) throws IOException
+	{
+		// archives are only cached once they are read
+		store.put(hash, data);
+	}
+
+	public CacheStats getStats()
+	{
+		return archives.stats();
+	}
+
+	public long size()
+	{
+		return archives.size();
+	}
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import net.runelite.cache.ConfigType;
+import net.runelite.cache.fs.ArchiveFiles;
+import net.runelite.cache.fs.FSFile;
+
+/**
+ * Cache of decoded config archives, keyed by cache and config type.
+ * Definitions are decoded from their archive the first time they are
+ * requested, and are kept with the archive. Archives are weighed by the
+ * size of their contents.
+ */
+public class DefinitionCache
+{
+	private static final long MAX_WEIGHT = 64L * 1024L * 1024L;
+
+	private final Cache<Long, ConfigArchive<?>> archives;
+	private final AtomicLong definitionHits = new AtomicLong();
+	private final AtomicLong definitionMisses = new AtomicLong();
+
+	public DefinitionCache()
+	{
+		this(MAX_WEIGHT);
+	}
+
+	public DefinitionCache(long maxWeight)
+	{
+		archives = CacheBuilder.newBuilder()
+			.maximumWeight(maxWeight)
+			.weigher((Long key, ConfigArchive<?> archive) -> archive.size)
+			.recordStats()
+			.build();
+	}
+
+	/**
+	 * Get a definition, loading and decoding its archive if necessary
+	 *
+	 * @param <T>
+	 * @param cacheId cache the archive is from
+	 * @param type config type of the archive
+	 * @param id definition id
+	 * @param archiveLoader loads the archive files, or returns null if the
+	 * archive does not exist
+	 * @param definitionLoader decodes a definition from its file contents
+	 * @return the definition, or null if the archive or definition does
+	 * not exist
+	 * @throws IOException
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T getDefinition(int cacheId, ConfigType type, int id,
+		Callable<ArchiveFiles> archiveLoader, BiFunction<Integer, byte[], T> definitionLoader) throws IOException
+	{
+		long key = (long) cacheId << 32 | type.getId();
+
+		ConfigArchive<T> archive;
+		try
+		{
+			archive = (ConfigArchive<T>) archives.get(key, () ->
+			{
+				ArchiveFiles files = archiveLoader.call();
+				if (files == null)
+				{
+					throw new ArchiveNotFoundException();
+				}
+				return new ConfigArchive<>(files, definitionLoader);
+			});
+		}
+		catch (ExecutionException | UncheckedExecutionException ex)
+		{
+			Throwable cause = ex.getCause();
+			if (cause instanceof ArchiveNotFoundException)
+			{
+				return null;
+			}
+			if (cause instanceof IOException)
+			{
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		}
+
+		return archive.getDefinition(id);
+	}
+
+	/**
+	 * Drop the archives of every cache but the given one, eg. after a new
+	 * cache becomes the most recent
+	 *
+	 * @param cacheId
+	 */
+	public void retainCache(int cacheId)
+	{
+		archives.asMap().keySet().removeIf(key -> (int) (key >>> 32) != cacheId);
+	}
+
+	public void invalidateAll()
+	{
+		archives.invalidateAll();
+	}
+
+	/**
+	 * Hit and miss counts of archives
+	 *
+	 * @return
+	 */
+	public CacheStats getArchiveStats()
+	{
+		return archives.stats();
+	}
+
+	public long getDefinitionHits()
+	{
+		return definitionHits.get();
+	}
+
+	public long getDefinitionMisses()
+	{
+		return definitionMisses.get();
+	}
+
+	public long size()
+	{
+		return archives.size();
+	}
+
+	private class ConfigArchive<T>
+	{
+		private final ArchiveFiles files;
+		private final BiFunction<Integer, byte[], T> loader;
+		private final ConcurrentMap<Integer, T> definitions = new ConcurrentHashMap<>();
+		private final int size;
+
+		ConfigArchive(ArchiveFiles files, BiFunction<Integer, byte[], T> loader)
+		{
+			this.files = files;
+			this.loader = loader;
+
+			int size = 0;
+			for (FSFile file : files.getFiles())
+			{
+				if (file.getContents() != null)
+				{
+					size += file.getContents().length;
+				}
+			}
+			this.size = size;
+		}
+
+		T getDefinition(int id)
+		{
+			T definition = definitions.get(id);
+			if (definition != null)
+			{
+				definitionHits.incrementAndGet();
+				return definition;
+			}
+
+			FSFile file = files.findFile(id);
+			if (file == null)
+			{
+				return null;
+			}
+
+			definitionMisses.incrementAndGet();
+
+			// decoding twice on a race is harmless, the first one is kept
+			definition = loader.apply(id, file.getContents());
+			T existing = definitions.putIfAbsent(id, definition);
+			return existing != null ? existing : definition;
+		}
+	}
+
+	private static class ArchiveNotFoundException extends RuntimeException
+	{
+	}
+}
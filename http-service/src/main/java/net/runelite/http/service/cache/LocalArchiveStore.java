@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Archive store on the local filesystem, using the same layout as the
+ * Minio bucket. Archive data is written to the response channel
+ * directly from the file.
+ */
+public class LocalArchiveStore implements ArchiveStore
+{
+	private final Path root;
+
+	public LocalArchiveStore(File root)
+	{
+		this.root = root.toPath();
+	}
+
+	private Path resolve(byte[] hash)
+	{
+		return root.resolve(ArchiveStore.path(hash));
+	}
+
+	@Override
+	public byte[] get(byte[] hash) throws IOException
+	{
+		try
+		{
+			return Files.readAllBytes(resolve(hash));
+		}
+		catch (NoSuchFileException ex)
+		{
+			return null;
+		}
+	}
+
+	@Override
+	public boolean exists(byte[] hash) throws IOException
+	{
+		return Files.isRegularFile(resolve(hash));
+	}
+
+	@Override
+	public void put(byte[] hash, byte[] data) throws IOException
+	{
+		Path path = resolve(hash);
+		if (Files.exists(path))
+		{
+			return;
+		}
+
+		Path dir = path.getParent();
+		Files.createDirectories(dir);
+
+		// write to a temporary file first so a partially written
+		// archive is never visible
+		Path tmp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+		try
+		{
+			Files.write(tmp, data);
+			Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (FileAlreadyExistsException ex)
+		{
+			// stored concurrently, and the content is the same
+		}
+		finally
+		{
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	@Override
+	public long transferTo(byte[] hash, WritableByteChannel channel) throws IOException
+	{
+		FileChannel file;
+		try
+		{
+			file = FileChannel.open(resolve(hash), StandardOpenOption.READ);
+		}
+		catch (NoSuchFileException ex)
+		{
+			return -1L;
+		}
+
+		try (FileChannel in = file)
+		{
+			long size = in.size();
+			long position = 0L;
+			while (position < size)
+			{
+				position += in.transferTo(position, size - position, channel);
+			}
+			return size;
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.cache;
+
+import com.google.common.io.ByteStreams;
+import io.minio.ErrorCode;
+import io.minio.MinioClient;
+import io.minio.errors.ErrorResponseException;
+import io.minio.errors.InsufficientDataException;
+import io.minio.errors.InternalException;
+import io.minio.errors.InvalidArgumentException;
+import io.minio.errors.InvalidBucketNameException;
+import io.minio.errors.NoResponseException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import org.xmlpull.v1.XmlPullParserException;
+
+/**
+ * Archive store backed by a Minio bucket
+ */
+public class MinioArchiveStore implements ArchiveStore
+{
+	private final MinioClient minioClient;
+	private final String minioBucket;
+
+	public MinioArchiveStore(MinioClient minioClient, String minioBucket)
+	{
+		this.minioClient = minioClient;
+		this.minioBucket = minioBucket;
+	}
+
+	@Override
+	public byte[] get(byte[] hash) throws IOException
+	{
+		try (InputStream in = minioClient.getObject(minioBucket, ArchiveStore.path(hash)))
+		{
+			return ByteStreams.toByteArray(in);
+		}
+		catch (ErrorResponseException ex)
+		{
+			if (isNoSuchKey(ex))
+			{
+				return null;
+			}
+			throw new IOException(ex);
+		}
+		catch (InvalidBucketNameException | NoSuchAlgorithmException | InsufficientDataException
+			| InvalidKeyException | NoResponseException | XmlPullParserException
+			| InternalException | InvalidArgumentException ex)
+		{
+			throw new IOException(ex);
+		}
+	}
+
+	@Override
+	public boolean exists(byte[] hash) throws IOException
+	{
+		try
+		{
+			minioClient.statObject(minioBucket, ArchiveStore.path(hash));
+			return true;
+		}
+		catch (ErrorResponseException ex)
+		{
+			if (isNoSuchKey(ex))
+			{
+				return false;
+			}
+			throw new IOException(ex);
+		}
+		catch (InvalidBucketNameException | NoSuchAlgorithmException | InsufficientDataException
+			| InvalidKeyException | NoResponseException | XmlPullParserException
+			| InternalException ex)
+		{
+			throw new IOException(ex);
+		}
+	}
+
+	@Override
+	public void put(byte[] hash, byte[] data) throws IOException
+	{
+		try
+		{
+			minioClient.putObject(minioBucket, ArchiveStore.path(hash), new ByteArrayInputStream(data), data.length, "binary/octet-stream");
+		}
+		catch (ErrorResponseException | InvalidBucketNameException | NoSuchAlgorithmException
+			| InsufficientDataException | InvalidKeyException | NoResponseException
+			| XmlPullParserException | InternalException | InvalidArgumentException ex)
+		{
+			throw new IOException(ex);
+		}
+	}
+
+	/**
+	 * Check whether an error response is for an archive which doesn't
+	 * exist, rather than a failure which has to be reported, such as
+	 * access being denied
+	 */
+	private static boolean isNoSuchKey(ErrorResponseException ex)
+	{
+		return ex.errorResponse() != null && ex.errorResponse().errorCode() == ErrorCode.NO_SUCH_KEY;
+	}
+}
@@ -24,10 +24,18 @@
  */
 package net.runelite.http.service.hiscore;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import net.runelite.http.api.RuneliteAPI;
 import net.runelite.http.api.hiscore.*;
 import net.runelite.http.service.util.HiscoreEndpointEditor;
+import net.runelite.http.service.util.SingleFlight;
 import net.runelite.http.service.util.exception.InternalServerErrorException;
 import net.runelite.http.service.util.exception.NotFoundException;
 import okhttp3.HttpUrl;
@@ -49,6 +57,16 @@ public class HiscoreService
 {
 	private static final Logger logger = LoggerFactory.getLogger(HiscoreService.class);
 
+	// how long looked up hiscores are reused for
+	private static final long CACHE_DURATION_SECONDS = 60L;
+
+	private final Cache<HiscoreKey, HiscoreResultBuilder> cachedResults = CacheBuilder.newBuilder()
+		.maximumSize(4096L)
+		.expireAfterWrite(CACHE_DURATION_SECONDS, TimeUnit.SECONDS)
+		.recordStats()
+		.build();
+	private final SingleFlight<HiscoreKey, HiscoreResultBuilder> lookups = new SingleFlight<>();
+
 	HiscoreResultBuilder lookupUsername(String username, HiscoreEndpoint endpoint) throws IOException
 	{
 		return lookupUsername(username, endpoint.getHiscoreURL());
@@ -119,10 +137,45 @@ public class HiscoreService
 		return hiscoreBuilder;
 	}
 
+	/**
+	 * Look up a player, reusing a recent or in flight lookup of the same
+	 * player
+	 */
+	private HiscoreResultBuilder getResult(String username, HiscoreEndpoint endpoint) throws IOException
+	{
+		HiscoreKey key = new HiscoreKey(username, endpoint);
+
+		HiscoreResultBuilder result = cachedResults.getIfPresent(key);
+		if (result != null)
+		{
+			return result;
+		}
+
+		return lookups.get(key, () ->
+		{
+			HiscoreResultBuilder builder = lookupUsername(username, endpoint);
+			cachedResults.put(key, builder);
+			return builder;
+		});
+	}
+
+	@RequestMapping("/stats")
+	public Map<String, Long> getStats()
+	{
+		CacheStats stats = cachedResults.stats();
+
+		Map<String, Long> result = new LinkedHashMap<>();
+		result.put("cacheHits", stats.hitCount());
+		result.put("cacheMisses", stats.missCount());
+		result.put("lookups", lookups.getIssued());
+		result.put("lookupsCoalesced", lookups.getCoalesced());
+		return result;
+	}
+
 	@RequestMapping("/{endpoint}")
 	public HiscoreResult lookup(@PathVariable HiscoreEndpoint endpoint, @RequestParam String username) throws IOException
 	{
-		HiscoreResultBuilder result = lookupUsername(username, endpoint);
+		HiscoreResultBuilder result = getResult(username, endpoint);
 		return result.build();
 	}
 
@@ -132,7 +185,7 @@ public class HiscoreService
 		HiscoreSkill skill = HiscoreSkill.valueOf(skillName.toUpperCase());
 
 		// RS api only supports looking up all stats
-		HiscoreResultBuilder result = lookupUsername(username, endpoint);
+		HiscoreResultBuilder result = getResult(username, endpoint);
 
 		// Find the skill to return
 		Skill requested = result.getSkill(skill.ordinal());
@@ -150,4 +203,52 @@ public class HiscoreService
 	{
 		binder.registerCustomEditor(HiscoreEndpoint.class, new HiscoreEndpointEditor());
 	}
+
+	private static class HiscoreKey
+	{
+		private final String username;
+		private final HiscoreEndpoint endpoint;
+
+		HiscoreKey(String username, HiscoreEndpoint endpoint)
+		{
+			this.username = username;
+			this.endpoint = endpoint;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			int hash = 7;
+			hash = 53 * hash + Objects.hashCode(this.username);
+			hash = 53 * hash + Objects.hashCode(this.endpoint);
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (obj == null)
+			{
+				return false;
+			}
+			if (getClass() != obj.getClass())
+			{
+				return false;
+			}
+			final HiscoreKey other = (HiscoreKey) obj;
+			if (!Objects.equals(this.username, other.username))
+			{
+				return false;
+			}
+			if (this.endpoint != other.endpoint)
+			{
+				return false;
+			}
+			return true;
+		}
+	}
 }
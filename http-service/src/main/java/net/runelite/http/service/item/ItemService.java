@@ -33,7 +33,12 @@ import java.io.InputStreamReader;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.stream.Collectors;
 import javax.servlet.http.HttpServletResponse;
@@ -42,6 +47,7 @@ import net.runelite.http.api.item.Item;
 import net.runelite.http.api.item.ItemPrice;
 import net.runelite.http.api.item.ItemType;
 import net.runelite.http.api.item.SearchResult;
+import net.runelite.http.service.util.SingleFlight;
 import okhttp3.HttpUrl;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -96,10 +102,15 @@ public class ItemService
 
 	private static final String RUNELITE_CACHE = "Runelite-Cache";
 
+	// maximum number of items in a bulk price lookup
+	private static final int MAX_PRICE_LOOKUP = 1024;
+
 	private final Sql2o sql2o;
 	private final Cache<String, SearchResult> cachedSearches = CacheBuilder.newBuilder()
 		.maximumSize(1024L)
 		.build();
+	private final SingleFlight<Integer, ItemEntry> itemFetches = new SingleFlight<>();
+	private final SingleFlight<Integer, List<PriceEntry>> priceFetches = new SingleFlight<>();
 
 	@Autowired
 	public ItemService(@Qualifier("Runelite SQL2O") Sql2o sql2o)
@@ -259,6 +270,74 @@ public class ItemService
 		return itemPrice;
 	}
 
+	/**
+	 * Look up the latest prices of many items at once. Items which have
+	 * no price yet, or whose price is more than a day old, are left out
+	 * and should be looked up individually.
+	 *
+	 * @param itemIds
+	 * @return
+	 */
+	@RequestMapping("/price")
+	public List<ItemPrice> getPrices(@RequestParam("id") int[] itemIds)
+	{
+		if (itemIds.length == 0)
+		{
+			return Collections.emptyList();
+		}
+
+		if (itemIds.length > MAX_PRICE_LOOKUP)
+		{
+			itemIds = Arrays.copyOf(itemIds, MAX_PRICE_LOOKUP);
+		}
+
+		// ids are ints, so they are safe to include in the query
+		String ids = Arrays.stream(itemIds)
+			.distinct()
+			.mapToObj(Integer::toString)
+			.collect(Collectors.joining(","));
+
+		List<PriceEntry> prices;
+		List<ItemEntry> items;
+
+		try (Connection con = sql2o.open())
+		{
+			prices = con.createQuery("select t1.item, t1.price, t1.time from prices t1 "
+				+ "inner join ( select item, max(time) as time from prices where item in (" + ids + ") group by item ) t2 "
+				+ "on t1.item = t2.item and t1.time = t2.time")
+				.executeAndFetch(PriceEntry.class);
+
+			items = con.createQuery("select id, name, description, type from items where id in (" + ids + ")")
+				.executeAndFetch(ItemEntry.class);
+		}
+
+		Map<Integer, ItemEntry> itemsById = new HashMap<>();
+		for (ItemEntry item : items)
+		{
+			itemsById.put(item.getId(), item);
+		}
+
+		Instant yesterday = Instant.now().minus(1, ChronoUnit.DAYS);
+		List<ItemPrice> itemPrices = new ArrayList<>(prices.size());
+
+		for (PriceEntry priceEntry : prices)
+		{
+			ItemEntry item = itemsById.get(priceEntry.getItem());
+			if (item == null || priceEntry.getTime().isBefore(yesterday))
+			{
+				continue;
+			}
+
+			ItemPrice itemPrice = new ItemPrice();
+			itemPrice.setItem(item.toItem());
+			itemPrice.setPrice(priceEntry.getPrice());
+			itemPrice.setTime(priceEntry.getTime());
+			itemPrices.add(itemPrice);
+		}
+
+		return itemPrices;
+	}
+
 	@RequestMapping("/search")
 	public SearchResult search(HttpServletResponse response, @RequestParam String query)
 	{
@@ -345,7 +424,23 @@ public class ItemService
 		}
 	}
 
+	@RequestMapping("/stats")
+	public Map<String, Long> getStats()
+	{
+		Map<String, Long> result = new LinkedHashMap<>();
+		result.put("itemFetches", itemFetches.getIssued());
+		result.put("itemFetchesCoalesced", itemFetches.getCoalesced());
+		result.put("priceFetches", priceFetches.getIssued());
+		result.put("priceFetchesCoalesced", priceFetches.getCoalesced());
+		return result;
+	}
+
 	private ItemEntry fetchItem(int itemId)
+	{
+		return itemFetches.get(itemId, () -> fetchItemUncoalesced(itemId));
+	}
+
+	private ItemEntry fetchItemUncoalesced(int itemId)
 	{
 		try
 		{
@@ -401,6 +496,11 @@ public class ItemService
 	}
 
 	private List<PriceEntry> fetchPrice(int itemId)
+	{
+		return priceFetches.get(itemId, () -> fetchPriceUncoalesced(itemId));
+	}
+
+	private List<PriceEntry> fetchPriceUncoalesced(int itemId)
 	{
 		try (Connection con = sql2o.beginTransaction())
 		{
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.util;
+
+/**
+ * Entity tag comparisons for conditional requests
+ */
+public class ETags
+{
+	private static final String WEAK_PREFIX = "W/";
+
+	private ETags()
+	{
+	}
+
+	/**
+	 * Check an If-None-Match header against the current entity tag, as
+	 * described by RFC 7232. The header is either "*" or a comma separated
+	 * list of entity tags, which are compared weakly, so that a tag with
+	 * the weak prefix matches the same tag without it.
+	 *
+	 * @param ifNoneMatch the header value, may be null
+	 * @param etag the current entity tag, quoted
+	 * @return whether the header matches, in which case the response is
+	 * not modified
+	 */
+	public static boolean matches(String ifNoneMatch, String etag)
+	{
+		if (ifNoneMatch == null)
+		{
+			return false;
+		}
+
+		if (ifNoneMatch.trim().equals("*"))
+		{
+			return true;
+		}
+
+		String opaque = stripWeak(etag);
+		int i = 0;
+		int length = ifNoneMatch.length();
+		while (i < length)
+		{
+			char c = ifNoneMatch.charAt(i);
+			if (c == ',' || Character.isWhitespace(c))
+			{
+				++i;
+				continue;
+			}
+
+			if (ifNoneMatch.startsWith(WEAK_PREFIX, i))
+			{
+				i += WEAK_PREFIX.length();
+			}
+
+			int end;
+			if (i < length && ifNoneMatch.charAt(i) == '"')
+			{
+				// quoted tags may contain commas
+				end = ifNoneMatch.indexOf('"', i + 1);
+				end = end == -1 ? length : end + 1;
+			}
+			else
+			{
+				end = ifNoneMatch.indexOf(',', i);
+				end = end == -1 ? length : end;
+			}
+
+			if (ifNoneMatch.substring(i, end).trim().equals(opaque))
+			{
+				return true;
+			}
+
+			i = end;
+		}
+
+		return false;
+	}
+
+	private static String stripWeak(String etag)
+	{
+		return etag.startsWith(WEAK_PREFIX) ? etag.substring(WEAK_PREFIX.length()) : etag;
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shares one upstream request between concurrent callers asking for the
+ * same key. The first caller runs the loader, and callers arriving while
+ * it is in flight wait for and receive its result, or its exception.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class SingleFlight<K, V>
+{
+	@FunctionalInterface
+	public interface Loader<V, X extends Exception>
+	{
+		V load() throws X;
+	}
+
+	private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	private final AtomicLong issued = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+
+	public <X extends Exception> V get(K key, Loader<V, X> loader) throws X
+	{
+		CompletableFuture<V> future = new CompletableFuture<>();
+		CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+
+		if (existing != null)
+		{
+			coalesced.incrementAndGet();
+			return join(existing);
+		}
+
+		issued.incrementAndGet();
+
+		try
+		{
+			V value = loader.load();
+			future.complete(value);
+			return value;
+		}
+		catch (Exception | Error ex)
+		{
+			future.completeExceptionally(ex);
+			throw ex;
+		}
+		finally
+		{
+			inFlight.remove(key, future);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <X extends Exception> V join(CompletableFuture<V> future) throws X
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(ex);
+		}
+		catch (ExecutionException ex)
+		{
+			Throwable cause = ex.getCause();
+			if (cause instanceof Error)
+			{
+				throw (Error) cause;
+			}
+			// the loader of the same key can only throw X
+			throw (X) cause;
+		}
+	}
+
+	/**
+	 * Number of loads run
+	 *
+	 * @return
+	 */
+	public long getIssued()
+	{
+		return issued.get();
+	}
+
+	/**
+	 * Number of calls which waited for a load already in flight
+	 *
+	 * @return
+	 */
+	public long getCoalesced()
+	{
+		return coalesced.get();
+	}
+}
@@ -24,17 +24,31 @@
  */
 package net.runelite.http.service.worlds;
 
+import com.google.common.hash.Hashing;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import net.runelite.http.api.RuneliteAPI;
 import net.runelite.http.api.worlds.World;
 import net.runelite.http.api.worlds.WorldResult;
+import net.runelite.http.service.util.ETags;
 import okhttp3.HttpUrl;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -42,12 +56,109 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/worlds")
 public class WorldsService
 {
+	private static final Logger logger = LoggerFactory.getLogger(WorldsService.class);
+
 	private static final HttpUrl WORLD_URL = HttpUrl.parse("http://www.runescape.com/g=oldscape/slr.ws?order=LPWM");
 
+	// how often the world list is fetched
+	private static final long REFRESH_PERIOD_SECONDS = 60L;
+
 	private HttpUrl url = WORLD_URL;
 
+	private ScheduledExecutorService executor;
+	private volatile WorldsSnapshot snapshot;
+
+	@PostConstruct
+	public void start()
+	{
+		executor = Executors.newSingleThreadScheduledExecutor(r ->
+		{
+			Thread thread = new Thread(r, "World list refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(this::refreshSafely, 0L, REFRESH_PERIOD_SECONDS, TimeUnit.SECONDS);
+	}
+
+	@PreDestroy
+	public void stop()
+	{
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Serve the most recently fetched world list
+	 *
+	 * @param ifNoneMatch
+	 * @return
+	 * @throws IOException
+	 */
 	@RequestMapping
+	public ResponseEntity<byte[]> getWorlds(@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) throws IOException
+	{
+		WorldsSnapshot s = getSnapshot();
+
+		if (ETags.matches(ifNoneMatch, s.etag))
+		{
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+				.eTag(s.etag)
+				.build();
+		}
+
+		return ResponseEntity.ok()
+			.eTag(s.etag)
+			.contentType(MediaType.APPLICATION_JSON_UTF8)
+			.body(s.data);
+	}
+
 	public WorldResult listWorlds() throws IOException
+	{
+		return getSnapshot().result;
+	}
+
+	private WorldsSnapshot getSnapshot() throws IOException
+	{
+		WorldsSnapshot s = snapshot;
+		if (s != null)
+		{
+			return s;
+		}
+
+		// nothing fetched yet
+		synchronized (this)
+		{
+			if (snapshot == null)
+			{
+				refresh();
+			}
+			return snapshot;
+		}
+	}
+
+	private void refreshSafely()
+	{
+		try
+		{
+			refresh();
+		}
+		catch (IOException | RuntimeException ex)
+		{
+			logger.warn("unable to refresh world list", ex);
+		}
+	}
+
+	private void refresh() throws IOException
+	{
+		WorldResult result = fetchWorlds();
+
+		byte[] data = RuneliteAPI.GSON.toJson(result).getBytes(StandardCharsets.UTF_8);
+		String etag = '"' + Hashing.sha256().hashBytes(data).toString() + '"';
+
+		snapshot = new WorldsSnapshot(result, data, etag);
+		logger.debug("Refreshed world list with {} worlds", result.getWorlds().size());
+	}
+
+	private WorldResult fetchWorlds() throws IOException
 	{
 		Request okrequest = new Request.Builder()
 			.url(url)
@@ -58,6 +169,11 @@ public class WorldsService
 
 		try (ResponseBody body = okresponse.body())
 		{
+			if (!okresponse.isSuccessful())
+			{
+				throw new IOException("Unsuccessful http response: " + okresponse.message());
+			}
+
 			b = body.bytes();
 		}
 
@@ -116,4 +232,18 @@ public class WorldsService
 	{
 		this.url = url;
 	}
+
+	private static class WorldsSnapshot
+	{
+		private final WorldResult result;
+		private final byte[] data;
+		private final String etag;
+
+		WorldsSnapshot(WorldResult result, byte[] data, String etag)
+		{
+			this.result = result;
+			this.data = data;
+			this.etag = etag;
+		}
+	}
 }
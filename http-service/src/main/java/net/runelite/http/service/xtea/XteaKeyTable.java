@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.xtea;
+
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import net.runelite.http.api.RuneliteAPI;
+import net.runelite.http.api.xtea.XteaKey;
+
+/**
+ * Latest xtea keys of every region. Keys are kept in a flat array
+ * indexed by region, and the serialized list of all keys is built once
+ * per change.
+ */
+class XteaKeyTable
+{
+	static final int REGIONS = 1 << 16;
+
+	private final int[] keys = new int[REGIONS * 4];
+	private final BitSet regions = new BitSet(REGIONS);
+
+	private volatile Snapshot snapshot;
+
+	static boolean isValidRegion(int region)
+	{
+		return region >= 0 && region < REGIONS;
+	}
+
+	synchronized void put(int region, int[] regionKeys)
+	{
+		assert isValidRegion(region);
+		assert regionKeys.length == 4;
+
+		System.arraycopy(regionKeys, 0, keys, region * 4, 4);
+		regions.set(region);
+		snapshot = null;
+	}
+
+	synchronized int[] get(int region)
+	{
+		if (!isValidRegion(region) || !regions.get(region))
+		{
+			return null;
+		}
+
+		return Arrays.copyOfRange(keys, region * 4, region * 4 + 4);
+	}
+
+	/**
+	 * Check whether the given keys are the latest keys of a region
+	 *
+	 * @param region
+	 * @param regionKeys
+	 * @return
+	 */
+	synchronized boolean contains(int region, int[] regionKeys)
+	{
+		if (!isValidRegion(region) || !regions.get(region))
+		{
+			return false;
+		}
+
+		int offset = region * 4;
+		return keys[offset] == regionKeys[0]
+			&& keys[offset + 1] == regionKeys[1]
+			&& keys[offset + 2] == regionKeys[2]
+			&& keys[offset + 3] == regionKeys[3];
+	}
+
+	synchronized int size()
+	{
+		return regions.cardinality();
+	}
+
+	/**
+	 * Get the serialized keys of all regions, ordered by region
+	 *
+	 * @return
+	 */
+	Snapshot getSnapshot()
+	{
+		Snapshot s = snapshot;
+		if (s != null)
+		{
+			return s;
+		}
+
+		synchronized (this)
+		{
+			if (snapshot == null)
+			{
+				List<XteaKey> list = new ArrayList<>(regions.cardinality());
+				for (int region = regions.nextSetBit(0); region >= 0; region = regions.nextSetBit(region + 1))
+				{
+					XteaKey key = new XteaKey();
+					key.setRegion(region);
+					key.setKeys(Arrays.copyOfRange(keys, region * 4, region * 4 + 4));
+					list.add(key);
+				}
+
+				byte[] data = RuneliteAPI.GSON.toJson(list).getBytes(StandardCharsets.UTF_8);
+				String etag = '"' + Hashing.sha256().hashBytes(data).toString() + '"';
+				snapshot = new Snapshot(data, etag);
+			}
+			return snapshot;
+		}
+	}
+
+	static class Snapshot
+	{
+		private final byte[] data;
+		private final String etag;
+
+		Snapshot(byte[] data, String etag)
+		{
+			this.data = data;
+			this.etag = etag;
+		}
+
+		byte[] getData()
+		{
+			return data;
+		}
+
+		String getEtag()
+		{
+			return etag;
+		}
+	}
+}
@@ -25,7 +25,10 @@
 package net.runelite.http.service.xtea;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import net.runelite.cache.IndexType;
 import net.runelite.cache.fs.jagex.DataFile;
@@ -36,14 +39,20 @@ import net.runelite.http.service.cache.CacheDAO;
 import net.runelite.http.service.cache.CacheService;
 import net.runelite.http.service.cache.beans.ArchiveEntry;
 import net.runelite.http.service.cache.beans.CacheEntry;
+import net.runelite.http.service.cache.beans.IndexEntry;
+import net.runelite.http.service.util.ETags;
 import net.runelite.http.service.util.exception.InternalServerErrorException;
 import net.runelite.http.service.util.exception.NotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import static org.springframework.web.bind.annotation.RequestMethod.POST;
 import org.springframework.web.bind.annotation.RestController;
@@ -74,6 +83,9 @@ public class XteaService
 	private final Sql2o cacheSql2o;
 	private final CacheService cacheService;
 
+	private final XteaKeyTable keyTable = new XteaKeyTable();
+	private volatile MapArchives mapArchives;
+
 	@Autowired
 	public XteaService(
 		@Qualifier("Runelite SQL2O") Sql2o sql2o,
@@ -90,63 +102,90 @@ public class XteaService
 			con.createQuery(CREATE_SQL)
 				.executeUpdate();
 		}
+
+		loadKeys();
 	}
 
-	private XteaEntry findLatestXtea(Connection con, int region)
+	private void loadKeys()
 	{
-		return con.createQuery("select region, time, key1, key2, key3, key4 from xtea "
-			+ "where region = :region "
-			+ "order by time desc "
-			+ "limit 1")
-			.addParameter("region", region)
-			.executeAndFetchFirst(XteaEntry.class);
+		List<XteaEntry> entries;
+
+		try (Connection con = sql2o.open())
+		{
+			entries = con.createQuery(
+				"select t1.region, t1.time, t1.rev, t1.key1, t1.key2, t1.key3, t1.key4 from xtea t1 "
+				+ "inner join ( select region,max(time) as time from xtea group by region ) t2 "
+				+ "on t1.region = t2.region and t1.time = t2.time")
+				.executeAndFetch(XteaEntry.class);
+		}
+
+		for (XteaEntry entry : entries)
+		{
+			if (XteaKeyTable.isValidRegion(entry.getRegion()))
+			{
+				keyTable.put(entry.getRegion(), new int[]
+				{
+					entry.getKey1(),
+					entry.getKey2(),
+					entry.getKey3(),
+					entry.getKey4()
+				});
+			}
+		}
+
+		logger.info("Loaded keys for {} regions", keyTable.size());
 	}
 
 	@RequestMapping(method = POST)
 	public void submit(@RequestBody XteaRequest xteaRequest)
 	{
-		try (Connection con = sql2o.beginTransaction();
-			Connection cacheCon = cacheSql2o.open())
+		List<XteaKey> newKeys = new ArrayList<>();
+
+		for (XteaKey key : xteaRequest.getKeys())
 		{
-			CacheDAO cacheDao = new CacheDAO();
-			CacheEntry cache = cacheDao.findMostRecent(cacheCon);
+			int[] keys = key.getKeys();
 
-			if (cache == null)
+			// a bad key only fails itself, not the rest of the batch
+			if (keys == null || keys.length != 4 || !XteaKeyTable.isValidRegion(key.getRegion()))
 			{
-				throw new InternalServerErrorException("No most recent cache");
+				logger.debug("Skipping invalid key for region {}", key.getRegion());
+				continue;
 			}
 
+			// already have these?
+			if (!keyTable.contains(key.getRegion(), keys))
+			{
+				newKeys.add(key);
+			}
+		}
+
+		if (newKeys.isEmpty())
+		{
+			return;
+		}
+
+		Map<Integer, ArchiveEntry> archives = getMapArchives();
+
+		// decrypting the map archives is the expensive part
+		List<XteaKey> validKeys = newKeys.parallelStream()
+			.filter(key -> checkKeys(archives, key.getRegion(), key.getKeys()))
+			.collect(Collectors.toList());
+
+		if (validKeys.isEmpty())
+		{
+			return;
+		}
+
+		try (Connection con = sql2o.beginTransaction())
+		{
 			Query query = con.createQuery("insert into xtea (region, rev, key1, key2, key3, key4) "
 				+ "values (:region, :rev, :key1, :key2, :key3, :key4)");
 
-			for (XteaKey key : xteaRequest.getKeys())
+			for (XteaKey key : validKeys)
 			{
-				int region = key.getRegion();
 				int[] keys = key.getKeys();
 
-				XteaEntry xteaEntry = findLatestXtea(con, region);
-
-				if (keys.length != 4)
-				{
-					throw new IllegalArgumentException("Key length must be 4");
-				}
-
-				// already have these?
-				if (xteaEntry != null
-					&& xteaEntry.getKey1() == keys[0]
-					&& xteaEntry.getKey2() == keys[1]
-					&& xteaEntry.getKey3() == keys[2]
-					&& xteaEntry.getKey4() == keys[3])
-				{
-					continue;
-				}
-
-				if (!checkKeys(cacheCon, cache, region, keys))
-				{
-					continue;
-				}
-
-				query.addParameter("region", region)
+				query.addParameter("region", key.getRegion())
 					.addParameter("rev", xteaRequest.getRevision())
 					.addParameter("key1", keys[0])
 					.addParameter("key2", keys[1])
@@ -158,47 +197,99 @@ public class XteaService
 			query.executeBatch();
 			con.commit();
 		}
+
+		for (XteaKey key : validKeys)
+		{
+			keyTable.put(key.getRegion(), key.getKeys());
+		}
 	}
 
 	@RequestMapping
-	public List<XteaKey> get()
+	public ResponseEntity<byte[]> get(@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch)
 	{
-		try (Connection con = sql2o.open())
-		{
-			List<XteaEntry> entries = con.createQuery(
-				"select t1.region, t1.time, t1.rev, t1.key1, t1.key2, t1.key3, t1.key4 from xtea t1 "
-				+ "inner join ( select region,max(time) as time from xtea group by region ) t2 "
-				+ "on t1.region = t2.region and t1.time = t2.time")
-				.executeAndFetch(XteaEntry.class);
+		XteaKeyTable.Snapshot snapshot = keyTable.getSnapshot();
 
-			return entries.stream()
-				.map(XteaService::entryToKey)
-				.collect(Collectors.toList());
+		if (ETags.matches(ifNoneMatch, snapshot.getEtag()))
+		{
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+				.eTag(snapshot.getEtag())
+				.build();
 		}
+
+		return ResponseEntity.ok()
+			.eTag(snapshot.getEtag())
+			.contentType(MediaType.APPLICATION_JSON_UTF8)
+			.body(snapshot.getData());
 	}
 
 	@RequestMapping("/{region}")
 	public XteaKey getRegion(@PathVariable int region)
 	{
-		XteaEntry entry;
+		int[] keys = keyTable.get(region);
 
-		try (Connection con = sql2o.open())
+		if (keys == null)
 		{
-			entry = con.createQuery("select region, time, rev, key1, key2, key3, key4 from xtea "
-				+ "where region = :region order by time desc limit 1")
-				.addParameter("region", region)
-				.executeAndFetchFirst(XteaEntry.class);
+			throw new NotFoundException();
 		}
 
-		if (entry == null)
+		XteaKey xteaKey = new XteaKey();
+		xteaKey.setRegion(region);
+		xteaKey.setKeys(keys);
+		return xteaKey;
+	}
+
+	/**
+	 * Get the map archives of the most recent cache, by name hash
+	 *
+	 * @return
+	 */
+	private Map<Integer, ArchiveEntry> getMapArchives()
+	{
+		CacheEntry cache;
+		try
 		{
-			throw new NotFoundException();
+			cache = cacheService.findMostRecent();
+		}
+		catch (NotFoundException ex)
+		{
+			throw new InternalServerErrorException("No most recent cache");
 		}
 
-		return entryToKey(entry);
+		MapArchives archives = mapArchives;
+		if (archives != null && archives.cacheId == cache.getId())
+		{
+			return archives.archives;
+		}
+
+		try (Connection con = cacheSql2o.open())
+		{
+			CacheDAO cacheDao = new CacheDAO();
+
+			IndexEntry indexEntry = cacheDao.findIndexForCache(con, cache, IndexType.MAPS.getNumber());
+			if (indexEntry == null)
+			{
+				throw new InternalServerErrorException("Unable to find map index");
+			}
+
+			Map<Integer, ArchiveEntry> byName = new HashMap<>();
+			for (ArchiveEntry archiveEntry : cacheDao.findArchivesForIndex(con, indexEntry))
+			{
+				byName.put(archiveEntry.getNameHash(), archiveEntry);
+			}
+
+			logger.debug("Loaded {} map archives for cache {}", byName.size(), cache.getId());
+
+			mapArchives = new MapArchives(cache.getId(), byName);
+			return byName;
+		}
 	}
 
-	private boolean checkKeys(Connection con, CacheEntry cache, int regionId, int[] keys)
+	/**
+	 * Check keys by decrypting the region's landscape archive with them.
+	 * Keys of regions without one, or which fail to decrypt it, are
+	 * invalid.
+	 */
+	private boolean checkKeys(Map<Integer, ArchiveEntry> archives, int regionId, int[] keys)
 	{
 		int x = regionId >>> 8;
 		int y = regionId & 0xFF;
@@ -211,11 +302,11 @@ public class XteaService
 			.toString();
 		int archiveNameHash = Djb2.hash(archiveName);
 
-		CacheDAO cacheDao = new CacheDAO();
-		ArchiveEntry archiveEntry = cacheDao.findArchiveByName(con, cache, IndexType.MAPS, archiveNameHash);
+		ArchiveEntry archiveEntry = archives.get(archiveNameHash);
 		if (archiveEntry == null)
 		{
-			throw new InternalServerErrorException("Unable to find archive for region");
+			logger.debug("No map archive for region {}", regionId);
+			return false;
 		}
 
 		byte[] data = cacheService.getArchive(archiveEntry);
@@ -226,26 +317,25 @@ public class XteaService
 
 		try
 		{
-			DataFile.decompress(data, keys);
-			return true;
+			return DataFile.decompress(data, keys) != null;
 		}
-		catch (IOException ex)
+		catch (IOException | RuntimeException ex)
 		{
+			// garbage from the wrong keys can fail to decode in many ways
+			logger.debug("Keys for region {} are invalid", regionId, ex);
 			return false;
 		}
 	}
 
-	private static XteaKey entryToKey(XteaEntry xe)
+	private static class MapArchives
 	{
-		XteaKey xteaKey = new XteaKey();
-		xteaKey.setRegion(xe.getRegion());
-		xteaKey.setKeys(new int[]
-		{
-			xe.getKey1(),
-			xe.getKey2(),
-			xe.getKey3(),
-			xe.getKey4()
-		});
-		return xteaKey;
+		private final int cacheId;
+		private final Map<Integer, ArchiveEntry> archives;
+
+		MapArchives(int cacheId, Map<Integer, ArchiveEntry> archives)
+		{
+			this.cacheId = cacheId;
+			this.archives = archives;
+		}
 	}
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.account;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import net.runelite.http.api.RuneliteAPI;
+import net.runelite.http.service.account.beans.SessionEntry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.sql2o.Connection;
+import org.sql2o.Query;
+import org.sql2o.Sql2o;
+
+public class AuthFilterTest
+{
+	private final UUID uuid = UUID.randomUUID();
+
+	private Sql2o sql2o;
+	private Query query;
+	private HttpServletRequest request;
+	private HttpServletResponse response;
+	private AuthFilter authFilter;
+
+	@Before
+	public void before()
+	{
+		// the query builder methods return the query itself
+		query = mock(Query.class, invocation -> invocation.getMethod().getReturnType().isInstance(invocation.getMock())
+			? invocation.getMock()
+			: RETURNS_DEFAULTS.answer(invocation));
+
+		Connection con = mock(Connection.class);
+		when(con.createQuery(anyString())).thenReturn(query);
+
+		sql2o = mock(Sql2o.class);
+		when(sql2o.open()).thenReturn(con);
+		when(sql2o.beginTransaction()).thenReturn(con);
+
+		SessionEntry session = new SessionEntry();
+		session.setUser(1);
+		session.setUuid(uuid);
+		session.setCreated(Instant.now());
+		when(query.executeAndFetchFirst(SessionEntry.class)).thenReturn(session);
+
+		request = mock(HttpServletRequest.class);
+		when(request.getHeader(RuneliteAPI.RUNELITE_AUTH)).thenReturn(uuid.toString());
+		response = mock(HttpServletResponse.class);
+
+		authFilter = new AuthFilter(sql2o);
+	}
+
+	@Test
+	public void testFlushKeepsNewerLastUsed() throws Exception
+	{
+		Assert.assertNotNull(authFilter.handle(request, response));
+
+		AtomicInteger batches = new AtomicInteger();
+		when(query.executeBatch()).thenAnswer(invocation ->
+		{
+			if (batches.incrementAndGet() == 1)
+			{
+				// the session is used again while its last used time is written
+				Thread.sleep(2L);
+				authFilter.handle(request, response);
+			}
+			return null;
+		});
+
+		authFilter.flush();
+		Assert.assertEquals(1, batches.get());
+
+		// the newer time is still pending
+		authFilter.flush();
+		Assert.assertEquals(2, batches.get());
+
+		authFilter.flush();
+		Assert.assertEquals(2, batches.get());
+	}
+
+	@Test
+	public void testInvalidateWhileLoading() throws Exception
+	{
+		SessionEntry session = new SessionEntry();
+		session.setUser(1);
+		session.setUuid(uuid);
+		session.setCreated(Instant.now());
+
+		// the session is logged out while it is read from the database
+		when(query.executeAndFetchFirst(SessionEntry.class)).thenAnswer(invocation ->
+		{
+			authFilter.invalidate(uuid);
+			return session;
+		});
+
+		Assert.assertNull(authFilter.handle(request, response));
+
+		// and is not left cached
+		when(query.executeAndFetchFirst(SessionEntry.class)).thenReturn(null);
+		Assert.assertNull(authFilter.handle(request, response));
+	}
+}
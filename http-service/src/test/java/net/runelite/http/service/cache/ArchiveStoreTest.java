@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.cache;
+
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ArchiveStoreTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testLocalArchiveStore() throws IOException
+	{
+		LocalArchiveStore store = new LocalArchiveStore(folder.getRoot());
+
+		byte[] data = "test".getBytes();
+		byte[] hash = Hashing.sha256().hashBytes(data).asBytes();
+
+		Assert.assertFalse(store.exists(hash));
+		Assert.assertNull(store.get(hash));
+		Assert.assertEquals(-1L, store.transferTo(hash, Channels.newChannel(new ByteArrayOutputStream())));
+
+		store.put(hash, data);
+		store.put(hash, data);
+
+		Assert.assertTrue(store.exists(hash));
+		Assert.assertTrue(new File(folder.getRoot(), ArchiveStore.path(hash)).isFile());
+		Assert.assertArrayEquals(data, store.get(hash));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Assert.assertEquals(data.length, store.transferTo(hash, Channels.newChannel(out)));
+		Assert.assertArrayEquals(data, out.toByteArray());
+	}
+
+	@Test
+	public void testCachingArchiveStore() throws IOException
+	{
+		AtomicInteger reads = new AtomicInteger();
+		LocalArchiveStore local = new LocalArchiveStore(folder.getRoot())
+		{
+			@Override
+			public byte[] get(byte[] hash) throws IOException
+			{
+				reads.incrementAndGet();
+				return super.get(hash);
+			}
+		};
+		CachingArchiveStore store = new CachingArchiveStore(local, 1024L);
+
+		byte[] data = "test".getBytes();
+		byte[] hash = Hashing.sha256().hashBytes(data).asBytes();
+
+		// missing archives are not remembered
+		Assert.assertNull(store.get(hash));
+		store.put(hash, data);
+		Assert.assertTrue(store.exists(hash));
+		Assert.assertEquals(0L, store.size());
+
+		Assert.assertArrayEquals(data, store.get(hash));
+		Assert.assertArrayEquals(data, store.get(hash));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Assert.assertEquals(data.length, store.transferTo(hash, Channels.newChannel(out)));
+		Assert.assertArrayEquals(data, out.toByteArray());
+
+		Assert.assertEquals(2, reads.get());
+		Assert.assertEquals(1L, store.size());
+		Assert.assertEquals(2L, store.getStats().hitCount());
+	}
+
+	@Test
+	public void testCachingArchiveStoreTransfer() throws IOException
+	{
+		AtomicInteger reads = new AtomicInteger();
+		AtomicInteger transfers = new AtomicInteger();
+		LocalArchiveStore local = new LocalArchiveStore(folder.getRoot())
+		{
+			@Override
+			public byte[] get(byte[] hash) throws IOException
+			{
+				reads.incrementAndGet();
+				return super.get(hash);
+			}
+
+			@Override
+			public long transferTo(byte[] hash, WritableByteChannel channel) throws IOException
+			{
+				transfers.incrementAndGet();
+				return super.transferTo(hash, channel);
+			}
+		};
+		CachingArchiveStore store = new CachingArchiveStore(local, 1024L);
+
+		byte[] data = "test".getBytes();
+		byte[] hash = Hashing.sha256().hashBytes(data).asBytes();
+
+		Assert.assertEquals(-1L, store.transferTo(hash, Channels.newChannel(new ByteArrayOutputStream())));
+		store.put(hash, data);
+
+		// archives which are not cached are transferred by the backing store
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Assert.assertEquals(data.length, store.transferTo(hash, Channels.newChannel(out)));
+		Assert.assertArrayEquals(data, out.toByteArray());
+		Assert.assertEquals(0, reads.get());
+		Assert.assertEquals(2, transfers.get());
+
+		// and cached ones from memory
+		Assert.assertArrayEquals(data, store.get(hash));
+		out = new ByteArrayOutputStream();
+		Assert.assertEquals(data.length, store.transferTo(hash, Channels.newChannel(out)));
+		Assert.assertArrayEquals(data, out.toByteArray());
+		Assert.assertEquals(1, reads.get());
+		Assert.assertEquals(2, transfers.get());
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import net.runelite.cache.ConfigType;
+import net.runelite.cache.fs.ArchiveFiles;
+import net.runelite.cache.fs.FSFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DefinitionCacheTest
+{
+	private final AtomicInteger archiveLoads = new AtomicInteger();
+	private final AtomicInteger definitionLoads = new AtomicInteger();
+
+	@Test
+	public void testGetDefinition() throws Exception
+	{
+		DefinitionCache cache = new DefinitionCache();
+
+		Assert.assertEquals("test1", getDefinition(cache, 1, 1));
+		Assert.assertEquals("test1", getDefinition(cache, 1, 1));
+		Assert.assertEquals("test2", getDefinition(cache, 1, 2));
+		Assert.assertNull(getDefinition(cache, 1, 3));
+
+		Assert.assertEquals(1, archiveLoads.get());
+		Assert.assertEquals(2, definitionLoads.get());
+		Assert.assertEquals(1, cache.getDefinitionHits());
+		Assert.assertEquals(2, cache.getDefinitionMisses());
+		Assert.assertEquals(1, cache.getArchiveStats().missCount());
+		Assert.assertEquals(3, cache.getArchiveStats().hitCount());
+	}
+
+	@Test
+	public void testMissingArchive() throws Exception
+	{
+		DefinitionCache cache = new DefinitionCache();
+
+		Assert.assertNull(cache.getDefinition(1, ConfigType.ITEM, 1, () -> null, (id, b) -> new String(b)));
+		Assert.assertEquals(0, cache.size());
+
+		// missing archives are not remembered
+		Assert.assertEquals("test1", getDefinition(cache, 1, 1));
+	}
+
+	@Test
+	public void testRetainCache() throws Exception
+	{
+		DefinitionCache cache = new DefinitionCache();
+
+		getDefinition(cache, 1, 1);
+		getDefinition(cache, 2, 1);
+		Assert.assertEquals(2, cache.size());
+
+		cache.retainCache(2);
+		Assert.assertEquals(1, cache.size());
+
+		getDefinition(cache, 2, 1);
+		Assert.assertEquals(2, archiveLoads.get());
+	}
+
+	private String getDefinition(DefinitionCache cache, int cacheId, int id) throws Exception
+	{
+		return cache.getDefinition(cacheId, ConfigType.ITEM, id, () ->
+		{
+			archiveLoads.incrementAndGet();
+
+			ArchiveFiles files = new ArchiveFiles();
+			for (int i = 0; i < 3; ++i)
+			{
+				FSFile file = new FSFile(i);
+				file.setContents(("test" + i).getBytes());
+				files.addFile(file);
+			}
+			return files;
+		}, (defId, b) ->
+		{
+			definitionLoads.incrementAndGet();
+			return new String(b);
+		});
+	}
+}
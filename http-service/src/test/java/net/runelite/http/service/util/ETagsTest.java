@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ETagsTest
+{
+	private static final String ETAG = "\"abc\"";
+
+	@Test
+	public void testMatches()
+	{
+		Assert.assertTrue(ETags.matches("\"abc\"", ETAG));
+		Assert.assertTrue(ETags.matches("W/\"abc\"", ETAG));
+		Assert.assertTrue(ETags.matches("\"xyz\", W/\"abc\"", ETAG));
+		Assert.assertTrue(ETags.matches("\"x,y\",\"abc\"", ETAG));
+		Assert.assertTrue(ETags.matches(" * ", ETAG));
+	}
+
+	@Test
+	public void testNotMatches()
+	{
+		Assert.assertFalse(ETags.matches(null, ETAG));
+		Assert.assertFalse(ETags.matches("", ETAG));
+		Assert.assertFalse(ETags.matches("\"abcd\"", ETAG));
+		Assert.assertFalse(ETags.matches("abc", ETAG));
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.util;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SingleFlightTest
+{
+	@Test
+	public void testCoalesce() throws Exception
+	{
+		SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try
+		{
+			Future<String> first = executor.submit(() -> singleFlight.get(1, () ->
+			{
+				started.countDown();
+				release.await();
+				return "test";
+			}));
+
+			started.await();
+
+			// completes the first load from the second caller
+			Thread releaser = new Thread(() ->
+			{
+				while (singleFlight.getCoalesced() == 0)
+				{
+					Thread.yield();
+				}
+				release.countDown();
+			});
+			releaser.start();
+
+			String second = singleFlight.get(1, () ->
+			{
+				throw new AssertionError("second loader run");
+			});
+
+			Assert.assertEquals("test", second);
+			Assert.assertEquals("test", first.get(10, TimeUnit.SECONDS));
+			Assert.assertEquals(1L, singleFlight.getIssued());
+			Assert.assertEquals(1L, singleFlight.getCoalesced());
+
+			// nothing is remembered once the load finishes
+			Assert.assertEquals("test2", singleFlight.get(1, () -> "test2"));
+			Assert.assertEquals(2L, singleFlight.getIssued());
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testException() throws IOException
+	{
+		SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+		singleFlight.get(1, () ->
+		{
+			throw new IOException();
+		});
+	}
+}
@@ -34,6 +34,8 @@ import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.sql2o.tools.IOUtils;
 
 public class WorldsServiceTest
@@ -70,4 +72,24 @@ public class WorldsServiceTest
 		Assert.assertEquals(82, worldResult.getWorlds().size());
 	}
 
+	@Test
+	public void testGetWorlds() throws Exception
+	{
+		WorldsService worlds = new WorldsService();
+		worlds.setUrl(server.url("/"));
+
+		ResponseEntity<byte[]> response = worlds.getWorlds(null);
+		Assert.assertEquals(HttpStatus.OK, response.getStatusCode());
+
+		String etag = response.getHeaders().getETag();
+		Assert.assertNotNull(etag);
+
+		response = worlds.getWorlds(etag);
+		Assert.assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+
+		// served from memory
+		Assert.assertEquals(82, worlds.listWorlds().getWorlds().size());
+		Assert.assertEquals(1, server.getRequestCount());
+	}
+
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.http.service.xtea;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class XteaKeyTableTest
+{
+	@Test
+	public void testPut()
+	{
+		XteaKeyTable table = new XteaKeyTable();
+		int[] keys = new int[]
+		{
+			1, 2, 3, 4
+		};
+
+		Assert.assertNull(table.get(12850));
+		Assert.assertFalse(table.contains(12850, keys));
+
+		table.put(12850, keys);
+
+		Assert.assertArrayEquals(keys, table.get(12850));
+		Assert.assertTrue(table.contains(12850, keys));
+		Assert.assertFalse(table.contains(12850, new int[]
+		{
+			1, 2, 3, 5
+		}));
+		Assert.assertFalse(table.contains(-1, keys));
+		Assert.assertNull(table.get(XteaKeyTable.REGIONS));
+		Assert.assertEquals(1, table.size());
+	}
+
+	@Test
+	public void testSnapshot()
+	{
+		XteaKeyTable table = new XteaKeyTable();
+		table.put(2, new int[]
+		{
+			5, 6, 7, 8
+		});
+		table.put(1, new int[]
+		{
+			1, 2, 3, 4
+		});
+
+		XteaKeyTable.Snapshot snapshot = table.getSnapshot();
+		Assert.assertSame(snapshot, table.getSnapshot());
+		Assert.assertEquals("[{\"region\":1,\"keys\":[1,2,3,4]},{\"region\":2,\"keys\":[5,6,7,8]}]",
+			new String(snapshot.getData(), StandardCharsets.UTF_8));
+
+		table.put(1, new int[]
+		{
+			1, 2, 3, 5
+		});
+
+		XteaKeyTable.Snapshot snapshot2 = table.getSnapshot();
+		Assert.assertNotEquals(snapshot.getEtag(), snapshot2.getEtag());
+	}
+}
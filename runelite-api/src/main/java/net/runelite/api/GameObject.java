@@ -33,4 +33,32 @@ import java.awt.Polygon;
 public interface GameObject extends TileObject
 {
 	Polygon getConvexHull();
+
+	/**
+	 * Get the scene x coordinate of the western tiles this object covers
+	 *
+	 * @return
+	 */
+	int getRelativeX();
+
+	/**
+	 * Get the scene y coordinate of the southern tiles this object covers
+	 *
+	 * @return
+	 */
+	int getRelativeY();
+
+	/**
+	 * Get the scene x coordinate of the eastern tiles this object covers
+	 *
+	 * @return
+	 */
+	int getOffsetX();
+
+	/**
+	 * Get the scene y coordinate of the northern tiles this object covers
+	 *
+	 * @return
+	 */
+	int getOffsetY();
 }
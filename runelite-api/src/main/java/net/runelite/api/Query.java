@@ -25,6 +25,7 @@
 package net.runelite.api;
 
 import java.util.function.Predicate;
+import net.runelite.api.queries.QueryCache;
 
 public abstract class Query<EntityType, QueryType>
 {
@@ -36,6 +37,19 @@ public abstract class Query<EntityType, QueryType>
 
 	public abstract EntityType[] result(Client client);
 
+	/**
+	 * Run this query on the snapshots held by the cache, which are shared
+	 * with the other queries run with it
+	 *
+	 * @param client
+	 * @param cache
+	 * @return
+	 */
+	public EntityType[] result(Client client, QueryCache cache)
+	{
+		return result(client);
+	}
+
 	protected Predicate<EntityType> and(Predicate<EntityType> other)
 	{
 		if (predicate == null)
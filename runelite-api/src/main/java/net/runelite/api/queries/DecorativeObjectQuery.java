@@ -26,31 +26,24 @@ package net.runelite.api.queries;
 
 import net.runelite.api.Client;
 import net.runelite.api.DecorativeObject;
-import net.runelite.api.Tile;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Objects;
+import java.util.List;
 
 public class DecorativeObjectQuery extends TileObjectQuery<DecorativeObject, DecorativeObjectQuery>
 {
 	@Override
-	public DecorativeObject[] result(Client client)
+	protected DecorativeObject[] collect(Client client, TileObjectIndex index)
 	{
-		return getDecorativeObjects(client).stream()
-			.filter(Objects::nonNull)
-			.filter(predicate)
-			.distinct()
-			.toArray(DecorativeObject[]::new);
-	}
-
-	private Collection<DecorativeObject> getDecorativeObjects(Client client)
-	{
-		Collection<DecorativeObject> objects = new ArrayList<>();
-		for (Tile tile : getTiles(client))
+		List<DecorativeObject> objects = new ArrayList<>();
+		forEachTile(client, index, tile ->
 		{
-			objects.add(tile.getDecorativeObject());
-		}
-		return objects;
+			DecorativeObject object = tile.getDecorativeObject();
+			if (object != null && predicate.test(object))
+			{
+				objects.add(object);
+			}
+		});
+		return objects.toArray(new DecorativeObject[objects.size()]);
 	}
 }
@@ -33,7 +33,10 @@ import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 public class EquipmentItemQuery extends WidgetItemQuery
 {
@@ -63,30 +66,43 @@ public class EquipmentItemQuery extends WidgetItemQuery
 	@Override
 	public WidgetItem[] result(Client client)
 	{
-		Collection<WidgetItem> widgetItems = getEquippedItems(client);
-		if (widgetItems != null)
-		{
-			return widgetItems.stream()
-				.filter(Objects::nonNull)
-				.filter(predicate)
-				.toArray(WidgetItem[]::new);
-		}
-		return new WidgetItem[0];
+		return result(getEquippedItems(client));
+	}
+
+	@Override
+	public WidgetItem[] result(Client client, QueryCache cache)
+	{
+		return result(cache.getEquippedItems(client));
 	}
 
-	private Collection<WidgetItem> getEquippedItems(Client client)
+	private WidgetItem[] result(Map<WidgetInfo, WidgetItem> equippedItems)
 	{
-		Collection<WidgetItem> widgetItems = new ArrayList<>();
+		Collection<WidgetItem> widgetItems = slots.isEmpty()
+			? equippedItems.values()
+			: slots.stream().map(equippedItems::get).collect(Collectors.toList());
+		return widgetItems.stream()
+			.filter(Objects::nonNull)
+			.filter(predicate)
+			.toArray(WidgetItem[]::new);
+	}
+
+	/**
+	 * Get the item in each equipment slot, keyed by the widget of the slot.
+	 * Empty slots have an item id of -1.
+	 */
+	static Map<WidgetInfo, WidgetItem> getEquippedItems(Client client)
+	{
+		Map<WidgetInfo, WidgetItem> widgetItems = new LinkedHashMap<>();
 		Widget equipment = client.getWidget(WidgetInfo.EQUIPMENT);
 		if (equipment != null && !equipment.isHidden())
 		{
-			if (slots.isEmpty())
-			{
-				slots.addAll(Arrays.asList(ALL_EQUIPMENT_WIDGET_INFOS));
-			}
-			for (WidgetInfo slot : slots)
+			for (WidgetInfo slot : ALL_EQUIPMENT_WIDGET_INFOS)
 			{
 				Widget parentWidget = client.getWidget(slot);
+				if (parentWidget == null)
+				{
+					continue;
+				}
 				Widget itemWidget = parentWidget.getChild(1);
 				// Check if background icon is hidden. if hidden, item is equipped.
 				boolean equipped = parentWidget.getChild(2).isHidden();
@@ -94,7 +110,7 @@ public class EquipmentItemQuery extends WidgetItemQuery
 				Rectangle bounds = itemWidget.getBounds();
 				bounds.setBounds(bounds.x - 1, bounds.y - 1, 32, 32);
 				// Index is set to 0 because there is no set in stone order of equipment slots
-				widgetItems.add(new WidgetItem(equipped ? itemWidget.getItemId() : -1, itemWidget.getItemQuantity(), 0, bounds));
+				widgetItems.put(slot, new WidgetItem(equipped ? itemWidget.getItemId() : -1, itemWidget.getItemQuantity(), 0, bounds));
 			}
 		}
 		return widgetItems;
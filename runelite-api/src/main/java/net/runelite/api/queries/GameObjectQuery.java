@@ -26,36 +26,33 @@ package net.runelite.api.queries;
 
 import net.runelite.api.Client;
 import net.runelite.api.GameObject;
-import net.runelite.api.Tile;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Objects;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 public class GameObjectQuery extends TileObjectQuery<GameObject, GameObjectQuery>
 {
 	@Override
-	public GameObject[] result(Client client)
+	protected GameObject[] collect(Client client, TileObjectIndex index)
 	{
-		return getGameObjects(client).stream()
-			.filter(Objects::nonNull)
-			.filter(predicate)
-			.distinct()
-			.toArray(GameObject[]::new);
-	}
-
-	private Collection<GameObject> getGameObjects(Client client)
-	{
-		Collection<GameObject> objects = new ArrayList<>();
-		for (Tile tile : getTiles(client))
+		// objects larger than a tile are on each of the tiles they cover
+		Set<GameObject> objects = new LinkedHashSet<>();
+		forEachTile(client, index, tile ->
 		{
 			GameObject[] gameObjects = tile.getGameObjects();
-			if (gameObjects != null)
+			if (gameObjects == null)
+			{
+				return;
+			}
+
+			for (GameObject object : gameObjects)
 			{
-				objects.addAll(Arrays.asList(gameObjects));
+				if (object != null && predicate.test(object))
+				{
+					objects.add(object);
+				}
 			}
-		}
-		return objects;
+		});
+		return objects.toArray(new GameObject[objects.size()]);
 	}
 }
@@ -26,31 +26,24 @@ package net.runelite.api.queries;
 
 import net.runelite.api.Client;
 import net.runelite.api.GroundObject;
-import net.runelite.api.Tile;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Objects;
+import java.util.List;
 
 public class GroundObjectQuery extends TileObjectQuery<GroundObject, GroundObjectQuery>
 {
 	@Override
-	public GroundObject[] result(Client client)
+	protected GroundObject[] collect(Client client, TileObjectIndex index)
 	{
-		return getGroundObjects(client).stream()
-			.filter(Objects::nonNull)
-			.filter(predicate)
-			.distinct()
-			.toArray(GroundObject[]::new);
-	}
-
-	private Collection<GroundObject> getGroundObjects(Client client)
-	{
-		Collection<GroundObject> objects = new ArrayList<>();
-		for (Tile tile : getTiles(client))
+		List<GroundObject> objects = new ArrayList<>();
+		forEachTile(client, index, tile ->
 		{
-			objects.add(tile.getGroundObject());
-		}
-		return objects;
+			GroundObject object = tile.getGroundObject();
+			if (object != null && predicate.test(object))
+			{
+				objects.add(object);
+			}
+		});
+		return objects.toArray(new GroundObject[objects.size()]);
 	}
 }
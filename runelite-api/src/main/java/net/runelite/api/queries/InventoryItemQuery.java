@@ -47,18 +47,24 @@ public class InventoryItemQuery extends WidgetItemQuery
 	@Override
 	public WidgetItem[] result(Client client)
 	{
-		Collection<WidgetItem> widgetItems = getInventoryItems(client);
-		if (widgetItems != null)
-		{
-			return widgetItems.stream()
-				.filter(Objects::nonNull)
-				.filter(predicate)
-				.toArray(WidgetItem[]::new);
-		}
-		return new WidgetItem[0];
+		return result(getInventoryItems(client));
+	}
+
+	@Override
+	public WidgetItem[] result(Client client, QueryCache cache)
+	{
+		return result(cache.getInventoryItems(client));
+	}
+
+	private WidgetItem[] result(Collection<WidgetItem> widgetItems)
+	{
+		return widgetItems.stream()
+			.filter(Objects::nonNull)
+			.filter(predicate)
+			.toArray(WidgetItem[]::new);
 	}
 
-	private Collection<WidgetItem> getInventoryItems(Client client)
+	static Collection<WidgetItem> getInventoryItems(Client client)
 	{
 		Collection<WidgetItem> widgetItems = new ArrayList<>();
 		for (WidgetInfo widgetInfo : INVENTORY_WIDGET_INFOS)
@@ -27,13 +27,25 @@ package net.runelite.api.queries;
 import net.runelite.api.Client;
 import net.runelite.api.NPC;
 
+import java.util.List;
 
 public class NPCQuery extends ActorQuery<NPC, NPCQuery>
 {
 	@Override
 	public NPC[] result(Client client)
 	{
-		return client.getNpcs().stream()
+		return result(client.getNpcs());
+	}
+
+	@Override
+	public NPC[] result(Client client, QueryCache cache)
+	{
+		return result(cache.getNpcs(client));
+	}
+
+	private NPC[] result(List<NPC> npcs)
+	{
+		return npcs.stream()
 				.filter(predicate)
 				.toArray(NPC[]::new);
 	}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.api.queries;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import net.runelite.api.Client;
+import net.runelite.api.NPC;
+import net.runelite.api.widgets.WidgetInfo;
+import net.runelite.api.widgets.WidgetItem;
+
+/**
+ * Snapshots of the entities which queries select from, shared between
+ * all of the queries run with this cache until it is cleared
+ */
+public class QueryCache
+{
+	private final TileObjectIndex tileObjectIndex;
+
+	private List<NPC> npcs;
+	private Collection<WidgetItem> inventoryItems;
+	private Map<WidgetInfo, WidgetItem> equippedItems;
+
+	public QueryCache()
+	{
+		this(null);
+	}
+
+	/**
+	 * @param tileObjectIndex index of the scene objects kept up to date by
+	 * the client, which outlives the snapshots
+	 */
+	public QueryCache(TileObjectIndex tileObjectIndex)
+	{
+		this.tileObjectIndex = tileObjectIndex;
+	}
+
+	TileObjectIndex getTileObjectIndex()
+	{
+		return tileObjectIndex;
+	}
+
+	synchronized List<NPC> getNpcs(Client client)
+	{
+		if (npcs == null)
+		{
+			npcs = Collections.unmodifiableList(client.getNpcs());
+		}
+		return npcs;
+	}
+
+	synchronized Collection<WidgetItem> getInventoryItems(Client client)
+	{
+		if (inventoryItems == null)
+		{
+			inventoryItems = Collections.unmodifiableCollection(InventoryItemQuery.getInventoryItems(client));
+		}
+		return inventoryItems;
+	}
+
+	synchronized Map<WidgetInfo, WidgetItem> getEquippedItems(Client client)
+	{
+		if (equippedItems == null)
+		{
+			equippedItems = Collections.unmodifiableMap(EquipmentItemQuery.getEquippedItems(client));
+		}
+		return equippedItems;
+	}
+
+	/**
+	 * Discard the snapshots, so the next queries read them from the client again
+	 */
+	public synchronized void clear()
+	{
+		npcs = null;
+		inventoryItems = null;
+		equippedItems = null;
+	}
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.api.queries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import net.runelite.api.DecorativeObject;
+import net.runelite.api.GameObject;
+import net.runelite.api.GroundObject;
+import net.runelite.api.Tile;
+import net.runelite.api.WallObject;
+
+/**
+ * Index of the scene tiles holding objects of each id, so queries for
+ * given ids only visit those tiles. Changes to the scene mark the tiles
+ * they touch, which are read again by the next lookup of their plane.
+ * The client marks tiles before it changes them, so lookups have to be
+ * done on the client thread.
+ */
+public class TileObjectIndex
+{
+	private static final int PLANES = 4;
+	private static final int REGION_SIZE = 104;
+	private static final int[] NO_IDS = new int[0];
+
+	// scene the index was built from
+	private Tile[][][] scene;
+	// ids of the objects on each tile when it was last read, by plane, x and y
+	private final int[][][][] tileIds = new int[PLANES][REGION_SIZE][REGION_SIZE][];
+	// tiles holding objects of each id, packed as x << 8 | y, by plane
+	private final List<Map<Integer, Set<Integer>>> tilesById = new ArrayList<>(PLANES);
+	// tiles changed since they were last read, by plane
+	private final List<Set<Integer>> dirtyTiles = new ArrayList<>(PLANES);
+	// planes which have to be read again in full
+	private final boolean[] stale = new boolean[PLANES];
+
+	public TileObjectIndex()
+	{
+		for (int plane = 0; plane < PLANES; ++plane)
+		{
+			tilesById.add(new HashMap<>());
+			dirtyTiles.add(new HashSet<>());
+			stale[plane] = true;
+		}
+	}
+
+	/**
+	 * Mark a tile whose objects are about to change
+	 *
+	 * @param plane
+	 * @param x
+	 * @param y
+	 */
+	public synchronized void tileChanged(int plane, int x, int y)
+	{
+		areaChanged(plane, x, y, x, y);
+	}
+
+	/**
+	 * Mark the tiles within the given bounds, inclusive, whose objects are
+	 * about to change
+	 *
+	 * @param plane
+	 * @param minX
+	 * @param minY
+	 * @param maxX
+	 * @param maxY
+	 */
+	public synchronized void areaChanged(int plane, int minX, int minY, int maxX, int maxY)
+	{
+		if (plane < 0 || plane >= PLANES || stale[plane])
+		{
+			return;
+		}
+
+		Set<Integer> dirty = dirtyTiles.get(plane);
+		for (int x = Math.max(0, minX); x <= Math.min(REGION_SIZE - 1, maxX); ++x)
+		{
+			for (int y = Math.max(0, minY); y <= Math.min(REGION_SIZE - 1, maxY); ++y)
+			{
+				dirty.add(x << 8 | y);
+			}
+		}
+	}
+
+	/**
+	 * Read every plane again on its next lookup, for when the whole scene
+	 * is replaced
+	 */
+	public synchronized void invalidate()
+	{
+		for (int plane = 0; plane < PLANES; ++plane)
+		{
+			stale[plane] = true;
+			tilesById.get(plane).clear();
+			dirtyTiles.get(plane).clear();
+		}
+	}
+
+	/**
+	 * Get the tiles of a plane holding objects with any of the given ids,
+	 * packed as x << 8 | y, in the order a scan of the plane visits them
+	 *
+	 * @param scene tiles of the scene, by plane, x and y
+	 * @param plane
+	 * @param ids
+	 * @return
+	 */
+	synchronized int[] getTiles(Tile[][][] scene, int plane, int[] ids)
+	{
+		if (scene != this.scene)
+		{
+			invalidate();
+			this.scene = scene;
+		}
+
+		refresh(scene[plane], plane);
+
+		Map<Integer, Set<Integer>> byId = tilesById.get(plane);
+		Set<Integer> found = new HashSet<>();
+		for (int id : ids)
+		{
+			Set<Integer> tiles = byId.get(id);
+			if (tiles != null)
+			{
+				found.addAll(tiles);
+			}
+		}
+
+		return found.stream()
+			.mapToInt(Integer::intValue)
+			.sorted()
+			.toArray();
+	}
+
+	private void refresh(Tile[][] tiles, int plane)
+	{
+		Set<Integer> dirty = dirtyTiles.get(plane);
+
+		if (stale[plane])
+		{
+			for (int x = 0; x < REGION_SIZE; ++x)
+			{
+				for (int y = 0; y < REGION_SIZE; ++y)
+				{
+					index(tiles[x][y], plane, x, y);
+				}
+			}
+
+			stale[plane] = false;
+			dirty.clear();
+			return;
+		}
+
+		for (int packed : dirty)
+		{
+			int x = packed >> 8;
+			int y = packed & 0xFF;
+
+			unindex(plane, x, y);
+			index(tiles[x][y], plane, x, y);
+		}
+
+		dirty.clear();
+	}
+
+	private void index(Tile tile, int plane, int x, int y)
+	{
+		int[] ids = getIds(tile);
+		tileIds[plane][x][y] = ids;
+
+		Map<Integer, Set<Integer>> byId = tilesById.get(plane);
+		for (int id : ids)
+		{
+			byId.computeIfAbsent(id, k -> new HashSet<>()).add(x << 8 | y);
+		}
+	}
+
+	private void unindex(int plane, int x, int y)
+	{
+		int[] ids = tileIds[plane][x][y];
+		if (ids == null)
+		{
+			return;
+		}
+
+		Map<Integer, Set<Integer>> byId = tilesById.get(plane);
+		for (int id : ids)
+		{
+			Set<Integer> tiles = byId.get(id);
+			if (tiles != null)
+			{
+				tiles.remove(x << 8 | y);
+				if (tiles.isEmpty())
+				{
+					byId.remove(id);
+				}
+			}
+		}
+
+		tileIds[plane][x][y] = null;
+	}
+
+	private static int[] getIds(Tile tile)
+	{
+		if (tile == null)
+		{
+			return NO_IDS;
+		}
+
+		GameObject[] gameObjects = tile.getGameObjects();
+		int[] ids = new int[3 + (gameObjects != null ? gameObjects.length : 0)];
+		int count = 0;
+
+		WallObject wallObject = tile.getWallObject();
+		if (wallObject != null)
+		{
+			ids[count++] = wallObject.getId();
+		}
+
+		DecorativeObject decorativeObject = tile.getDecorativeObject();
+		if (decorativeObject != null)
+		{
+			ids[count++] = decorativeObject.getId();
+		}
+
+		GroundObject groundObject = tile.getGroundObject();
+		if (groundObject != null)
+		{
+			ids[count++] = groundObject.getId();
+		}
+
+		if (gameObjects != null)
+		{
+			for (GameObject gameObject : gameObjects)
+			{
+				if (gameObject != null)
+				{
+					ids[count++] = gameObject.getId();
+				}
+			}
+		}
+
+		return count == 0 ? NO_IDS : Arrays.copyOf(ids, count);
+	}
+}
@@ -25,44 +25,110 @@
 package net.runelite.api.queries;
 
 import static java.lang.Math.abs;
+import static net.runelite.api.Perspective.LOCAL_COORD_BITS;
 import net.runelite.api.Client;
 import net.runelite.api.Point;
 import net.runelite.api.Query;
-import net.runelite.api.Region;
 import net.runelite.api.Tile;
 import net.runelite.api.TileObject;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.function.Consumer;
 
 public abstract class TileObjectQuery<EntityType extends TileObject, QueryType> extends Query<EntityType, QueryType>
 {
 	private static final int REGION_SIZE = 104;
 
-	protected List<Tile> getTiles(Client client)
+	// Bounds of the scene tiles which may hold matching objects. The location
+	// predicates narrow these so that only the tiles they can match are visited.
+	private int minX = 0;
+	private int minY = 0;
+	private int maxX = REGION_SIZE - 1;
+	private int maxY = REGION_SIZE - 1;
+	// ids the objects have to match, or null if any
+	private int[] ids;
+
+	@Override
+	public EntityType[] result(Client client)
+	{
+		return collect(client, null);
+	}
+
+	@Override
+	public EntityType[] result(Client client, QueryCache cache)
+	{
+		return collect(client, cache.getTileObjectIndex());
+	}
+
+	/**
+	 * Collects the objects matching this query from the tiles it visits
+	 *
+	 * @param client
+	 * @param index index of the tiles holding each object id, or null to
+	 * visit every tile within the bounds
+	 * @return
+	 */
+	protected abstract EntityType[] collect(Client client, TileObjectIndex index);
+
+	/**
+	 * Calls the consumer for each tile of the current plane within the
+	 * bounds of this query. If the query matches ids and an index is
+	 * given, only the tiles holding objects with those ids are visited.
+	 *
+	 * @param client
+	 * @param index
+	 * @param consumer
+	 */
+	protected void forEachTile(Client client, TileObjectIndex index, Consumer<Tile> consumer)
 	{
-		List<Tile> tilesList = new ArrayList<>();
-		Region region = client.getRegion();
-		Tile[][][] tiles = region.getTiles();
-		int z = client.getPlane();
-		for (int x = 0; x < REGION_SIZE; ++x)
+		Tile[][][] scene = client.getRegion().getTiles();
+		int plane = client.getPlane();
+		Tile[][] tiles = scene[plane];
+
+		if (index != null && ids != null)
 		{
-			for (int y = 0; y < REGION_SIZE; ++y)
+			for (int packed : index.getTiles(scene, plane, ids))
 			{
-				Tile tile = tiles[z][x][y];
-				if (tile == null)
+				int x = packed >> 8;
+				int y = packed & 0xFF;
+				if (x >= minX && x <= maxX && y >= minY && y <= maxY && tiles[x][y] != null)
 				{
-					continue;
+					consumer.accept(tiles[x][y]);
 				}
-				tilesList.add(tile);
 			}
+			return;
 		}
-		return tilesList;
+
+		for (int x = minX; x <= maxX; ++x)
+		{
+			for (int y = minY; y <= maxY; ++y)
+			{
+				Tile tile = tiles[x][y];
+				if (tile != null)
+				{
+					consumer.accept(tile);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Narrows the tiles visited by this query to those containing the given
+	 * bounds, in local coordinates
+	 */
+	private void narrow(int localMinX, int localMinY, int localMaxX, int localMaxY)
+	{
+		minX = Math.max(minX, localMinX >> LOCAL_COORD_BITS);
+		minY = Math.max(minY, localMinY >> LOCAL_COORD_BITS);
+		maxX = Math.min(maxX, localMaxX >> LOCAL_COORD_BITS);
+		maxY = Math.min(maxY, localMaxY >> LOCAL_COORD_BITS);
 	}
 
 	@SuppressWarnings("unchecked")
 	public QueryType idEquals(int... ids)
 	{
+		// the objects have to match the ids of each call, so the tiles
+		// holding those of the last one are enough
+		this.ids = ids.clone();
 		predicate = and(object ->
 		{
 			for (int id : ids)
@@ -88,6 +154,7 @@ public abstract class TileObjectQuery<EntityType extends TileObject, QueryType>
 	public QueryType atLocalLocation(Point location)
 	{
 		predicate = and(object -> object.getLocalLocation().equals(location));
+		narrow(location.getX(), location.getY(), location.getX(), location.getY());
 		return (QueryType) this;
 	}
 
@@ -95,6 +162,7 @@ public abstract class TileObjectQuery<EntityType extends TileObject, QueryType>
 	public QueryType isWithinDistance(Point to, int distance)
 	{
 		predicate = and(a -> a.getLocalLocation().distanceTo(to) <= distance);
+		narrow(to.getX() - distance, to.getY() - distance, to.getX() + distance, to.getY() + distance);
 		return (QueryType) this;
 	}
 
@@ -107,6 +175,7 @@ public abstract class TileObjectQuery<EntityType extends TileObject, QueryType>
 			return abs(localLocation.getX() - from.getX()) < area
 				&& abs(localLocation.getY() - from.getY()) < area;
 		});
+		narrow(from.getX() - area + 1, from.getY() - area + 1, from.getX() + area - 1, from.getY() + area - 1);
 		return (QueryType) this;
 	}
 }
@@ -25,32 +25,25 @@
 package net.runelite.api.queries;
 
 import net.runelite.api.Client;
-import net.runelite.api.Tile;
 import net.runelite.api.WallObject;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Objects;
+import java.util.List;
 
 public class WallObjectQuery extends TileObjectQuery<WallObject, WallObjectQuery>
 {
 	@Override
-	public WallObject[] result(Client client)
+	protected WallObject[] collect(Client client, TileObjectIndex index)
 	{
-		return getWallObjects(client).stream()
-			.filter(Objects::nonNull)
-			.filter(predicate)
-			.distinct()
-			.toArray(WallObject[]::new);
-	}
-
-	private Collection<WallObject> getWallObjects(Client client)
-	{
-		Collection<WallObject> objects = new ArrayList<>();
-		for (Tile tile : getTiles(client))
+		List<WallObject> objects = new ArrayList<>();
+		forEachTile(client, index, tile ->
 		{
-			objects.add(tile.getWallObject());
-		}
-		return objects;
+			WallObject object = tile.getWallObject();
+			if (object != null && predicate.test(object))
+			{
+				objects.add(object);
+			}
+		});
+		return objects.toArray(new WallObject[objects.size()]);
 	}
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.api.queries;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.runelite.api.Client;
+import net.runelite.api.NPC;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryCacheTest
+{
+	@Test
+	public void testNpcsShared()
+	{
+		NPC goblin = npc(1);
+		NPC guard = npc(2);
+		AtomicInteger calls = new AtomicInteger();
+		Client client = (Client) Proxy.newProxyInstance(Client.class.getClassLoader(), new Class<?>[]
+		{
+			Client.class
+		}, (proxy, method, args) ->
+		{
+			if (!method.getName().equals("getNpcs"))
+			{
+				throw new UnsupportedOperationException(method.getName());
+			}
+			calls.incrementAndGet();
+			return Arrays.asList(goblin, guard);
+		});
+
+		QueryCache cache = new QueryCache();
+
+		NPC[] result = new NPCQuery().idEquals(1).result(client, cache);
+		Assert.assertArrayEquals(new NPC[]
+		{
+			goblin
+		}, result);
+
+		result = new NPCQuery().idEquals(2).result(client, cache);
+		Assert.assertArrayEquals(new NPC[]
+		{
+			guard
+		}, result);
+		Assert.assertEquals(1, calls.get());
+
+		cache.clear();
+		new NPCQuery().result(client, cache);
+		Assert.assertEquals(2, calls.get());
+	}
+
+	private static NPC npc(int id)
+	{
+		return (NPC) Proxy.newProxyInstance(NPC.class.getClassLoader(), new Class<?>[]
+		{
+			NPC.class
+		}, (proxy, method, args) ->
+		{
+			switch (method.getName())
+			{
+				case "getId":
+					return id;
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				default:
+					throw new UnsupportedOperationException(method.getName());
+			}
+		});
+	}
+}
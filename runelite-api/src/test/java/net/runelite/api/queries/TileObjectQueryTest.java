@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.api.queries;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.runelite.api.Client;
+import net.runelite.api.GameObject;
+import net.runelite.api.Point;
+import net.runelite.api.Region;
+import net.runelite.api.Tile;
+import net.runelite.api.WallObject;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TileObjectQueryTest
+{
+	private static final int REGION_SIZE = 104;
+
+	private final Tile[][][] tiles = new Tile[4][REGION_SIZE][REGION_SIZE];
+	private final AtomicInteger visited = new AtomicInteger();
+	private Client client;
+
+	@Before
+	public void before()
+	{
+		Region region = proxy(Region.class, (method, args) -> tiles);
+		client = proxy(Client.class, (method, args) ->
+		{
+			switch (method)
+			{
+				case "getRegion":
+					return region;
+				case "getPlane":
+					return 0;
+				default:
+					throw new UnsupportedOperationException(method);
+			}
+		});
+	}
+
+	@Test
+	public void testWithinArea()
+	{
+		fill();
+		WallObject near = wallObject(10, 10, 1);
+		WallObject far = wallObject(50, 50, 2);
+		tile(10, 10, near, null);
+		tile(50, 50, far, null);
+
+		WallObject[] result = new WallObjectQuery()
+			.isWithinArea(new Point(10 * 128 + 64, 10 * 128 + 64), 5 * 128)
+			.result(client);
+
+		Assert.assertArrayEquals(new WallObject[]
+		{
+			near
+		}, result);
+		Assert.assertTrue(visited.get() <= 11 * 11);
+	}
+
+	@Test
+	public void testWithinDistance()
+	{
+		WallObject object = wallObject(0, 0, 1);
+		tile(0, 0, object, null);
+
+		WallObject[] result = new WallObjectQuery()
+			.isWithinDistance(new Point(64, 64), 128)
+			.idEquals(1)
+			.result(client);
+
+		Assert.assertArrayEquals(new WallObject[]
+		{
+			object
+		}, result);
+	}
+
+	@Test
+	public void testIndexedIdEquals()
+	{
+		fill();
+		WallObject object = wallObject(30, 40, 5);
+		tile(30, 40, object, null);
+		tile(60, 70, wallObject(60, 70, 6), null);
+
+		TileObjectIndex index = new TileObjectIndex();
+		QueryCache cache = new QueryCache(index);
+
+		WallObject[] result = new WallObjectQuery()
+			.idEquals(5)
+			.result(client, cache);
+
+		Assert.assertArrayEquals(new WallObject[]
+		{
+			object
+		}, result);
+
+		// the index is built once, later queries only visit the tiles it finds
+		visited.set(0);
+		result = new WallObjectQuery()
+			.idEquals(5)
+			.result(client, cache);
+
+		Assert.assertArrayEquals(new WallObject[]
+		{
+			object
+		}, result);
+		Assert.assertEquals(1, visited.get());
+	}
+
+	@Test
+	public void testIndexTileChanged()
+	{
+		fill();
+		WallObject object = wallObject(30, 40, 5);
+		tile(30, 40, object, null);
+
+		TileObjectIndex index = new TileObjectIndex();
+		QueryCache cache = new QueryCache(index);
+
+		Assert.assertEquals(1, new WallObjectQuery()
+			.idEquals(5)
+			.result(client, cache).length);
+
+		// the object moves to another tile
+		WallObject moved = wallObject(31, 40, 5);
+		index.tileChanged(0, 30, 40);
+		index.tileChanged(0, 31, 40);
+		tile(30, 40, null, null);
+		tile(31, 40, moved, null);
+
+		WallObject[] result = new WallObjectQuery()
+			.idEquals(5)
+			.result(client, cache);
+
+		Assert.assertArrayEquals(new WallObject[]
+		{
+			moved
+		}, result);
+	}
+
+	@Test
+	public void testIndexInvalidate()
+	{
+		fill();
+		TileObjectIndex index = new TileObjectIndex();
+		QueryCache cache = new QueryCache(index);
+
+		Assert.assertEquals(0, new WallObjectQuery()
+			.idEquals(5)
+			.result(client, cache).length);
+
+		// a new scene is loaded
+		index.invalidate();
+		WallObject object = wallObject(80, 90, 5);
+		tile(80, 90, object, null);
+
+		WallObject[] result = new WallObjectQuery()
+			.idEquals(5)
+			.result(client, cache);
+
+		Assert.assertArrayEquals(new WallObject[]
+		{
+			object
+		}, result);
+	}
+
+	@Test
+	public void testGameObjectsDistinct()
+	{
+		// a 2x2 object is on each of the tiles it covers
+		GameObject object = proxy(GameObject.class, (method, args) ->
+		{
+			switch (method)
+			{
+				case "getLocalLocation":
+					return new Point(21 * 128, 21 * 128);
+				case "getId":
+					return 3;
+				default:
+					throw new UnsupportedOperationException(method);
+			}
+		});
+		for (int x = 20; x <= 21; ++x)
+		{
+			for (int y = 20; y <= 21; ++y)
+			{
+				tile(x, y, null, object);
+			}
+		}
+
+		GameObject[] result = new GameObjectQuery()
+			.idEquals(3)
+			.result(client);
+
+		Assert.assertArrayEquals(new GameObject[]
+		{
+			object
+		}, result);
+	}
+
+	private void fill()
+	{
+		for (int x = 0; x < REGION_SIZE; ++x)
+		{
+			for (int y = 0; y < REGION_SIZE; ++y)
+			{
+				tile(x, y, null, null);
+			}
+		}
+	}
+
+	private void tile(int x, int y, WallObject wallObject, GameObject gameObject)
+	{
+		tiles[0][x][y] = proxy(Tile.class, (method, args) ->
+		{
+			switch (method)
+			{
+				case "getWallObject":
+					visited.incrementAndGet();
+					return wallObject;
+				case "getGameObjects":
+					return new GameObject[]
+					{
+						gameObject
+					};
+				case "getDecorativeObject":
+				case "getGroundObject":
+					return null;
+				default:
+					throw new UnsupportedOperationException(method);
+			}
+		});
+	}
+
+	private WallObject wallObject(int x, int y, int id)
+	{
+		return proxy(WallObject.class, (method, args) ->
+		{
+			switch (method)
+			{
+				case "getLocalLocation":
+					return new Point(x * 128 + 64, y * 128 + 64);
+				case "getId":
+					return id;
+				default:
+					throw new UnsupportedOperationException(method);
+			}
+		});
+	}
+
+	private interface Handler
+	{
+		Object invoke(String method, Object[] args);
+	}
+
+	private static <T> T proxy(Class<T> clazz, Handler handler)
+	{
+		return clazz.cast(Proxy.newProxyInstance(clazz.getClassLoader(), new Class<?>[]
+		{
+			clazz
+		}, (proxy, method, args) ->
+		{
+			switch (method.getName())
+			{
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return clazz.getSimpleName();
+				default:
+					return handler.invoke(method.getName(), args);
+			}
+		}));
+	}
+}
@@ -55,6 +55,8 @@ import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import net.runelite.api.Client;
 import net.runelite.api.Query;
+import net.runelite.api.queries.QueryCache;
+import net.runelite.api.queries.TileObjectIndex;
 import net.runelite.client.account.AccountSession;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.events.SessionClose;
@@ -62,6 +64,7 @@ import net.runelite.client.events.SessionOpen;
 import net.runelite.client.menus.MenuManager;
 import net.runelite.client.plugins.PluginManager;
 import net.runelite.client.ui.ClientUI;
+import net.runelite.client.ui.overlay.OverlayRenderer;
 import net.runelite.http.api.account.AccountClient;
 import org.pushingpixels.substance.api.skin.SubstanceGraphiteLookAndFeel;
 import org.slf4j.Logger;
@@ -95,6 +98,9 @@ public class RuneLite
 	@Inject
 	private MenuManager menuManager;
 
+	@Inject
+	private OverlayRenderer overlayRenderer;
+
 	@Inject
 	private EventBus eventBus;
 
@@ -108,6 +114,9 @@ public class RuneLite
 
 	private AccountSession accountSession;
 
+	private final TileObjectIndex tileObjectIndex = new TileObjectIndex();
+	private final QueryCache queryCache = new QueryCache(tileObjectIndex);
+
 	static
 	{
 		try
@@ -163,6 +172,7 @@ public class RuneLite
 		configManager.load();
 
 		eventBus.register(menuManager);
+		eventBus.register(overlayRenderer);
 
 		// Load the plugins, but does not start them yet.
 		// This will initialize configuration
@@ -403,6 +413,24 @@ public class RuneLite
 
 	public <T> T[] runQuery(Query query)
 	{
-		return (T[]) query.result(client);
+		return (T[]) query.result(client, queryCache);
+	}
+
+	/**
+	 * Discard the snapshots shared by the queries run since the last call,
+	 * done each game tick and before rendering each frame
+	 */
+	public void clearQueryCache()
+	{
+		queryCache.clear();
+	}
+
+	/**
+	 * Get the index of the scene objects used by the tile object queries
+	 * run with runQuery, which the client hooks keep up to date
+	 */
+	public TileObjectIndex getTileObjectIndex()
+	{
+		return tileObjectIndex;
 	}
 }
@@ -30,11 +30,16 @@ import java.awt.Graphics;
 import java.awt.image.BufferedImage;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
+import net.runelite.api.GameObject;
 import net.runelite.api.MainBufferProvider;
 import net.runelite.api.MenuAction;
 import net.runelite.api.MessageNode;
 import net.runelite.api.PacketBuffer;
+import net.runelite.api.Region;
+import net.runelite.api.Renderable;
 import net.runelite.api.Skill;
+import net.runelite.api.Tile;
+import net.runelite.api.queries.TileObjectIndex;
 import net.runelite.client.RuneLite;
 import net.runelite.client.events.*;
 import net.runelite.client.game.DeathChecker;
@@ -52,11 +57,13 @@ public class Hooks
 
 	private static final Injector injector = RuneLite.getInjector();
 	private static final Client client = injector.getInstance(Client.class);
+	private static final RuneLite runelite = injector.getInstance(RuneLite.class);
 	private static final EventBus eventBus = injector.getInstance(EventBus.class);
 	private static final Scheduler scheduler = injector.getInstance(Scheduler.class);
 	private static final InfoBoxManager infoBoxManager = injector.getInstance(InfoBoxManager.class);
 	private static final DeathChecker death = new DeathChecker(client, eventBus);
 	private static final GameTick tick = new GameTick();
+	private static final TileObjectIndex tileObjectIndex = runelite.getTileObjectIndex();
 
 	private static long lastCheck;
 
@@ -93,6 +100,9 @@ public class Hooks
 
 		OverlayRenderer renderer = injector.getInstance(OverlayRenderer.class);
 
+		// the overlays of a frame share the snapshots of their queries
+		runelite.clearQueryCache();
+
 		try
 		{
 			renderer.render(image);
@@ -121,6 +131,20 @@ public class Hooks
 				}
 				break;
 			}
+			case "boostedLevelChanged":
+			{
+				BoostedLevelChanged boostedLevelChanged = new BoostedLevelChanged();
+				Skill[] possibleSkills = Skill.values();
+
+				// as with experience, 'Overall' has no boosted level
+				if (idx < possibleSkills.length - 1)
+				{
+					Skill updatedSkill = possibleSkills[idx];
+					boostedLevelChanged.setSkill(updatedSkill);
+					eventBus.post(boostedLevelChanged);
+				}
+				break;
+			}
 			case "mapRegionsChanged":
 			{
 				MapRegionChanged regionChanged = new MapRegionChanged();
@@ -178,8 +202,95 @@ public class Hooks
 		}
 	}
 
+	public static void groundItemsChanged(int x, int y)
+	{
+		GroundItemsChanged groundItemsChanged = new GroundItemsChanged();
+		groundItemsChanged.setX(x);
+		groundItemsChanged.setY(y);
+
+		eventBus.post(groundItemsChanged);
+	}
+
+	/*
+	 * The scene hooks below are called before the region changes its
+	 * tiles, they only mark them for the object index to read again.
+	 */
+
+	public static void groundObjectSpawned(Region region, int plane, int x, int y, int height, Renderable renderable, int hash, int flags)
+	{
+		tileObjectIndex.tileChanged(plane, x, y);
+	}
+
+	public static void wallObjectSpawned(Region region, int plane, int x, int y, int height, Renderable renderable1, Renderable renderable2,
+		int orientationA, int orientationB, int hash, int config)
+	{
+		tileObjectIndex.tileChanged(plane, x, y);
+	}
+
+	public static void decorativeObjectSpawned(Region region, int plane, int x, int y, int height, Renderable renderable1, Renderable renderable2,
+		int renderFlag, int rotation, int offsetX, int offsetY, int hash, int flags)
+	{
+		tileObjectIndex.tileChanged(plane, x, y);
+	}
+
+	public static void gameObjectSpawned(Region region, int plane, int x, int y, int height, int sizeX, int sizeY, Renderable renderable,
+		int orientation, int hash, int flags)
+	{
+		tileObjectIndex.areaChanged(plane, x, y, x + sizeX - 1, y + sizeY - 1);
+	}
+
+	public static void groundObjectDespawned(Region region, int plane, int x, int y)
+	{
+		tileObjectIndex.tileChanged(plane, x, y);
+	}
+
+	public static void wallObjectDespawned(Region region, int plane, int x, int y)
+	{
+		tileObjectIndex.tileChanged(plane, x, y);
+	}
+
+	public static void decorativeObjectDespawned(Region region, int plane, int x, int y)
+	{
+		tileObjectIndex.tileChanged(plane, x, y);
+	}
+
+	public static void gameObjectDespawned(Region region, int plane, int x, int y)
+	{
+		tileObjectIndex.tileChanged(plane, x, y);
+
+		// the object is removed from every tile it covers
+		Tile tile = region.getTiles()[plane][x][y];
+		if (tile == null || tile.getGameObjects() == null)
+		{
+			return;
+		}
+
+		for (GameObject object : tile.getGameObjects())
+		{
+			if (object != null && object.getRelativeX() == x && object.getRelativeY() == y)
+			{
+				tileObjectIndex.areaChanged(plane, x, y, object.getOffsetX(), object.getOffsetY());
+			}
+		}
+	}
+
+	public static void bridgeSet(Region region, int x, int y)
+	{
+		// the tiles of each plane above move down one
+		for (int plane = 0; plane < region.getTiles().length; ++plane)
+		{
+			tileObjectIndex.tileChanged(plane, x, y);
+		}
+	}
+
+	public static void sceneReset(Region region)
+	{
+		tileObjectIndex.invalidate();
+	}
+
 	public static void onPlayerUpdatePacketHandler(PacketBuffer var0, int var1)
 	{
+		runelite.clearQueryCache();
 		eventBus.post(tick);
 	}
 
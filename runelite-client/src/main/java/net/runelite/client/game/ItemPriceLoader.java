@@ -26,10 +26,14 @@ package net.runelite.client.game;
 
 import com.google.common.cache.CacheLoader;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListeningExecutorService;
-import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import static net.runelite.client.game.ItemManager.EMPTY;
 import static net.runelite.client.game.ItemManager.NONE;
 import net.runelite.http.api.item.ItemClient;
@@ -37,16 +41,29 @@ import net.runelite.http.api.item.ItemPrice;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Loads item prices in the background. Lookups requested within a
+ * short window of each other are sent as a single batch request.
+ */
 class ItemPriceLoader extends CacheLoader<Integer, ItemPrice>
 {
 	private static final Logger logger = LoggerFactory.getLogger(ItemPriceLoader.class);
 
-	private final ListeningExecutorService executorService;
+	// how long to wait for more lookups before sending a batch
+	private static final long BATCH_DELAY_MS = 100L;
+	private static final int MAX_BATCH_SIZE = 100;
+	// most items missing from the batches of one window to look up one at a time
+	private static final int MAX_SINGLE_LOOKUPS = 10;
+
+	private final ScheduledExecutorService executor;
 	private final ItemClient client;
 
+	// lookups waiting for the next batch, by item id
+	private final Map<Integer, SettableFuture<ItemPrice>> pending = new HashMap<>();
+
 	ItemPriceLoader(ScheduledExecutorService executor, ItemClient client)
 	{
-		this.executorService = MoreExecutors.listeningDecorator(executor);
+		this.executor = executor;
 		this.client = client;
 	}
 
@@ -62,7 +79,119 @@ class ItemPriceLoader extends CacheLoader<Integer, ItemPrice>
 	{
 		logger.debug("Submitting lookup for item {}", key);
 
-		return executorService.submit(() -> fetch(key));
+		synchronized (pending)
+		{
+			SettableFuture<ItemPrice> future = pending.get(key);
+			if (future != null)
+			{
+				return future;
+			}
+
+			future = SettableFuture.create();
+
+			if (pending.isEmpty())
+			{
+				executor.schedule(this::fetchPending, BATCH_DELAY_MS, TimeUnit.MILLISECONDS);
+			}
+
+			pending.put(key, future);
+			return future;
+		}
+	}
+
+	private void fetchPending()
+	{
+		Map<Integer, SettableFuture<ItemPrice>> batch;
+
+		synchronized (pending)
+		{
+			batch = new HashMap<>(pending);
+			pending.clear();
+		}
+
+		try
+		{
+			int singleLookups = MAX_SINGLE_LOOKUPS;
+			List<Integer> itemIds = new ArrayList<>(batch.keySet());
+			for (int i = 0; i < itemIds.size(); i += MAX_BATCH_SIZE)
+			{
+				List<Integer> ids = itemIds.subList(i, Math.min(i + MAX_BATCH_SIZE, itemIds.size()));
+				singleLookups -= fetch(ids, batch, singleLookups);
+			}
+		}
+		finally
+		{
+			// a lookup which failed some other way has no price, rather
+			// than never completing. This does nothing to completed ones.
+			for (SettableFuture<ItemPrice> future : batch.values())
+			{
+				future.set(NONE);
+			}
+		}
+	}
+
+	/**
+	 * Look up a batch of items, and those missing from it one at a time
+	 *
+	 * @param itemIds
+	 * @param futures
+	 * @param maxSingleLookups most items to look up one at a time
+	 * @return the number of items looked up one at a time
+	 */
+	private int fetch(List<Integer> itemIds, Map<Integer, SettableFuture<ItemPrice>> futures, int maxSingleLookups)
+	{
+		ItemPrice[] itemPrices = null;
+
+		try
+		{
+			itemPrices = client.lookupItemPrices(itemIds.stream().mapToInt(Integer::intValue).toArray());
+		}
+		catch (IOException | RuntimeException ex)
+		{
+			logger.warn("unable to look up items!", ex);
+		}
+
+		if (itemPrices == null)
+		{
+			for (Integer itemId : itemIds)
+			{
+				futures.get(itemId).set(NONE);
+			}
+			return 0;
+		}
+
+		for (ItemPrice itemPrice : itemPrices)
+		{
+			SettableFuture<ItemPrice> future = itemPrice.getItem() != null ? futures.get(itemPrice.getItem().getId()) : null;
+			if (future != null)
+			{
+				future.set(itemPrice);
+			}
+		}
+
+		// items missing from the batch have no recent price, which a
+		// single lookup will fetch. Past the limit they are left not
+		// looked up, so they are requested again with a later batch.
+		int singleLookups = 0;
+		for (Integer itemId : itemIds)
+		{
+			SettableFuture<ItemPrice> future = futures.get(itemId);
+			if (future.isDone())
+			{
+				continue;
+			}
+
+			if (singleLookups < maxSingleLookups)
+			{
+				++singleLookups;
+				future.set(fetch(itemId));
+			}
+			else
+			{
+				future.set(EMPTY);
+			}
+		}
+		return singleLookups;
 	}
 
 	private ItemPrice fetch(Integer key)
@@ -76,10 +205,10 @@ class ItemPriceLoader extends CacheLoader<Integer, ItemPrice>
 			}
 			return itemPrice;
 		}
-		catch (IOException ex)
+		catch (IOException | RuntimeException ex)
 		{
 			logger.warn("unable to look up item!", ex);
 			return NONE;
 		}
 	}
-};
+}
@@ -39,10 +39,15 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import javax.inject.Singleton;
 import javax.swing.SwingUtilities;
 import net.runelite.client.RuneLite;
+import net.runelite.client.events.PluginChanged;
+import net.runelite.client.profiler.ProfiledSubscriber;
+import net.runelite.client.profiler.Profiler;
 import net.runelite.client.task.Schedule;
 import net.runelite.client.task.ScheduledMethod;
 import net.runelite.client.task.Scheduler;
@@ -68,7 +73,12 @@ public class PluginManager
 	@Inject
 	PluginWatcher pluginWatcher;
 
+	@Inject
+	Profiler profiler;
+
 	private final List<Plugin> plugins = new CopyOnWriteArrayList<>();
+	// what each running plugin is registered to the event bus as
+	private final Map<Plugin, ProfiledSubscriber> subscribers = new ConcurrentHashMap<>();
 
 	public void loadCorePlugins() throws IOException
 	{
@@ -83,11 +93,12 @@ public class PluginManager
 			try
 			{
 				startPlugin(plugin);
+				pluginChanged(plugin, true);
 			}
 			catch (PluginInstantiationException ex)
 			{
 				logger.warn("Unable to start plugin {}", plugin.getClass().getSimpleName(), ex);
-				plugins.remove(plugin);
+				remove(plugin);
 			}
 		}
 	}
@@ -168,7 +179,9 @@ public class PluginManager
 			});
 
 			logger.debug("Plugin {} is now running", plugin.getClass().getSimpleName());
-			eventBus.register(plugin);
+			ProfiledSubscriber subscriber = new ProfiledSubscriber(profiler, plugin);
+			subscribers.put(plugin, subscriber);
+			eventBus.register(subscriber);
 			schedule(plugin);
 		}
 		catch (InterruptedException | InvocationTargetException ex)
@@ -182,7 +195,12 @@ public class PluginManager
 		try
 		{
 			unschedule(plugin);
-			eventBus.unregister(plugin);
+
+			ProfiledSubscriber subscriber = subscribers.remove(plugin);
+			if (subscriber != null)
+			{
+				eventBus.unregister(subscriber);
+			}
 
 			// plugins always stop in the event thread
 			SwingUtilities.invokeAndWait(() ->
@@ -239,11 +257,21 @@ public class PluginManager
 	void add(Plugin plugin)
 	{
 		plugins.add(plugin);
+		pluginChanged(plugin, true);
 	}
 
 	void remove(Plugin plugin)
 	{
 		plugins.remove(plugin);
+		pluginChanged(plugin, false);
+	}
+
+	private void pluginChanged(Plugin plugin, boolean loaded)
+	{
+		PluginChanged pluginChanged = new PluginChanged();
+		pluginChanged.setPlugin(plugin);
+		pluginChanged.setLoaded(loaded);
+		eventBus.post(pluginChanged);
 	}
 
 	public Collection<Plugin> getPlugins()
@@ -71,6 +71,8 @@ class BoostsOverlay extends Overlay
 		super(OverlayPosition.TOP_LEFT, OverlayPriority.MED);
 		this.client = client;
 		this.config = config;
+		// boosts only change with the stats, when the plugin marks this dirty
+		setRetained(true);
 	}
 
 	@Override
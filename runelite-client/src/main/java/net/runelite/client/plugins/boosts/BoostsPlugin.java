@@ -24,10 +24,15 @@
  */
 package net.runelite.client.plugins.boosts;
 
+import com.google.common.eventbus.Subscribe;
 import com.google.inject.Binder;
 import com.google.inject.Provides;
 import javax.inject.Inject;
 import net.runelite.client.config.ConfigManager;
+import net.runelite.client.events.BoostedLevelChanged;
+import net.runelite.client.events.ConfigChanged;
+import net.runelite.client.events.ExperienceChanged;
+import net.runelite.client.events.GameStateChanged;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.ui.overlay.Overlay;
@@ -57,4 +62,29 @@ public class BoostsPlugin extends Plugin
 	{
 		return boostsOverlay;
 	}
+
+	@Subscribe
+	public void onBoostedLevelChanged(BoostedLevelChanged event)
+	{
+		boostsOverlay.markDirty();
+	}
+
+	@Subscribe
+	public void onExperienceChanged(ExperienceChanged event)
+	{
+		// the real level the boost is shown against may have changed
+		boostsOverlay.markDirty();
+	}
+
+	@Subscribe
+	public void onGameStateChanged(GameStateChanged event)
+	{
+		boostsOverlay.markDirty();
+	}
+
+	@Subscribe
+	public void updateConfig(ConfigChanged event)
+	{
+		boostsOverlay.markDirty();
+	}
 }
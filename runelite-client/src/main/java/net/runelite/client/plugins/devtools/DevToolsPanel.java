@@ -36,6 +36,7 @@ import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.JTabbedPane;
 import javax.swing.JTree;
 import javax.swing.border.EmptyBorder;
 import javax.swing.tree.DefaultMutableTreeNode;
@@ -45,6 +46,7 @@ import net.runelite.api.widgets.Widget;
 import static net.runelite.api.widgets.WidgetInfo.TO_CHILD;
 import static net.runelite.api.widgets.WidgetInfo.TO_GROUP;
 import net.runelite.api.widgets.WidgetItem;
+import net.runelite.client.profiler.Profiler;
 import net.runelite.client.ui.PluginPanel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -80,7 +82,7 @@ public class DevToolsPanel extends PluginPanel
 	private final SettingsTracker settingsTracker;
 
 	@Inject
-	public DevToolsPanel(@Nullable Client client, DevToolsPlugin plugin)
+	public DevToolsPanel(@Nullable Client client, DevToolsPlugin plugin, Profiler profiler)
 	{
 		this.client = client;
 		this.plugin = plugin;
@@ -94,7 +96,11 @@ public class DevToolsPanel extends PluginPanel
 		setVisible(true);
 
 		add(createOptionsPanel(), BorderLayout.NORTH);
-		add(createWidgetTreePanel(), BorderLayout.CENTER);
+
+		JTabbedPane tabbedPane = new JTabbedPane();
+		tabbedPane.addTab("Widgets", createWidgetTreePanel());
+		tabbedPane.addTab("Profiler", new ProfilerPanel(profiler));
+		add(tabbedPane, BorderLayout.CENTER);
 	}
 
 	private JPanel createOptionsPanel()
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2016-2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.devtools;
+
+import java.awt.BorderLayout;
+import java.awt.GridLayout;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.Timer;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.AbstractTableModel;
+import net.runelite.client.RuneLite;
+import net.runelite.client.profiler.Histogram;
+import net.runelite.client.profiler.ProfileSection;
+import net.runelite.client.profiler.Profiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ProfilerPanel extends JPanel
+{
+	private static final Logger logger = LoggerFactory.getLogger(ProfilerPanel.class);
+
+	private static final int REFRESH_INTERVAL = 1000; // ms
+	private static final double NANOS_PER_MILLI = 1_000_000d;
+
+	private final Profiler profiler;
+	private final SectionTableModel model = new SectionTableModel();
+	private final Timer timer = new Timer(REFRESH_INTERVAL, e -> refresh());
+
+	private final JButton toggleBtn = new JButton("Start");
+
+	public ProfilerPanel(Profiler profiler)
+	{
+		this.profiler = profiler;
+
+		setLayout(new BorderLayout());
+
+		JPanel btnContainer = new JPanel();
+		btnContainer.setLayout(new GridLayout(2, 2, 3, 3));
+		btnContainer.setBorder(new EmptyBorder(3, 3, 3, 3));
+
+		toggleBtn.addActionListener(e -> toggle());
+		btnContainer.add(toggleBtn);
+
+		JButton resetBtn = new JButton("Reset");
+		resetBtn.addActionListener(e ->
+		{
+			profiler.reset();
+			refresh();
+		});
+		btnContainer.add(resetBtn);
+
+		JButton jsonBtn = new JButton("Export JSON");
+		jsonBtn.addActionListener(e -> export("profile.json", false));
+		btnContainer.add(jsonBtn);
+
+		JButton csvBtn = new JButton("Export CSV");
+		csvBtn.addActionListener(e -> export("profile.csv", true));
+		btnContainer.add(csvBtn);
+
+		add(btnContainer, BorderLayout.NORTH);
+
+		JTable table = new JTable(model);
+		table.setAutoCreateRowSorter(true);
+		add(new JScrollPane(table), BorderLayout.CENTER);
+	}
+
+	private void toggle()
+	{
+		boolean enabled = !profiler.isEnabled();
+		profiler.setEnabled(enabled);
+		toggleBtn.setText(enabled ? "Stop" : "Start");
+
+		if (enabled)
+		{
+			timer.start();
+		}
+		else
+		{
+			timer.stop();
+		}
+
+		refresh();
+	}
+
+	private void refresh()
+	{
+		model.setSections(profiler.getSections());
+	}
+
+	private void export(String name, boolean csv)
+	{
+		JFileChooser fileChooser = new JFileChooser(RuneLite.RUNELITE_DIR);
+		fileChooser.setSelectedFile(new File(RuneLite.RUNELITE_DIR, name));
+		if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION)
+		{
+			return;
+		}
+
+		File file = fileChooser.getSelectedFile();
+		try (Writer writer = new FileWriter(file))
+		{
+			if (csv)
+			{
+				profiler.writeCsv(writer);
+			}
+			else
+			{
+				profiler.writeJson(writer);
+			}
+		}
+		catch (IOException ex)
+		{
+			logger.warn("unable to export profile to {}", file, ex);
+		}
+	}
+
+	private static class SectionTableModel extends AbstractTableModel
+	{
+		private static final String[] COLUMNS =
+		{
+			"Name", "Type", "Count", "p50 ms", "p90 ms", "p99 ms", "Max ms"
+		};
+
+		private List<ProfileSection> sections = new ArrayList<>();
+
+		void setSections(List<ProfileSection> sections)
+		{
+			this.sections = sections;
+			fireTableDataChanged();
+		}
+
+		@Override
+		public int getRowCount()
+		{
+			return sections.size();
+		}
+
+		@Override
+		public int getColumnCount()
+		{
+			return COLUMNS.length;
+		}
+
+		@Override
+		public String getColumnName(int column)
+		{
+			return COLUMNS[column];
+		}
+
+		@Override
+		public Class<?> getColumnClass(int column)
+		{
+			switch (column)
+			{
+				case 0:
+				case 1:
+					return String.class;
+				case 2:
+					return Long.class;
+				default:
+					return Double.class;
+			}
+		}
+
+		@Override
+		public Object getValueAt(int row, int column)
+		{
+			ProfileSection section = sections.get(row);
+			Histogram histogram = section.getHistogram();
+
+			switch (column)
+			{
+				case 0:
+					return section.getName();
+				case 1:
+					return section.getType().toString();
+				case 2:
+					return histogram.getCount();
+				case 3:
+					return histogram.getPercentile(0.5) / NANOS_PER_MILLI;
+				case 4:
+					return histogram.getPercentile(0.9) / NANOS_PER_MILLI;
+				case 5:
+					return histogram.getPercentile(0.99) / NANOS_PER_MILLI;
+				default:
+					return histogram.getMax() / NANOS_PER_MILLI;
+			}
+		}
+	}
+}
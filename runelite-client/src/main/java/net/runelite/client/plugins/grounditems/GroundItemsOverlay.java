@@ -34,10 +34,12 @@ import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Arrays;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -102,6 +104,17 @@ public class GroundItemsOverlay extends Overlay
 			}
 		});
 
+	// Tiles on the indexed plane which have items on them, keyed by x << 8 | y,
+	// to the quantity of each item id in the order they are drawn
+	private final Map<Integer, Map<Integer, Integer>> groundItems = new HashMap<>();
+	// Tiles whose item pile has changed since the index was last updated
+	private final Set<Integer> dirtyTiles = new HashSet<>();
+	private int indexedPlane = -1;
+	private volatile boolean rescan = true;
+
+	private volatile Set<String> hiddenItems = Collections.emptySet();
+	private volatile Set<String> highlightedItems = Collections.emptySet();
+
 	@Inject
 	ItemManager itemManager;
 
@@ -152,171 +165,240 @@ public class GroundItemsOverlay extends Overlay
 			}
 		}
 
-		// gets the hidden/highlighted items from the text box in the config
-		String configItems = config.getHiddenItems().toLowerCase();
-		List<String> hiddenItems = Arrays.asList(configItems.split(DELIMITER_REGEX));
-		// note: both of these lists are immutable
-		configItems = config.getHighlightItems().toLowerCase();
-		List<String> highlightedItems = Arrays.asList(configItems.split(DELIMITER_REGEX));
-
-		Region region = client.getRegion();
-		Tile[][][] tiles = region.getTiles();
-		FontMetrics fm = graphics.getFontMetrics();
-
 		Player player = client.getLocalPlayer();
 		if (player == null)
 		{
 			return null;
 		}
 
+		Region region = client.getRegion();
 		int z = client.getPlane();
+		Tile[][] tiles = region.getTiles()[z];
+		updateGroundItems(tiles, z);
+
+		Set<String> hiddenItems = this.hiddenItems;
+		Set<String> highlightedItems = this.highlightedItems;
+		FontMetrics fm = graphics.getFontMetrics();
 
-		for (int x = 0; x < REGION_SIZE; x++)
+		for (Map.Entry<Integer, Map<Integer, Integer>> entry : groundItems.entrySet())
 		{
-			for (int y = 0; y < REGION_SIZE; y++)
+			int key = entry.getKey();
+			Tile tile = tiles[key >> 8][key & 0xFF];
+			if (tile == null)
 			{
-				Tile tile = tiles[z][x][y];
-				if (tile == null)
-				{
-					continue;
-				}
+				continue;
+			}
+
+			ItemLayer itemLayer = tile.getItemLayer();
+			if (itemLayer == null)
+			{
+				continue;
+			}
 
-				ItemLayer itemLayer = tile.getItemLayer();
-				if (itemLayer == null)
+			if (player.getLocalLocation().distanceTo(itemLayer.getLocalLocation()) >= MAX_RANGE)
+			{
+				continue;
+			}
+
+			int i = 0;
+			for (Map.Entry<Integer, Integer> itemEntry : entry.getValue().entrySet())
+			{
+				int itemId = itemEntry.getKey();
+				int quantity = itemEntry.getValue();
+				ItemComposition item = itemCache.getUnchecked(itemId);
+
+				if (item == null || hiddenItems.contains(item.getName().toLowerCase()))
 				{
 					continue;
 				}
 
-				if (player.getLocalLocation().distanceTo(itemLayer.getLocalLocation()) >= MAX_RANGE)
+				int line = i++;
+
+				Point point = itemLayer.getCanvasLocation();
+				// if the item is offscreen, don't bother drawing it
+				if (point == null || !pointInWidget(point, viewport))
 				{
 					continue;
 				}
 
-				Node current = itemLayer.getBottom();
-				Map<Integer, Integer> items = new LinkedHashMap<>();
-				// adds the items on the ground to the ArrayList to be drawn
-				while (current instanceof Item)
+				itemStringBuilder.append(item.getName());
+				if (quantity > 1)
 				{
-					Item item = (Item) current;
-					int itemId = item.getId();
-					int itemQuantity = item.getQuantity();
-					ItemComposition itemDefinition = itemCache.getUnchecked(itemId);
-
-					Integer currentQuantity = items.get(itemId);
-					if (!hiddenItems.contains(itemDefinition.getName().toLowerCase()))
+					if (quantity >= MAX_QUANTITY)
 					{
-						if (currentQuantity == null)
-						{
-							items.put(itemId, itemQuantity);
-						}
-						else
-						{
-							items.put(itemId, currentQuantity + itemQuantity);
-						}
+						itemStringBuilder.append(" (Lots!)");
+					}
+					else
+					{
+						itemStringBuilder.append(" (").append(quantity).append(")");
 					}
-
-					current = current.getNext();
 				}
 
-				// The bottom item is drawn first
-				List<Integer> itemIds = new ArrayList<>(items.keySet());
-				Collections.reverse(itemIds);
+				// sets item ID to unnoted version, if noted
+				if (item.getNote() != -1)
+				{
+					itemId = item.getLinkedNoteId();
+				}
 
-				for (int i = 0; i < itemIds.size(); ++i)
+				Color textColor = Color.WHITE; // Color to use when drawing the ground item
+				ItemPrice itemPrice = itemManager.get(itemId);
+				if (itemPrice != null && config.showGEPrice())
 				{
-					Point point = itemLayer.getCanvasLocation();
-					// if the item is offscreen, don't bother drawing it
-					if (point == null || !pointInWidget(point, viewport))
+					int cost = itemPrice.getPrice() * quantity;
+					// set the color according to rarity, if possible
+					if (cost >= INSANE_VALUE) // 10,000,000 gp
 					{
-						continue;
+						textColor = FADED_PINK;
 					}
-
-					int itemId = itemIds.get(i);
-					int quantity = items.get(itemId);
-					ItemComposition item = itemCache.getUnchecked(itemId);
-
-					if (item == null)
+					else if (cost >= HIGH_VALUE) // 1,000,000 gp
 					{
-						continue;
+						textColor = AMBER;
 					}
-
-					itemStringBuilder.append(item.getName());
-					if (quantity > 1)
+					else if (cost >= MEDIUM_VALUE) // 100,000 gp
 					{
-						if (quantity >= MAX_QUANTITY)
-						{
-							itemStringBuilder.append(" (Lots!)");
-						}
-						else
-						{
-							itemStringBuilder.append(" (").append(quantity).append(")");
-						}
+						textColor = BRIGHT_GREEN;
 					}
-
-					// sets item ID to unnoted version, if noted
-					if (item.getNote() != -1)
+					else if (cost >= LOW_VALUE) // 20,000 gp
 					{
-						itemId = item.getLinkedNoteId();
+						textColor = BRIGHT_BLUE;
 					}
 
-					Color textColor = Color.WHITE; // Color to use when drawing the ground item
-					ItemPrice itemPrice = itemManager.get(itemId);
-					if (itemPrice != null && config.showGEPrice())
-					{
-						int cost = itemPrice.getPrice() * quantity;
-						// set the color according to rarity, if possible
-						if (cost >= INSANE_VALUE) // 10,000,000 gp
-						{
-							textColor = FADED_PINK;
-						}
-						else if (cost >= HIGH_VALUE) // 1,000,000 gp
-						{
-							textColor = AMBER;
-						}
-						else if (cost >= MEDIUM_VALUE) // 100,000 gp
-						{
-							textColor = BRIGHT_GREEN;
-						}
-						else if (cost >= LOW_VALUE) // 20,000 gp
-						{
-							textColor = BRIGHT_BLUE;
-						}
-
-						itemStringBuilder.append(" (EX: ")
-							.append(ItemManager.quantityToStackSize(cost))
-							.append(" gp)");
-					}
+					itemStringBuilder.append(" (EX: ")
+						.append(ItemManager.quantityToStackSize(cost))
+						.append(" gp)");
+				}
 
-					if (config.showHAValue())
-					{
-						itemStringBuilder.append(" (HA: ")
-							.append(Math.round(item.getPrice() * HIGH_ALCHEMY_CONSTANT))
-							.append(" gp)");
-					}
+				if (config.showHAValue())
+				{
+					itemStringBuilder.append(" (HA: ")
+						.append(Math.round(item.getPrice() * HIGH_ALCHEMY_CONSTANT))
+						.append(" gp)");
+				}
 
-					if (highlightedItems.contains(item.getName().toLowerCase()))
-					{
-						textColor = PURPLE;
-					}
+				if (highlightedItems.contains(item.getName().toLowerCase()))
+				{
+					textColor = PURPLE;
+				}
 
-					String itemString = itemStringBuilder.toString();
-					itemStringBuilder.setLength(0);
+				String itemString = itemStringBuilder.toString();
+				itemStringBuilder.setLength(0);
 
-					int screenX = point.getX() + 2 - (fm.stringWidth(itemString) / 2);
+				int screenX = point.getX() + 2 - (fm.stringWidth(itemString) / 2);
 
-					// Drawing the shadow for the text, 1px on both x and y
-					graphics.setColor(Color.BLACK);
-					graphics.drawString(itemString, screenX + 1, point.getY() - (STRING_GAP * i) + 1);
-					// Drawing the text itself
-					graphics.setColor(textColor);
-					graphics.drawString(itemString, screenX, point.getY() - (STRING_GAP * i));
-				}
+				// Drawing the shadow for the text, 1px on both x and y
+				graphics.setColor(Color.BLACK);
+				graphics.drawString(itemString, screenX + 1, point.getY() - (STRING_GAP * line) + 1);
+				// Drawing the text itself
+				graphics.setColor(textColor);
+				graphics.drawString(itemString, screenX, point.getY() - (STRING_GAP * line));
 			}
 		}
 
 		return null;
 	}
 
+	/**
+	 * Parses the hidden and highlighted item lists from the config
+	 */
+	void updateConfig()
+	{
+		hiddenItems = parseItemList(config.getHiddenItems());
+		highlightedItems = parseItemList(config.getHighlightItems());
+	}
+
+	/**
+	 * Marks the item pile on a tile of the current plane as changed
+	 *
+	 * @param x scene x coordinate of the tile
+	 * @param y scene y coordinate of the tile
+	 */
+	void groundItemsChanged(int x, int y)
+	{
+		dirtyTiles.add(x << 8 | y);
+	}
+
+	/**
+	 * Discards the ground item index, causing it to be rebuilt from the
+	 * whole scene on the next frame
+	 */
+	void reset()
+	{
+		rescan = true;
+	}
+
+	private void updateGroundItems(Tile[][] tiles, int z)
+	{
+		if (rescan || z != indexedPlane)
+		{
+			rescan = false;
+			indexedPlane = z;
+			groundItems.clear();
+			dirtyTiles.clear();
+
+			for (int x = 0; x < REGION_SIZE; x++)
+			{
+				for (int y = 0; y < REGION_SIZE; y++)
+				{
+					updateTile(tiles, x, y);
+				}
+			}
+			return;
+		}
+
+		for (int key : dirtyTiles)
+		{
+			updateTile(tiles, key >> 8, key & 0xFF);
+		}
+		dirtyTiles.clear();
+	}
+
+	private void updateTile(Tile[][] tiles, int x, int y)
+	{
+		int key = x << 8 | y;
+		Tile tile = tiles[x][y];
+		ItemLayer itemLayer = tile != null ? tile.getItemLayer() : null;
+
+		if (itemLayer == null)
+		{
+			groundItems.remove(key);
+			return;
+		}
+
+		Node current = itemLayer.getBottom();
+		Map<Integer, Integer> items = new LinkedHashMap<>();
+		while (current instanceof Item)
+		{
+			Item item = (Item) current;
+			items.merge(item.getId(), item.getQuantity(), Integer::sum);
+			current = current.getNext();
+		}
+
+		// The bottom item is drawn first
+		List<Integer> itemIds = new ArrayList<>(items.keySet());
+		Collections.reverse(itemIds);
+
+		Map<Integer, Integer> ordered = new LinkedHashMap<>();
+		for (int itemId : itemIds)
+		{
+			ordered.put(itemId, items.get(itemId));
+		}
+
+		groundItems.put(key, ordered);
+	}
+
+	private static Set<String> parseItemList(String configItems)
+	{
+		Set<String> items = new HashSet<>();
+		for (String item : configItems.toLowerCase().split(DELIMITER_REGEX))
+		{
+			if (!item.isEmpty())
+			{
+				items.add(item);
+			}
+		}
+		return items;
+	}
+
 	private boolean pointInWidget(Point point, Widget widget)
 	{
 		if (widget != null)
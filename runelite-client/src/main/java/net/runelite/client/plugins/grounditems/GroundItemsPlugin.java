@@ -24,10 +24,15 @@
  */
 package net.runelite.client.plugins.grounditems;
 
+import com.google.common.eventbus.Subscribe;
 import com.google.inject.Binder;
 import com.google.inject.Provides;
 import javax.inject.Inject;
+import net.runelite.api.GameState;
 import net.runelite.client.config.ConfigManager;
+import net.runelite.client.events.ConfigChanged;
+import net.runelite.client.events.GameStateChanged;
+import net.runelite.client.events.GroundItemsChanged;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.ui.overlay.Overlay;
@@ -55,10 +60,40 @@ public class GroundItemsPlugin extends Plugin
 		return configManager.getConfig(GroundItemsConfig.class);
 	}
 
+	@Override
+	protected void startUp() throws Exception
+	{
+		overlay.updateConfig();
+		overlay.reset();
+	}
+
 	@Override
 	public Overlay getOverlay()
 	{
 		return overlay;
 	}
 
+	@Subscribe
+	public void updateConfig(ConfigChanged event)
+	{
+		if (event.getGroup().equals("grounditems"))
+		{
+			overlay.updateConfig();
+		}
+	}
+
+	@Subscribe
+	public void onGroundItemsChanged(GroundItemsChanged event)
+	{
+		overlay.groundItemsChanged(event.getX(), event.getY());
+	}
+
+	@Subscribe
+	public void onGameStateChanged(GameStateChanged event)
+	{
+		if (event.getGameState() != GameState.LOGGED_IN)
+		{
+			overlay.reset();
+		}
+	}
 }
@@ -25,17 +25,28 @@
 package net.runelite.client.plugins.xtea;
 
 import com.google.common.eventbus.Subscribe;
+import com.google.gson.JsonParseException;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import net.runelite.api.Client;
+import net.runelite.client.RuneLite;
+import net.runelite.client.events.GameTick;
 import net.runelite.client.events.MapRegionChanged;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
+import net.runelite.http.api.RuneliteAPI;
 import net.runelite.http.api.xtea.XteaClient;
+import net.runelite.http.api.xtea.XteaKey;
+import net.runelite.http.api.xtea.XteaRequest;
 import okhttp3.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,9 +58,21 @@ public class XteaPlugin extends Plugin
 {
 	private static final Logger logger = LoggerFactory.getLogger(XteaPlugin.class);
 
+	private static final File SENT_REGIONS_FILE = new File(RuneLite.RUNELITE_DIR, "xtea.json");
+
+	// how long to wait before submitting again after a failed request
+	private static final long RETRY_DELAY = 60_000L;
+
 	private final XteaClient xteaClient = new XteaClient();
 
-	private final Set<Integer> sentRegions = new HashSet<>();
+	// regions which have been submitted, for the current revision
+	private SentRegions sentRegions;
+	// whether the regions sent before have been read from disk yet
+	private boolean sentRegionsLoaded;
+	// keys of the regions loaded since the last submit, by region
+	private final Map<Integer, int[]> pendingKeys = new LinkedHashMap<>();
+	private boolean submitting;
+	private long retryTime;
 
 	@Inject
 	@Nullable
@@ -77,27 +100,172 @@ public class XteaPlugin extends Plugin
 
 		logger.debug("Region {} keys {}, {}, {}, {}", region, keys[0], keys[1], keys[2], keys[3]);
 
-		// No need to ever send more than once
-		if (sentRegions.contains(region))
+		synchronized (this)
+		{
+			if (sentRegions == null || sentRegions.revision != revision)
+			{
+				sentRegions = new SentRegions();
+				sentRegions.revision = revision;
+				sentRegionsLoaded = false;
+				pendingKeys.clear();
+
+				// read the regions sent before off the client thread, keys
+				// are held back until they are known
+				executor.execute(() -> mergeSentRegions(loadSentRegions(revision)));
+			}
+
+			// No need to ever send more than once
+			if (sentRegions.regions.contains(region))
+			{
+				return;
+			}
+
+			pendingKeys.put(region, keys.clone());
+		}
+	}
+
+	/**
+	 * Submit the keys of all regions loaded since the last tick in one
+	 * request
+	 *
+	 * @param tick
+	 */
+	@Subscribe
+	public void onTick(GameTick tick)
+	{
+		XteaRequest xteaRequest = new XteaRequest();
+
+		synchronized (this)
+		{
+			if (submitting || !sentRegionsLoaded || pendingKeys.isEmpty() || System.currentTimeMillis() < retryTime)
+			{
+				return;
+			}
+
+			xteaRequest.setRevision(sentRegions.revision);
+
+			for (Map.Entry<Integer, int[]> entry : pendingKeys.entrySet())
+			{
+				XteaKey xteaKey = new XteaKey();
+				xteaKey.setRegion(entry.getKey());
+				xteaKey.setKeys(entry.getValue());
+				xteaRequest.addKey(xteaKey);
+			}
+
+			submitting = true;
+		}
+
+		executor.execute(() -> submit(xteaRequest));
+	}
+
+	private synchronized void mergeSentRegions(SentRegions loaded)
+	{
+		if (sentRegions.revision != loaded.revision)
 		{
 			return;
 		}
 
-		sentRegions.add(region);
+		sentRegions.regions.addAll(loaded.regions);
+		pendingKeys.keySet().removeAll(loaded.regions);
+		sentRegionsLoaded = true;
+	}
+
+	private void submit(XteaRequest xteaRequest)
+	{
+		int code;
+
+		try (Response response = xteaClient.submit(xteaRequest))
+		{
+			code = response.code();
+		}
+		catch (IOException ex)
+		{
+			logger.debug("unable to submit xtea keys", ex);
+			code = -1;
+		}
+
+		SentRegions save;
+
+		synchronized (this)
+		{
+			submitting = false;
+
+			if (code == -1 || code >= 500)
+			{
+				// keep the keys pending until the server has taken them
+				retryTime = System.currentTimeMillis() + RETRY_DELAY;
+				return;
+			}
+
+			if (sentRegions.revision != xteaRequest.getRevision())
+			{
+				return;
+			}
+
+			for (XteaKey xteaKey : xteaRequest.getKeys())
+			{
+				pendingKeys.remove(xteaKey.getRegion());
+			}
+
+			if (code < 200 || code >= 300)
+			{
+				// the request was rejected, sending it again won't help
+				logger.debug("unsuccessful xtea response: {}", code);
+				return;
+			}
+
+			for (XteaKey xteaKey : xteaRequest.getKeys())
+			{
+				sentRegions.regions.add(xteaKey.getRegion());
+			}
+
+			save = new SentRegions();
+			save.revision = sentRegions.revision;
+			save.regions.addAll(sentRegions.regions);
+		}
+
+		saveSentRegions(save);
+	}
 
-		executor.execute(() ->
+	private static SentRegions loadSentRegions(int revision)
+	{
+		if (SENT_REGIONS_FILE.exists())
 		{
-			try (Response response = xteaClient.submit(revision, region, keys))
+			try (FileReader reader = new FileReader(SENT_REGIONS_FILE))
 			{
-				if (!response.isSuccessful())
+				SentRegions sentRegions = RuneliteAPI.GSON.fromJson(reader, SentRegions.class);
+				if (sentRegions != null && sentRegions.revision == revision && sentRegions.regions != null)
 				{
-					logger.debug("unsuccessful xtea response");
+					logger.debug("Loaded {} sent regions for revision {}", sentRegions.regions.size(), revision);
+					return sentRegions;
 				}
 			}
-			catch (IOException ex)
+			catch (IOException | JsonParseException ex)
 			{
-				logger.debug("unable to submit xtea keys", ex);
+				logger.warn("Unable to load sent regions", ex);
 			}
-		});
+		}
+
+		SentRegions sentRegions = new SentRegions();
+		sentRegions.revision = revision;
+		return sentRegions;
+	}
+
+	private static void saveSentRegions(SentRegions sentRegions)
+	{
+		try (FileWriter writer = new FileWriter(SENT_REGIONS_FILE))
+		{
+			RuneliteAPI.GSON.toJson(sentRegions, writer);
+		}
+		catch (IOException ex)
+		{
+			logger.warn("Unable to save sent regions", ex);
+		}
+	}
+
+	private static class SentRegions
+	{
+		private int revision;
+		private Set<Integer> regions = new HashSet<>();
 	}
 }
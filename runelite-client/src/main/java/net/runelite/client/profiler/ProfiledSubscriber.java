@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.profiler;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.eventbus.SubscriberExceptionContext;
+import com.google.common.reflect.TypeToken;
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Receives every event posted to an {@link EventBus} and passes it on to
+ * the subscribers of one object through a bus of its own, recording how
+ * long they take under the class of the object. Register this in place of
+ * the object to profile its subscribers.
+ */
+public class ProfiledSubscriber
+{
+	private static final Logger logger = LoggerFactory.getLogger(ProfiledSubscriber.class);
+
+	private final Profiler profiler;
+	private final Object subscriber;
+	private final EventBus eventBus = new EventBus(ProfiledSubscriber::eventExceptionHandler);
+	// the parameter types of the subscriber methods
+	private final Set<Class<?>> eventTypes = new HashSet<>();
+	// whether the subscriber has methods for each class of event seen
+	private final Map<Class<?>, Boolean> subscribed = new ConcurrentHashMap<>();
+
+	public ProfiledSubscriber(Profiler profiler, Object subscriber)
+	{
+		this.profiler = profiler;
+		this.subscriber = subscriber;
+		eventBus.register(subscriber);
+
+		// the same methods the bus finds
+		for (Class<?> type : TypeToken.of(subscriber.getClass()).getTypes().rawTypes())
+		{
+			for (Method method : type.getDeclaredMethods())
+			{
+				if (method.isAnnotationPresent(Subscribe.class) && !method.isSynthetic() && method.getParameterCount() == 1)
+				{
+					eventTypes.add(method.getParameterTypes()[0]);
+				}
+			}
+		}
+	}
+
+	@Subscribe
+	@AllowConcurrentEvents // the subscribers synchronize themselves unless they allow concurrent events
+	public void onEvent(Object event)
+	{
+		if (!subscribed.computeIfAbsent(event.getClass(), this::isSubscribed))
+		{
+			return;
+		}
+
+		// events posted by the subscribers are queued by the outer bus,
+		// and are timed when they are dispatched
+		long start = System.nanoTime();
+		eventBus.post(event);
+		profiler.record(ProfileType.EVENT, subscriber.getClass(), start);
+	}
+
+	private boolean isSubscribed(Class<?> eventClass)
+	{
+		for (Class<?> type : eventTypes)
+		{
+			if (type.isAssignableFrom(eventClass))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void eventExceptionHandler(Throwable exception, SubscriberExceptionContext context)
+	{
+		logger.warn("uncaught exception in event subscriber", exception);
+	}
+}
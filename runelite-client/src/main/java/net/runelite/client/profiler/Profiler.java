@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2016-2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.profiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.inject.Singleton;
+import net.runelite.http.api.RuneliteAPI;
+
+/**
+ * Records how long overlays, event subscribers and scheduled methods take.
+ * Callers take {@link System#nanoTime()} before running the section and
+ * pass it to {@link #record(ProfileType, Object, long)} afterwards, which
+ * does nothing unless profiling is enabled.
+ */
+@Singleton
+public class Profiler
+{
+	private static final double NANOS_PER_MILLI = 1_000_000d;
+
+	// sections keyed by the overlay class, subscriber class or scheduled method
+	private final ConcurrentMap<Object, ProfileSection> sections = new ConcurrentHashMap<>();
+	private volatile boolean enabled;
+
+	public boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled)
+	{
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Record the time since start for a section
+	 *
+	 * @param type
+	 * @param key the overlay class, subscriber class or scheduled method
+	 * @param start the value of {@link System#nanoTime()} before the section ran
+	 */
+	public void record(ProfileType type, Object key, long start)
+	{
+		if (!enabled)
+		{
+			return;
+		}
+
+		long elapsed = System.nanoTime() - start;
+
+		ProfileSection section = sections.get(key);
+		if (section == null)
+		{
+			section = sections.computeIfAbsent(key, k -> new ProfileSection(type, nameOf(k)));
+		}
+
+		section.getHistogram().record(elapsed);
+	}
+
+	/**
+	 * Get the sections recorded so far, slowest total first
+	 */
+	public List<ProfileSection> getSections()
+	{
+		List<ProfileSection> list = new ArrayList<>(sections.values());
+		list.sort(Comparator.comparingLong((ProfileSection s) -> s.getHistogram().getTotal()).reversed());
+		return list;
+	}
+
+	public void reset()
+	{
+		sections.clear();
+	}
+
+	public void writeCsv(Writer writer) throws IOException
+	{
+		writer.write("type,name,count,total_ms,p50_ms,p90_ms,p99_ms,max_ms\n");
+		for (ProfileSection section : getSections())
+		{
+			Histogram histogram = section.getHistogram();
+			writer.write(String.format(Locale.ROOT, "%s,%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f\n",
+				section.getType(), section.getName(), histogram.getCount(),
+				histogram.getTotal() / NANOS_PER_MILLI,
+				histogram.getPercentile(0.5) / NANOS_PER_MILLI,
+				histogram.getPercentile(0.9) / NANOS_PER_MILLI,
+				histogram.getPercentile(0.99) / NANOS_PER_MILLI,
+				histogram.getMax() / NANOS_PER_MILLI));
+		}
+	}
+
+	public void writeJson(Writer writer)
+	{
+		List<Map<String, Object>> out = new ArrayList<>();
+		for (ProfileSection section : getSections())
+		{
+			Histogram histogram = section.getHistogram();
+			Map<String, Object> entry = new LinkedHashMap<>();
+			entry.put("type", section.getType());
+			entry.put("name", section.getName());
+			entry.put("count", histogram.getCount());
+			entry.put("totalNanos", histogram.getTotal());
+			entry.put("p50Nanos", histogram.getPercentile(0.5));
+			entry.put("p90Nanos", histogram.getPercentile(0.9));
+			entry.put("p99Nanos", histogram.getPercentile(0.99));
+			entry.put("maxNanos", histogram.getMax());
+			out.add(entry);
+		}
+		RuneliteAPI.GSON.toJson(out, writer);
+	}
+
+	private static String nameOf(Object key)
+	{
+		if (key instanceof Class)
+		{
+			return ((Class<?>) key).getName();
+		}
+		if (key instanceof Method)
+		{
+			Method method = (Method) key;
+			return method.getDeclaringClass().getName() + "." + method.getName();
+		}
+		return key.toString();
+	}
+}
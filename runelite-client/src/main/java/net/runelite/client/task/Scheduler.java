@@ -34,6 +34,8 @@ import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import net.runelite.client.profiler.ProfileType;
+import net.runelite.client.profiler.Profiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,6 +49,9 @@ public class Scheduler
 	@Inject
 	ScheduledExecutorService executor;
 
+	@Inject
+	Profiler profiler;
+
 	public void addScheduledMethod(ScheduledMethod method)
 	{
 		scheduledMethods.add(method);
@@ -97,6 +102,7 @@ public class Scheduler
 	{
 		Method method = scheduledMethod.getMethod();
 
+		long start = System.nanoTime();
 		try
 		{
 			method.invoke(scheduledMethod.getObject());
@@ -109,5 +115,9 @@ public class Scheduler
 		{
 			logger.warn("error during scheduled task", ex);
 		}
+		finally
+		{
+			profiler.record(ProfileType.SCHEDULE, method, start);
+		}
 	}
 }
@@ -28,16 +28,29 @@ import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
+import net.runelite.client.profiler.ProfileType;
+import net.runelite.client.profiler.Profiler;
 
 public class DynamicRenderer implements Renderer
 {
 	private final List<Overlay> overlays = new ArrayList<>();
+	private final Profiler profiler;
+
+	public DynamicRenderer(Profiler profiler)
+	{
+		this.profiler = profiler;
+	}
 
 	public void add(Overlay overlay)
 	{
 		overlays.add(overlay);
 	}
 
+	public void clear()
+	{
+		overlays.clear();
+	}
+
 	@Override
 	public void render(BufferedImage clientBuffer)
 	{
@@ -45,7 +58,9 @@ public class DynamicRenderer implements Renderer
 		{
 			Graphics2D graphics = clientBuffer.createGraphics();
 			Renderer.setAntiAliasing(graphics);
+			long start = System.nanoTime();
 			overlay.render(graphics);
+			profiler.record(ProfileType.OVERLAY, overlay.getClass(), start);
 			graphics.dispose();
 		}
 	}
@@ -28,12 +28,20 @@ package net.runelite.client.ui.overlay;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
 
 public abstract class Overlay
 {
 	private OverlayPosition position; // where to draw it
 	private OverlayPriority priority; // if multiple overlays exist in the same position, who wins
 	private Rectangle bounds; //screen bounds of overlay after OverlayRenderer decides location
+	private boolean retained; // whether the last image drawn can be reused until the overlay is marked dirty
+	private volatile boolean dirty = true;
+
+	// the last image drawn by a retained overlay, and the size of the area it was drawn into
+	private BufferedImage layer;
+	private int layerWidth;
+	private int layerHeight;
 
 	public Overlay(OverlayPosition position)
 	{
@@ -77,4 +85,53 @@ public abstract class Overlay
 	{
 		this.bounds = bounds;
 	}
+
+	public boolean isRetained()
+	{
+		return retained;
+	}
+
+	/**
+	 * Set whether the image drawn by this overlay only changes when it is
+	 * marked dirty. The renderer then draws a retained overlay once and
+	 * reuses the image on the following frames. This has no effect on
+	 * dynamic overlays.
+	 *
+	 * @param retained
+	 */
+	public void setRetained(boolean retained)
+	{
+		this.retained = retained;
+		markDirty();
+	}
+
+	/**
+	 * Mark a retained overlay to be drawn again on the next frame
+	 */
+	public void markDirty()
+	{
+		dirty = true;
+	}
+
+	boolean isLayerValid(int width, int height)
+	{
+		return !dirty && width == layerWidth && height == layerHeight;
+	}
+
+	void clearDirty()
+	{
+		dirty = false;
+	}
+
+	BufferedImage getLayer()
+	{
+		return layer;
+	}
+
+	void storeLayer(BufferedImage layer, int width, int height)
+	{
+		this.layer = layer;
+		this.layerWidth = width;
+		this.layerHeight = height;
+	}
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2016-2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.ui.overlay;
+
+import java.awt.AlphaComposite;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import net.runelite.client.profiler.ProfileType;
+import net.runelite.client.profiler.Profiler;
+
+/**
+ * Draws panel overlays off-screen so they can be positioned by their size,
+ * keeping a copy of the image of retained overlays to reuse on later frames
+ */
+class OverlayLayers
+{
+	private final Profiler profiler;
+	private BufferedImage scratch;
+
+	OverlayLayers(Profiler profiler)
+	{
+		this.profiler = profiler;
+	}
+
+	/**
+	 * Get the image of an overlay, drawing it if it is not retained or its
+	 * previous image can not be reused
+	 *
+	 * @param overlay
+	 * @param width width of the area the overlay is drawn in
+	 * @param height height of the area the overlay is drawn in
+	 * @return the image, whose size is that returned by the overlay, or null if it drew nothing
+	 */
+	BufferedImage render(Overlay overlay, int width, int height)
+	{
+		if (overlay.isRetained() && overlay.isLayerValid(width, height))
+		{
+			return overlay.getLayer();
+		}
+
+		overlay.clearDirty();
+
+		if (scratch == null || scratch.getWidth() != width || scratch.getHeight() != height)
+		{
+			scratch = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		}
+
+		Graphics2D graphics = scratch.createGraphics();
+		graphics.setComposite(AlphaComposite.Clear);
+		graphics.fillRect(0, 0, width, height);
+		graphics.setComposite(AlphaComposite.SrcOver);
+		Renderer.setAntiAliasing(graphics);
+		long start = System.nanoTime();
+		Dimension dimension = overlay.render(graphics);
+		profiler.record(ProfileType.OVERLAY, overlay.getClass(), start);
+		graphics.dispose();
+
+		BufferedImage image = null;
+		if (dimension != null && dimension.width > 0 && dimension.height > 0)
+		{
+			image = scratch.getSubimage(0, 0, Math.min(dimension.width, width), Math.min(dimension.height, height));
+
+			if (overlay.isRetained())
+			{
+				// copy it out of the scratch image, which is reused by the next overlay
+				BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+				graphics = copy.createGraphics();
+				graphics.drawImage(image, 0, 0, null);
+				graphics.dispose();
+				image = copy;
+			}
+		}
+
+		if (overlay.isRetained())
+		{
+			overlay.storeLayer(image, width, height);
+		}
+
+		return image;
+	}
+}
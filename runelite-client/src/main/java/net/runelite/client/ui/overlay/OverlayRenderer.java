@@ -24,14 +24,17 @@
  */
 package net.runelite.client.ui.overlay;
 
+import com.google.common.eventbus.Subscribe;
 import java.awt.image.BufferedImage;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import net.runelite.api.Client;
 import net.runelite.client.config.RuneliteConfig;
+import net.runelite.client.events.PluginChanged;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginManager;
+import net.runelite.client.profiler.Profiler;
 import net.runelite.client.ui.overlay.infobox.InfoBoxManager;
 import net.runelite.client.ui.overlay.infobox.InfoBoxOverlay;
 import net.runelite.client.ui.overlay.tooltips.TooltipRenderer;
@@ -42,23 +45,56 @@ public class OverlayRenderer
 	private final Client client;
 	private final TooltipRenderer tooltipRenderer;
 	private final InfoBoxOverlay infoBoxOverlay;
+	private final TopDownRendererLeft tdl;
+	private final TopDownRendererRight tdr;
+	private final DynamicRenderer dr;
+	private volatile boolean rebuild = true;
 
 	@Inject
 	PluginManager pluginManager;
 
 	@Inject
-	public OverlayRenderer(@Nullable Client client, InfoBoxManager infoboxManager, RuneliteConfig config)
+	public OverlayRenderer(@Nullable Client client, InfoBoxManager infoboxManager, RuneliteConfig config, Profiler profiler)
 	{
 		this.client = client;
 		tooltipRenderer = new TooltipRenderer(client, config);
 		infoBoxOverlay = new InfoBoxOverlay(client, tooltipRenderer, infoboxManager);
+		tdl = new TopDownRendererLeft(profiler);
+		tdr = new TopDownRendererRight(client, profiler);
+		dr = new DynamicRenderer(profiler);
+	}
+
+	@Subscribe
+	public void onPluginChanged(PluginChanged event)
+	{
+		rebuild = true;
 	}
 
 	public void render(BufferedImage clientBuffer)
 	{
-		TopDownRendererLeft tdl = new TopDownRendererLeft();
-		TopDownRendererRight tdr = new TopDownRendererRight(client);
-		DynamicRenderer dr = new DynamicRenderer();
+		if (rebuild)
+		{
+			rebuild = false;
+			rebuildOverlays();
+		}
+
+		tdl.render(clientBuffer);
+		tdr.render(clientBuffer);
+		dr.render(clientBuffer);
+
+		// tooltips are always rendered on top of other overlays
+		tooltipRenderer.render(clientBuffer);
+	}
+
+	/**
+	 * Sort the overlays of the loaded plugins into the renderers for their positions
+	 */
+	private void rebuildOverlays()
+	{
+		tdl.clear();
+		tdr.clear();
+		dr.clear();
+
 		for (Plugin plugin : pluginManager.getPlugins())
 		{
 			for (Overlay overlay : plugin.getOverlays())
@@ -79,13 +115,6 @@ public class OverlayRenderer
 		}
 
 		tdl.add(infoBoxOverlay);
-
-		tdl.render(clientBuffer);
-		tdr.render(clientBuffer);
-		dr.render(clientBuffer);
-
-		// tooltips are always rendered on top of other overlays
-		tooltipRenderer.render(clientBuffer);
 	}
 
 	public TooltipRenderer getTooltipRenderer()
@@ -30,6 +30,8 @@ import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
+import net.runelite.client.profiler.ProfileType;
+import net.runelite.client.profiler.Profiler;
 
 public class TopDownRendererLeft implements Renderer
 {
@@ -38,12 +40,25 @@ public class TopDownRendererLeft implements Renderer
 	private static final int PADDING = 10;
 
 	private final List<Overlay> overlays = new ArrayList<>();
+	private final Profiler profiler;
+	private final OverlayLayers layers;
+
+	public TopDownRendererLeft(Profiler profiler)
+	{
+		this.profiler = profiler;
+		this.layers = new OverlayLayers(profiler);
+	}
 
 	public void add(Overlay overlay)
 	{
 		overlays.add(overlay);
 	}
 
+	public void clear()
+	{
+		overlays.clear();
+	}
+
 	@Override
 	public void render(BufferedImage clientBuffer)
 	{
@@ -52,11 +67,31 @@ public class TopDownRendererLeft implements Renderer
 
 		for (Overlay overlay : overlays)
 		{
-			BufferedImage image = clientBuffer.getSubimage(BORDER_LEFT, y, clientBuffer.getWidth() - BORDER_LEFT, clientBuffer.getHeight() - y);
-			Graphics2D graphics = image.createGraphics();
-			Renderer.setAntiAliasing(graphics);
-			Dimension dimension = overlay.render(graphics);
-			graphics.dispose();
+			Dimension dimension;
+			if (overlay.isRetained())
+			{
+				BufferedImage image = layers.render(overlay, clientBuffer.getWidth() - BORDER_LEFT, clientBuffer.getHeight() - BORDER_TOP);
+				if (image == null)
+				{
+					continue;
+				}
+
+				Graphics2D graphics = clientBuffer.createGraphics();
+				graphics.drawImage(image, BORDER_LEFT, y, null);
+				graphics.dispose();
+
+				dimension = new Dimension(image.getWidth(), image.getHeight());
+			}
+			else
+			{
+				BufferedImage image = clientBuffer.getSubimage(BORDER_LEFT, y, clientBuffer.getWidth() - BORDER_LEFT, clientBuffer.getHeight() - y);
+				Graphics2D graphics = image.createGraphics();
+				Renderer.setAntiAliasing(graphics);
+				long start = System.nanoTime();
+				dimension = overlay.render(graphics);
+				profiler.record(ProfileType.OVERLAY, overlay.getClass(), start);
+				graphics.dispose();
+			}
 
 			if (dimension == null)
 				continue;
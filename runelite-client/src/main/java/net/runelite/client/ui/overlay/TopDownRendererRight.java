@@ -31,6 +31,7 @@ import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
 import net.runelite.api.Client;
+import net.runelite.client.profiler.Profiler;
 
 public class TopDownRendererRight implements Renderer
 {
@@ -40,10 +41,12 @@ public class TopDownRendererRight implements Renderer
 
 	private final Client client;
 	private final List<Overlay> overlays = new ArrayList<>();
+	private final OverlayLayers layers;
 
-	public TopDownRendererRight(Client client)
+	public TopDownRendererRight(Client client, Profiler profiler)
 	{
 		this.client = client;
+		this.layers = new OverlayLayers(profiler);
 	}
 
 	public void add(Overlay overlay)
@@ -51,6 +54,11 @@ public class TopDownRendererRight implements Renderer
 		overlays.add(overlay);
 	}
 
+	public void clear()
+	{
+		overlays.clear();
+	}
+
 	@Override
 	public void render(BufferedImage clientBuffer)
 	{
@@ -62,20 +70,15 @@ public class TopDownRendererRight implements Renderer
 
 		for (Overlay overlay : overlays)
 		{
-			BufferedImage image = new BufferedImage(clientWidth, clientHeight, BufferedImage.TYPE_INT_ARGB);
-			Graphics2D graphics = image.createGraphics();
-			Renderer.setAntiAliasing(graphics);
-			Dimension dimension = overlay.render(graphics);
-			graphics.dispose();
-
-			if (dimension == null)
+			BufferedImage image = layers.render(overlay, clientWidth, clientHeight);
+			if (image == null)
 			{
 				continue;
 			}
 
-			image = image.getSubimage(0, 0, (int) dimension.getWidth(), (int) dimension.getHeight());
+			Dimension dimension = new Dimension(image.getWidth(), image.getHeight());
 
-			graphics = clientBuffer.createGraphics();
+			Graphics2D graphics = clientBuffer.createGraphics();
 			graphics.drawImage(image, clientWidth - BORDER_RIGHT - (int) dimension.getWidth(), y, null);
 			graphics.dispose();
 
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.game;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static net.runelite.client.game.ItemManager.EMPTY;
+import static net.runelite.client.game.ItemManager.NONE;
+import net.runelite.http.api.item.ItemClient;
+import net.runelite.http.api.item.ItemPrice;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+public class ItemPriceLoaderTest
+{
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+	@After
+	public void after()
+	{
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testBatchFailure() throws Exception
+	{
+		ItemClient client = new ItemClient()
+		{
+			@Override
+			public ItemPrice[] lookupItemPrices(int[] itemIds) throws IOException
+			{
+				throw new IllegalStateException("bad response");
+			}
+		};
+
+		ItemPriceLoader loader = new ItemPriceLoader(executor, client);
+		ListenableFuture<ItemPrice> future = loader.reload(1, EMPTY);
+
+		// lookups which fail unexpectedly still complete
+		assertSame(NONE, future.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testSingleLookupsLimited() throws Exception
+	{
+		AtomicInteger singleLookups = new AtomicInteger();
+		ItemClient client = new ItemClient()
+		{
+			@Override
+			public ItemPrice[] lookupItemPrices(int[] itemIds) throws IOException
+			{
+				return new ItemPrice[0];
+			}
+
+			@Override
+			public ItemPrice lookupItemPrice(int itemId) throws IOException
+			{
+				singleLookups.incrementAndGet();
+				return null;
+			}
+		};
+
+		ItemPriceLoader loader = new ItemPriceLoader(executor, client);
+		List<ListenableFuture<ItemPrice>> futures = new ArrayList<>();
+		for (int i = 0; i < 25; ++i)
+		{
+			futures.add(loader.reload(i, EMPTY));
+		}
+
+		int none = 0;
+		int empty = 0;
+		for (ListenableFuture<ItemPrice> future : futures)
+		{
+			ItemPrice itemPrice = future.get(5, TimeUnit.SECONDS);
+			if (itemPrice == NONE)
+			{
+				++none;
+			}
+			else if (itemPrice == EMPTY)
+			{
+				++empty;
+			}
+		}
+
+		// the rest are left to be looked up again
+		assertEquals(10, singleLookups.get());
+		assertEquals(10, none);
+		assertEquals(15, empty);
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2026, agent <agent@local>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.profiler;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class ProfiledSubscriberTest
+{
+	@Test
+	public void testSubscribersTimedSeparately()
+	{
+		Profiler profiler = new Profiler();
+		profiler.setEnabled(true);
+
+		EventBus eventBus = new EventBus();
+		Receiver receiver = new Receiver();
+		eventBus.register(new ProfiledSubscriber(profiler, new Poster(eventBus)));
+		eventBus.register(new ProfiledSubscriber(profiler, receiver));
+
+		eventBus.post("test");
+		eventBus.post(1L); // neither subscribes to it
+
+		// the event posted by the poster is timed for the receiver
+		assertEquals(1, receiver.count);
+		List<ProfileSection> sections = profiler.getSections();
+		assertEquals(2, sections.size());
+		for (ProfileSection section : sections)
+		{
+			assertEquals(ProfileType.EVENT, section.getType());
+			assertEquals(1, section.getHistogram().getCount());
+		}
+	}
+
+	public static class Poster
+	{
+		private final EventBus eventBus;
+
+		Poster(EventBus eventBus)
+		{
+			this.eventBus = eventBus;
+		}
+
+		@Subscribe
+		public void onString(String event)
+		{
+			eventBus.post(1);
+		}
+	}
+
+	public static class Receiver
+	{
+		private int count;
+
+		@Subscribe
+		public void onInteger(Integer event)
+		{
+			++count;
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016-2017, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.ui.overlay;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import net.runelite.client.profiler.Profiler;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OverlayLayersTest
+{
+	private static class TestOverlay extends Overlay
+	{
+		private int renders;
+
+		TestOverlay()
+		{
+			super(OverlayPosition.TOP_RIGHT);
+		}
+
+		@Override
+		public Dimension render(Graphics2D graphics)
+		{
+			++renders;
+			graphics.setColor(Color.RED);
+			graphics.fillRect(0, 0, 20, 10);
+			return new Dimension(20, 10);
+		}
+	}
+
+	@Test
+	public void testRetained()
+	{
+		OverlayLayers layers = new OverlayLayers(new Profiler());
+		TestOverlay overlay = new TestOverlay();
+		overlay.setRetained(true);
+
+		BufferedImage image = layers.render(overlay, 100, 100);
+		Assert.assertEquals(20, image.getWidth());
+		Assert.assertEquals(10, image.getHeight());
+		Assert.assertEquals(Color.RED.getRGB(), image.getRGB(5, 5));
+
+		Assert.assertSame(image, layers.render(overlay, 100, 100));
+		Assert.assertEquals(1, overlay.renders);
+
+		overlay.markDirty();
+		layers.render(overlay, 100, 100);
+		Assert.assertEquals(2, overlay.renders);
+
+		// the area it is drawn in has changed size
+		layers.render(overlay, 200, 100);
+		Assert.assertEquals(3, overlay.renders);
+	}
+
+	@Test
+	public void testNotRetained()
+	{
+		OverlayLayers layers = new OverlayLayers(new Profiler());
+		TestOverlay overlay = new TestOverlay();
+
+		layers.render(overlay, 100, 100);
+		layers.render(overlay, 100, 100);
+		Assert.assertEquals(2, overlay.renders);
+	}
+}
@@ -37,15 +37,19 @@ public interface RSGameObject extends GameObject
 	int getPlane();
 
 	@Import("relativeX")
+	@Override
 	int getRelativeX();
 
 	@Import("relativeY")
+	@Override
 	int getRelativeY();
 
 	@Import("offsetX")
+	@Override
 	int getOffsetX();
 
 	@Import("offsetY")
+	@Override
 	int getOffsetY();
 
 	@Import("x")
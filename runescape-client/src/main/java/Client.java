@@ -991,6 +991,7 @@ public final class Client extends GameEngine {
    static Deque graphicsObjectDeque;
    @ObfuscatedName("ie")
    @Export("boostedSkillLevels")
+   @Hook("boostedLevelChanged")
    static int[] boostedSkillLevels;
    @ObfuscatedName("if")
    @Export("realSkillLevels")
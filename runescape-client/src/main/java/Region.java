@@ -1,4 +1,5 @@
 import net.runelite.mapping.Export;
+import net.runelite.mapping.Hook;
 import net.runelite.mapping.Implements;
 import net.runelite.mapping.ObfuscatedName;
 import net.runelite.mapping.ObfuscatedSignature;
@@ -229,6 +230,7 @@ public class Region {
 
    @ObfuscatedName("b")
    @Export("reset")
+   @Hook("sceneReset")
    public void reset() {
       int var1;
       int var2;
@@ -277,6 +279,7 @@ public class Region {
 
    @ObfuscatedName("r")
    @Export("setBridge")
+   @Hook("bridgeSet")
    public void setBridge(int var1, int var2) {
       Tile var3 = this.tiles[0][var1][var2];
 
@@ -354,6 +357,7 @@ public class Region {
       signature = "(IIIILeu;II)V"
    )
    @Export("groundObjectSpawned")
+   @Hook("groundObjectSpawned")
    public void groundObjectSpawned(int var1, int var2, int var3, int var4, Renderable var5, int var6, int var7) {
       if(var5 != null) {
          GroundObject var8 = new GroundObject();
@@ -412,6 +416,7 @@ public class Region {
       signature = "(IIIILeu;Leu;IIII)V"
    )
    @Export("addBoundary")
+   @Hook("wallObjectSpawned")
    public void addBoundary(int var1, int var2, int var3, int var4, Renderable var5, Renderable var6, int var7, int var8, int var9, int var10) {
       if(var5 != null || var6 != null) {
          WallObject var11 = new WallObject();
@@ -440,6 +445,7 @@ public class Region {
       signature = "(IIIILeu;Leu;IIIIII)V"
    )
    @Export("addBoundaryDecoration")
+   @Hook("decorativeObjectSpawned")
    public void addBoundaryDecoration(int var1, int var2, int var3, int var4, Renderable var5, Renderable var6, int var7, int var8, int var9, int var10, int var11, int var12) {
       if(var5 != null) {
          DecorativeObject var13 = new DecorativeObject();
@@ -469,6 +475,7 @@ public class Region {
    @ObfuscatedSignature(
       signature = "(IIIIIILeu;III)Z"
    )
+   @Hook("gameObjectSpawned")
    public boolean method2698(int var1, int var2, int var3, int var4, int var5, int var6, Renderable var7, int var8, int var9, int var10) {
       if(var7 == null) {
          return true;
@@ -660,6 +667,7 @@ public class Region {
    }
 
    @ObfuscatedName("l")
+   @Hook("wallObjectDespawned")
    public void method2705(int var1, int var2, int var3) {
       Tile var4 = this.tiles[var1][var2][var3];
       if(var4 != null) {
@@ -668,6 +676,7 @@ public class Region {
    }
 
    @ObfuscatedName("z")
+   @Hook("decorativeObjectDespawned")
    public void method2706(int var1, int var2, int var3) {
       Tile var4 = this.tiles[var1][var2][var3];
       if(var4 != null) {
@@ -676,6 +685,7 @@ public class Region {
    }
 
    @ObfuscatedName("e")
+   @Hook("gameObjectDespawned")
    public void method2707(int var1, int var2, int var3) {
       Tile var4 = this.tiles[var1][var2][var3];
       if(var4 != null) {
@@ -691,6 +701,7 @@ public class Region {
    }
 
    @ObfuscatedName("v")
+   @Hook("groundObjectDespawned")
    public void method2802(int var1, int var2, int var3) {
       Tile var4 = this.tiles[var1][var2][var3];
       if(var4 != null) {
@@ -1,4 +1,5 @@
 import net.runelite.mapping.Export;
+import net.runelite.mapping.Hook;
 import net.runelite.mapping.Implements;
 import net.runelite.mapping.ObfuscatedGetter;
 import net.runelite.mapping.ObfuscatedName;
@@ -163,6 +164,7 @@ public class ScriptEvent extends Node {
       garbageValue = "935648144"
    )
    @Export("groundItemSpawned")
+   @Hook("groundItemsChanged")
    static final void groundItemSpawned(int var0, int var1) {
       Deque var2 = Client.groundItemDeque[class28.plane][var0][var1];
       if(var2 == null) {